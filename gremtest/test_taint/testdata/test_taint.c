@@ -0,0 +1,20 @@
+int get_length(void);
+void copy_bytes(int n);
+
+void taint_unchecked()
+{
+	int len = get_length();
+	copy_bytes(len);
+}
+
+void taint_checked()
+{
+	int len = get_length();
+	if (len < 64)
+		copy_bytes(len);
+}
+
+void taint_constant()
+{
+	copy_bytes(32);
+}
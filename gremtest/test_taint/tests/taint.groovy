@@ -0,0 +1,51 @@
+!include("gremtest.groovy")
+
+// Argument descriptions: the length passed to copy_bytes is defined
+// by a call to get_length, and it is sanitized by comparing it.
+
+lengthSource = { it.value('code').contains('get_length') }
+lengthCheck = { cnd, sym -> cnd.value('code').matches(sym + ' (<|<=) .*') }
+
+// Names of the functions the length definitions of invocations are in
+functionsOf = { invocs ->
+	invocs.collect{ invoc ->
+		def defStmt = idListToNodes(invoc.defStmtsPerArg[0]).next()
+		g.V().has('_key', defStmt.value('functionId')).values('code').next()
+	} as Set
+}
+
+test("taintedArgs", {
+	invocs =
+		getCallsTo('copy_bytes')
+		.taintedArgs([lengthSource])
+		.toList()
+	assertEquals(functionsOf(invocs), ['taint_checked', 'taint_unchecked'] as Set)
+})
+
+test("taintedArgsConstantArgument", {
+	invocs =
+		getCallsTo('copy_bytes')
+		.taintedArgs([{ true }])
+		.toList()
+	assertEquals(functionsOf(invocs), ['taint_checked', 'taint_unchecked'] as Set)
+})
+
+test("unchecked", {
+	invocs =
+		getCallsTo('copy_bytes')
+		.taintedArgs([lengthSource])
+		.unchecked([lengthCheck])
+		.toList()
+	assertEquals(functionsOf(invocs), ['taint_unchecked'] as Set)
+})
+
+test("uncheckedWithoutSanitizer", {
+	invocs =
+		getCallsTo('copy_bytes')
+		.taintedArgs([lengthSource])
+		.unchecked([null])
+		.toList()
+	assertEquals(invocs, [])
+})
+
+run_tests()
@@ -13,11 +13,13 @@ public class CCFGFactory extends CFGFactory
 
 	static{
 		structuredFlowVisitior = new CStructuredFlowVisitor();
+		nestedStatementVisitor = new CNestedStatementVisitor();
 	}
 
 	public CCFGFactory()
 	{
 		structuredFlowVisitior = new CStructuredFlowVisitor();
+		nestedStatementVisitor = new CNestedStatementVisitor();
 	}
 
 	public static CFG newInstance(IfStatementBase ifStmt)
@@ -0,0 +1,63 @@
+package cfg;
+
+import ast.c.statements.blockstarters.IfStatement;
+import ast.functionDef.ParameterBase;
+import ast.functionDef.ParameterList;
+import ast.statements.blockstarters.DoStatement;
+import ast.statements.blockstarters.ForStatement;
+import ast.statements.blockstarters.IfStatementBase;
+import ast.statements.blockstarters.SwitchStatement;
+import ast.statements.blockstarters.TryStatement;
+import ast.statements.blockstarters.WhileStatement;
+
+public class CNestedStatementVisitor extends NestedStatementVisitor
+{
+
+	public void visit(ParameterList paramList)
+	{
+		for (ParameterBase parameter : paramList)
+			addNestedStatement(parameter);
+	}
+
+	public void visit(IfStatementBase node)
+	{
+		// No CFG node can be created without a condition
+		if (node.getCondition() == null)
+			return;
+
+		IfStatement ifStatement = (IfStatement) node;
+		addNestedStatement(ifStatement.getStatement());
+		if (ifStatement.getElseNode() != null)
+			addNestedStatement(ifStatement.getElseNode().getStatement());
+	}
+
+	public void visit(ForStatement node)
+	{
+		addNestedStatement(node.getStatement());
+	}
+
+	public void visit(WhileStatement node)
+	{
+		if (node.getCondition() != null)
+			addNestedStatement(node.getStatement());
+	}
+
+	public void visit(DoStatement node)
+	{
+		if (node.getCondition() != null)
+			addNestedStatement(node.getStatement());
+	}
+
+	public void visit(SwitchStatement node)
+	{
+		if (node.getCondition() != null)
+			addNestedStatement(node.getStatement());
+	}
+
+	public void visit(TryStatement node)
+	{
+		// Whether catch blocks are converted depends on the try block
+		addNestedStatement(node.getStatement());
+	}
+
+}
@@ -58,6 +58,22 @@ abstract public class ANTLRParserDriver extends Observable
 		walkTree(tree);
 	}
 
+	/**
+	 * Parse and walk the given content of a file, which is not read
+	 * from disk. The filename is reported as for parseAndWalkFile.
+	 * */
+
+	public void parseAndWalkBuffer(String filename, char[] content)
+			throws ParserException
+	{
+		TokenSubStream stream = createTokenStreamFromBuffer(filename,
+				content);
+		initializeContextWithFile(filename, stream);
+
+		ParseTree tree = parseTokenStream(stream);
+		walkTree(tree);
+	}
+
 	public void parseAndWalkTokenStream(TokenSubStream tokens)
 			throws ParserException
 	{
@@ -113,6 +129,16 @@ abstract public class ANTLRParserDriver extends Observable
 
 	}
 
+	protected TokenSubStream createTokenStreamFromBuffer(String filename,
+			char[] content)
+	{
+		ANTLRInputStream input = new ANTLRInputStream(content, content.length);
+		input.name = filename;
+
+		Lexer lexer = createLexer(input);
+		return new TokenSubStream(lexer);
+	}
+
 	protected void walkTree(ParseTree tree)
 	{
 		ParseTreeWalker walker = new ParseTreeWalker();
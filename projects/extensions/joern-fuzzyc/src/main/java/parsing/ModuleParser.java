@@ -24,6 +24,24 @@ public class ModuleParser
 		}
 	}
 
+	/**
+	 * Parse the content of a file that has already been read, e.g.,
+	 * from an archive.
+	 * */
+
+	public void parseBuffer(String filename, char[] content)
+	{
+		System.out.println(filename);
+
+		try
+		{
+			parserDriver.parseAndWalkBuffer(filename, content);
+		} catch (ParserException ex)
+		{
+			System.err.println("Error parsing file: " + filename);
+		}
+	}
+
 	public void addObserver(Observer anObserver)
 	{
 		parserDriver.addObserver(anObserver);
@@ -19,6 +19,13 @@ public class CParserCSVOutput extends ParserCSVOutput {
 		parser.parseFile(pathToFile.toString());
 	}
 
+	@Override
+	public void visitFile(Path pathToFile, char[] content)
+	{
+		dirTreeImporter.enterFile(pathToFile);
+		parser.parseBuffer(pathToFile.toString(), content);
+	}
+
 	@Override
 	public void initialize()
 	{
@@ -13,6 +13,8 @@ public class ParserCmdLineInterface extends CommonCommandLineInterface
 
 	String outputDir = ".joernIndex/";
 	String outputFormat = "neo4j";
+	boolean basicBlockMode = false;
+	boolean ssaDDGMode = false;
 
 	public String[] getFilenames()
 	{
@@ -29,6 +31,16 @@ public class ParserCmdLineInterface extends CommonCommandLineInterface
 		return outputFormat;
 	}
 
+	public boolean getBasicBlockMode()
+	{
+		return basicBlockMode;
+	}
+
+	public boolean getSSADDGMode()
+	{
+		return ssaDDGMode;
+	}
+
 	public ParserCmdLineInterface()
 	{
 		super();
@@ -44,11 +56,23 @@ public class ParserCmdLineInterface extends CommonCommandLineInterface
 				.create("outdir");
 
 		Option outputFormat = OptionBuilder.withArgName("outformat").hasArg()
-				.withDescription("the output format: \"neo4j\" or \"csv\" ")
+				.withDescription("the output format: \"neo4j\", \"csv\" or \"binary\" ")
 				.create("outformat");
 
+		Option basicBlocks = OptionBuilder
+				.withDescription(
+						"compute dominators, control and data dependences over basic blocks (\"csv\" and \"binary\" only)")
+				.create("basicblocks");
+
+		Option ssaDDG = OptionBuilder
+				.withDescription(
+						"build data dependences from SSA form (\"csv\" and \"binary\" only)")
+				.create("ssaddg");
+
 		options.addOption(outputDirectory);
 		options.addOption(outputFormat);
+		options.addOption(basicBlocks);
+		options.addOption(ssaDDG);
 
 	}
 
@@ -67,6 +91,9 @@ public class ParserCmdLineInterface extends CommonCommandLineInterface
 		if (cmd.hasOption("outformat"))
 			outputFormat = cmd.getOptionValue("outformat");
 
+		basicBlockMode = cmd.hasOption("basicblocks");
+		ssaDDGMode = cmd.hasOption("ssaddg");
+
 	}
 
 	public void printHelp()
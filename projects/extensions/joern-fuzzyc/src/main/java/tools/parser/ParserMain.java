@@ -4,8 +4,11 @@ import java.io.IOException;
 
 import org.apache.commons.cli.ParseException;
 
-import fileWalker.OrderedWalker;
+import fileWalker.ParallelWalker;
 import fileWalker.SourceFileWalker;
+import outputModules.binary.BinaryWriterImpl;
+import outputModules.common.FunctionExporter;
+import outputModules.csv.ParserCSVOutput;
 import outputModules.parser.Parser;
 
 /**
@@ -18,7 +21,7 @@ public class ParserMain
 {
 
 	private static ParserCmdLineInterface cmd = new ParserCmdLineInterface();
-	private static SourceFileWalker sourceFileWalker = new OrderedWalker();
+	private static SourceFileWalker sourceFileWalker = new ParallelWalker();
 
 	private static Parser parser;
 
@@ -61,12 +64,25 @@ public class ParserMain
 			parser = new CParserNeo4JOuput();
 		else if (outputFormat.equals("csv"))
 			parser = new CParserCSVOutput();
+		else if (outputFormat.equals("binary"))
+		{
+			CParserCSVOutput binaryParser = new CParserCSVOutput();
+			binaryParser.setWriterImpl(new BinaryWriterImpl());
+			parser = binaryParser;
+		}
 		else
 			throw new RuntimeException("unknown output format");
 
 		String outputDir = cmd.getOutputDir();
 		parser.setOutputDir(outputDir);
 		parser.initialize();
+		if (parser instanceof ParserCSVOutput)
+		{
+			FunctionExporter exporter = ((ParserCSVOutput) parser)
+					.getFunctionExporter();
+			exporter.setBasicBlockMode(cmd.getBasicBlockMode());
+			exporter.setSSADDGMode(cmd.getSSADDGMode());
+		}
 		sourceFileWalker.addListener(parser);
 	}
 
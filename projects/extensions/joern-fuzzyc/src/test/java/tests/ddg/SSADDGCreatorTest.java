@@ -0,0 +1,81 @@
+package tests.ddg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import cfg.CFG;
+import ddg.CFGAndUDGToDefUseCFG;
+import ddg.DDGCreator;
+import ddg.SSADDGCreator;
+import ddg.DataDependenceGraph.DDG;
+import ddg.DataDependenceGraph.DDGDifference;
+import ddg.DefUseCFG.DefUseCFG;
+import tests.languages.c.cfgCreation.CCFGCreatorTest;
+import udg.CFGToUDGConverter;
+import udg.useDefAnalysis.CASTDefUseAnalyzer;
+
+public class SSADDGCreatorTest extends CCFGCreatorTest
+{
+
+	@Test
+	public void testStraightLineCode()
+	{
+		DDG ddg = assertSameDDG("x = 1; y = x; x = y + x; z = x;");
+		assertEquals(4, ddg.getDefUseEdges().size());
+	}
+
+	@Test
+	public void testIfElse()
+	{
+		DDG ddg = assertSameDDG("x = 1; if(y){ x = 2; } else { z = x; } w = x;");
+		assertEquals(3, ddg.getDefUseEdges().size());
+	}
+
+	@Test
+	public void testLoops()
+	{
+		assertSameDDG("i = 0; while(i < n){ s = s + i; i = i + 1; if(s > 10) break; } return s;");
+		assertSameDDG("do { x = x - 1; } while(x); for(i = 0; i < x; i++){ if(i) continue; y = i + y; }");
+		assertSameDDG("while(x);");
+	}
+
+	@Test
+	public void testSwitch()
+	{
+		assertSameDDG("switch(x){ case 1: y = 1; case 2: y = y + 2; break; default: y = 3; } z = y;");
+	}
+
+	@Test
+	public void testGoto()
+	{
+		assertSameDDG("a: x = x + 1; if(x < 10) goto a; return x;");
+	}
+
+	@Test
+	public void testUnreachableCode()
+	{
+		// Definitions after the return still reach the loop
+		assertSameDDG("x = 1; b: y = x; return y; x = 2; goto b;");
+		assertSameDDG("return 0; a: x = x + 1; goto a;");
+	}
+
+	private DDG assertSameDDG(String code)
+	{
+		CFG cfg = getCFGForCode(code);
+		CFGToUDGConverter cfgToUDG = new CFGToUDGConverter();
+		cfgToUDG.setASTDefUseAnalyzer(new CASTDefUseAnalyzer());
+		DefUseCFG defUseCFG = new CFGAndUDGToDefUseCFG().convert(cfg,
+				cfgToUDG.convert(cfg));
+
+		DDG expected = new DDGCreator().createForDefUseCFG(defUseCFG);
+		DDG actual = new SSADDGCreator().createForDefUseCFG(defUseCFG, cfg);
+
+		DDGDifference difference = expected.difference(actual);
+		assertTrue(difference.getRelsToAdd().isEmpty());
+		assertTrue(difference.getRelsToRemove().isEmpty());
+		return actual;
+	}
+
+}
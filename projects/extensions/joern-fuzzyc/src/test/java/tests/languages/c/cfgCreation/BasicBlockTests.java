@@ -0,0 +1,154 @@
+package tests.languages.c.cfgCreation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import cdg.CDG;
+import cdg.CDGCreator;
+import cfg.BasicBlockCFG;
+import cfg.CFG;
+import cfg.CFGEdge;
+import cfg.nodes.BasicBlock;
+import cfg.nodes.CFGNode;
+import ddg.BasicBlockDDGCreator;
+import ddg.CFGAndUDGToDefUseCFG;
+import ddg.DDGCreator;
+import ddg.DefUseCFG.DefUseCFG;
+import dom.DominatorTree;
+import udg.CFGToUDGConverter;
+import udg.useDefAnalysis.CASTDefUseAnalyzer;
+
+public class BasicBlockTests extends CCFGCreatorTest
+{
+	private static final String[] CODE = {
+			"x = 1; y = x; z = x + y;",
+			"x = 1; if(y){ z = x; w = z; } else { x = 2; } v = x;",
+			"i = 0; while(i < n){ s = s + i; i = i + 1; if(s > 10) break; } return s;",
+			"switch(x){ case 1: y = 1; case 2: y = 2; break; default: y = 3; } z = y;",
+			"do { x = x - 1; } while(x); for(i = 0; i < x; i++){ if(i) continue; y = i; }",
+			"a: x = x + 1; if(x < 10) goto a; return x;",
+			"while(1){ x = x + 1; } y = x;" };
+
+	@Test
+	public void testStraightLineCode()
+	{
+		CFG cfg = getCFGForCode("x = 1; y = 2; z = 3;");
+		BasicBlockCFG blocks = new BasicBlockCFG(cfg);
+
+		assertEquals(3, blocks.size());
+		assertEquals(2, blocks.numberOfEdges());
+
+		CFGNode block = blocks.getBlock(getNodeByCode(cfg, "x = 1"));
+		assertEquals(3, ((BasicBlock) block).size());
+		assertTrue(block == blocks.getBlock(getNodeByCode(cfg, "z = 3")));
+		assertTrue(blocks.isConnected(blocks.getEntryNode(), block));
+		assertTrue(blocks.isConnected(block, blocks.getExitNode()));
+	}
+
+	@Test
+	public void testIfStatement()
+	{
+		CFG cfg = getCFGForCode("x = 1; if(y){ z = 2; w = 3; } v = 4;");
+		BasicBlockCFG blocks = new BasicBlockCFG(cfg);
+
+		CFGNode head = blocks.getBlock(getNodeByCode(cfg, "x = 1"));
+		CFGNode body = blocks.getBlock(getNodeByCode(cfg, "z = 2"));
+		CFGNode tail = blocks.getBlock(getNodeByCode(cfg, "v = 4"));
+
+		assertEquals(5, blocks.size());
+		assertEquals(5, blocks.numberOfEdges());
+		assertTrue(head == blocks.getBlock(getNodeByCode(cfg, "y")));
+		assertTrue(body == blocks.getBlock(getNodeByCode(cfg, "w = 3")));
+		assertTrue(hasEdge(blocks, head, body, CFGEdge.TRUE_LABEL));
+		assertTrue(hasEdge(blocks, head, tail, CFGEdge.FALSE_LABEL));
+		assertTrue(hasEdge(blocks, body, tail, CFGEdge.EMPTY_LABEL));
+	}
+
+	@Test
+	public void testLoop()
+	{
+		CFG cfg = getCFGForCode("while(x){ }");
+		BasicBlockCFG blocks = new BasicBlockCFG(cfg);
+
+		CFGNode condition = blocks.getBlock(getNodeByCode(cfg, "x"));
+		assertEquals(3, blocks.size());
+		assertTrue(hasEdge(blocks, condition, condition, CFGEdge.TRUE_LABEL));
+		assertTrue(hasEdge(blocks, condition, blocks.getExitNode(),
+				CFGEdge.FALSE_LABEL));
+	}
+
+	@Test
+	public void testExpandedDominatorTrees()
+	{
+		for (String code : CODE)
+		{
+			CFG cfg = getCFGForCode(code);
+			BasicBlockCFG blocks = new BasicBlockCFG(cfg);
+
+			assertSameTree(DominatorTree.newDominatorTree(cfg),
+					DominatorTree.expandDominatorTree(
+							DominatorTree.newDominatorTree(blocks), blocks));
+			assertSameTree(DominatorTree.newPostDominatorTree(cfg),
+					DominatorTree.expandPostDominatorTree(
+							DominatorTree.newPostDominatorTree(blocks),
+							blocks));
+		}
+	}
+
+	@Test
+	public void testExpandedCDG()
+	{
+		for (String code : CODE)
+		{
+			CFG cfg = getCFGForCode(code);
+			BasicBlockCFG blocks = new BasicBlockCFG(cfg);
+
+			CDG expected = CDGCreator.create(cfg);
+			CDG actual = CDGCreator.createForBasicBlocks(blocks,
+					DominatorTree.newPostDominatorTree(blocks));
+			assertEquals(expected.size(), actual.size());
+			assertEquals(edgesOf(expected), edgesOf(actual));
+		}
+	}
+
+	@Test
+	public void testBasicBlockDDG()
+	{
+		CFGToUDGConverter cfgToUDG = new CFGToUDGConverter();
+		cfgToUDG.setASTDefUseAnalyzer(new CASTDefUseAnalyzer());
+		for (String code : CODE)
+		{
+			CFG cfg = getCFGForCode(code);
+			DefUseCFG defUseCFG = new CFGAndUDGToDefUseCFG().convert(cfg,
+					cfgToUDG.convert(cfg));
+
+			assertEquals(
+					new DDGCreator().createForDefUseCFG(defUseCFG)
+							.getDefUseEdges(),
+					new BasicBlockDDGCreator().createForDefUseCFG(defUseCFG,
+							new BasicBlockCFG(cfg)).getDefUseEdges());
+		}
+	}
+
+	private void assertSameTree(DominatorTree<CFGNode> expected,
+			DominatorTree<CFGNode> actual)
+	{
+		assertEquals(expected.getVertices(), actual.getVertices());
+		for (CFGNode vertex : expected.getVertices())
+			assertTrue(expected.getDominator(vertex) == actual
+					.getDominator(vertex));
+	}
+
+	private boolean hasEdge(CFG cfg, CFGNode src, CFGNode dst, String label)
+	{
+		for (CFGEdge edge : cfg.outgoingEdges(src))
+		{
+			if (edge.getDestination() == dst && edge.getLabel().equals(label))
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -1,6 +1,11 @@
 package tests.languages.c.cfgCreation;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import ast.ASTNode;
+import cdg.CDG;
+import cdg.CDGEdge;
 import cfg.CCFGFactory;
 import cfg.CFG;
 import cfg.nodes.CFGNode;
@@ -42,4 +47,21 @@ public class CCFGCreatorTest
 				getNodeByCode(cfg, dstCode));
 	}
 
+	/**
+	 * The edges of a CDG with their multiplicities. CDG edges are equal if
+	 * their source and destination nodes are, which CFG nodes are if they
+	 * are identical.
+	 */
+
+	protected Map<CDGEdge, Integer> edgesOf(CDG cdg)
+	{
+		Map<CDGEdge, Integer> edges = new HashMap<CDGEdge, Integer>();
+		for (CDGEdge edge : cdg.getEdges())
+		{
+			Integer count = edges.get(edge);
+			edges.put(edge, count == null ? 1 : count + 1);
+		}
+		return edges;
+	}
+
 }
@@ -95,6 +95,26 @@ public class OtherTests extends CCFGCreatorTest
 		assertTrue(cfg.numberOfEdges() == 7);
 	}
 
+	@Test
+	public void testDeeplyNestedIfs()
+	{
+		int depth = 3000;
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < depth; i++)
+			input.append("if(x" + i + "){ ");
+		input.append("foo();");
+		for (int i = 0; i < depth; i++)
+			input.append(" }");
+
+		CFG cfg = getCFGForCode(input.toString());
+		assertFalse(containsErrorNode(cfg));
+		assertTrue(cfg.size() == depth + 3);
+		assertTrue(cfg.numberOfEdges() == 2 * depth + 2);
+		assertTrue(isConnected(cfg, "x0", "x1"));
+		assertTrue(isConnected(cfg, "x" + (depth - 1), "foo ( )"));
+		assertTrue(isConnected(cfg, "foo ( )", "EXIT"));
+	}
+
 	@Test
 	public void testTwoInstructions()
 	{
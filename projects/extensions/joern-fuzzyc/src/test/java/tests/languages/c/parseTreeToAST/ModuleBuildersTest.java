@@ -236,6 +236,23 @@ public class ModuleBuildersTest
 		assertTrue(codeItem.getParameterList().size() == 0);
 	}
 
+	@Test
+	public void testParseBuffer()
+	{
+		ANTLRCModuleParserDriver parser = new ANTLRCModuleParserDriver();
+		TestASTWalker testProcessor = new TestASTWalker();
+		parser.addObserver(testProcessor);
+
+		parser.parseAndWalkBuffer("foo.c", "int foo(int x){} struct y{};"
+				.toCharArray());
+
+		assertEquals(2, testProcessor.codeItems.size());
+		FunctionDefBase codeItem = (FunctionDefBase) testProcessor.codeItems
+				.get(0);
+		assertEquals("foo", codeItem.getName());
+		assertEquals("foo.c", parser.filename);
+	}
+
 	private List<ASTNode> parseInput(String input)
 	{
 		ANTLRCModuleParserDriver parser = new ANTLRCModuleParserDriver();
@@ -1,6 +1,5 @@
 package cfg;
 
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -31,10 +30,12 @@ public class PHPCFGFactory extends CFGFactory {
 	
 	static {
 		structuredFlowVisitior = new PHPStructuredFlowVisitor();
+		nestedStatementVisitor = new PHPNestedStatementVisitor();
 	}
 
 	public PHPCFGFactory() {
 		structuredFlowVisitior = new PHPStructuredFlowVisitor();
+		nestedStatementVisitor = new PHPNestedStatementVisitor();
 	}
 
 	@Override
@@ -57,11 +58,10 @@ public class PHPCFGFactory extends CFGFactory {
 		{
 			IfStatement phpIfStatement = (IfStatement)ifStatement;
 			
-			Iterator<IfElement> iterator = phpIfStatement.iterator();
-			if(!iterator.hasNext())
+			if(phpIfStatement.size() == 0)
 				return newErrorInstance();
 
-			CFG ifElemCFG = convertIfElem(iterator);
+			CFG ifElemCFG = convertIfElems(phpIfStatement);
 			return ifElemCFG;
 		}
 		catch (Exception e)
@@ -71,44 +71,60 @@ public class PHPCFGFactory extends CFGFactory {
 		}
 	}
 
-	private static CFG convertIfElem(Iterator<IfElement> iterator)
+	/**
+	 * Each 'elseif' or 'else' element forms the false branch of the
+	 * preceding element. The CFGs of the elements are therefore built
+	 * from the last element to the first one, which avoids recursing
+	 * over long 'elseif' chains.
+	 */
+	private static CFG convertIfElems(IfStatement ifStatement)
 	{
-		CFG block = new CFG();
-
-		IfElement ifElem = iterator.next();
-		Expression condition = ifElem.getCondition();
-		Statement statement = ifElem.getStatement();
-		CFG ifBlock = convert(statement);
+		// elements following the 'else' element are ignored
+		int last = 0;
+		while(last < ifStatement.size() - 1
+				&& ifStatement.getIfElement(last).getCondition() != null)
+			last++;
+
+		CFG elseBlock = null;
+		for(int i = last; i >= 0; i--)
+		{
+			IfElement ifElem = ifStatement.getIfElement(i);
+			Expression condition = ifElem.getCondition();
+			Statement statement = ifElem.getStatement();
+			CFG ifBlock = convert(statement);
 
+			if(condition == null)
+			{
+				// this is the 'else' case
+				elseBlock = ifBlock;
+				continue;
+			}
 
-		if(condition == null)
-		{
-			// this is the 'else' case
-			return ifBlock;
-		}
+			CFG block = new CFG();
+			CFGNode conditionContainer = new ASTNodeContainer(
+					condition);
 
-		CFGNode conditionContainer = new ASTNodeContainer(
-				condition);
+			block.addVertex(conditionContainer);
+			block.addEdge(block.getEntryNode(), conditionContainer);
 
-		block.addVertex(conditionContainer);
-		block.addEdge(block.getEntryNode(), conditionContainer);
+			block.mountCFG(conditionContainer, block.getExitNode(), ifBlock,
+					CFGEdge.TRUE_LABEL);
 
-		block.mountCFG(conditionContainer, block.getExitNode(), ifBlock,
-				CFGEdge.TRUE_LABEL);
+			if(elseBlock != null)
+			{
+				block.mountCFG(conditionContainer, block.getExitNode(),
+						elseBlock, CFGEdge.FALSE_LABEL);
+			}
+			else
+			{
+				block.addEdge(conditionContainer, block.getExitNode(),
+						CFGEdge.FALSE_LABEL);
+			}
 
-		if(iterator.hasNext())
-		{
-			CFG elseBlock = convertIfElem(iterator);
-			block.mountCFG(conditionContainer, block.getExitNode(),
-					elseBlock, CFGEdge.FALSE_LABEL);
-		}
-		else
-		{
-			block.addEdge(conditionContainer, block.getExitNode(),
-					CFGEdge.FALSE_LABEL);
+			elseBlock = block;
 		}
 
-		return block;
+		return elseBlock;
 	}
 
 	public static CFG newInstance(SwitchStatement switchStatement)
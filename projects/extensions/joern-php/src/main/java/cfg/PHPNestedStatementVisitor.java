@@ -0,0 +1,86 @@
+package cfg;
+
+import ast.functionDef.ParameterBase;
+import ast.functionDef.ParameterList;
+import ast.php.statements.blockstarters.IfElement;
+import ast.php.statements.blockstarters.IfStatement;
+import ast.php.statements.blockstarters.SwitchCase;
+import ast.php.statements.blockstarters.SwitchStatementPHP;
+import ast.statements.blockstarters.DoStatement;
+import ast.statements.blockstarters.ForEachStatement;
+import ast.statements.blockstarters.ForStatement;
+import ast.statements.blockstarters.IfStatementBase;
+import ast.statements.blockstarters.SwitchStatement;
+import ast.statements.blockstarters.TryStatement;
+import ast.statements.blockstarters.WhileStatement;
+
+public class PHPNestedStatementVisitor extends NestedStatementVisitor
+{
+
+	@Override
+	public void visit(ParameterList paramList)
+	{
+		for (ParameterBase parameter : paramList)
+			addNestedStatement(parameter);
+	}
+
+	@Override
+	public void visit(IfStatementBase node)
+	{
+		for (IfElement ifElement : (IfStatement) node)
+		{
+			addNestedStatement(ifElement.getStatement());
+			// elements following the 'else' element are ignored
+			if (ifElement.getCondition() == null)
+				break;
+		}
+	}
+
+	@Override
+	public void visit(WhileStatement node)
+	{
+		// No CFG node can be created without a condition
+		if (node.getCondition() != null)
+			addNestedStatement(node.getStatement());
+	}
+
+	@Override
+	public void visit(DoStatement node)
+	{
+		if (node.getCondition() != null)
+			addNestedStatement(node.getStatement());
+	}
+
+	@Override
+	public void visit(ForStatement node)
+	{
+		addNestedStatement(node.getStatement());
+	}
+
+	@Override
+	public void visit(ForEachStatement node)
+	{
+		if (node.getCondition() != null
+				&& node.getCondition().getIteratedObject() != null)
+			addNestedStatement(node.getStatement());
+	}
+
+	@Override
+	public void visit(SwitchStatement node)
+	{
+		SwitchStatementPHP switchStatement = (SwitchStatementPHP) node;
+		if (switchStatement.getExpression() == null)
+			return;
+		for (SwitchCase switchCase : switchStatement.getSwitchList())
+			addNestedStatement(switchCase.getStatement());
+	}
+
+	@Override
+	public void visit(TryStatement node)
+	{
+		// Whether catch and finally blocks are converted depends on the
+		// try block
+		addNestedStatement(node.getContent());
+	}
+
+}
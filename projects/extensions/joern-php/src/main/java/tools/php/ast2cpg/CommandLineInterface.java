@@ -1,5 +1,7 @@
 package tools.php.ast2cpg;
 
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.ParseException;
 
 import tools.CommonCommandLineInterface;
@@ -8,6 +10,7 @@ public class CommandLineInterface extends CommonCommandLineInterface
 {
 	String nodeFile;
 	String edgeFile;
+	boolean ssaDDGMode = false;
 
 	public String getNodeFile()
 	{
@@ -19,6 +22,23 @@ public class CommandLineInterface extends CommonCommandLineInterface
 		return edgeFile;
 	}
 
+	public boolean getSSADDGMode()
+	{
+		return ssaDDGMode;
+	}
+
+	@Override
+	protected void initializeOptions()
+	{
+		super.initializeOptions();
+
+		Option ssaDDG = OptionBuilder
+				.withDescription("build data dependences from SSA form")
+				.create("ssaddg");
+
+		options.addOption(ssaDDG);
+	}
+
 	public void printHelp()
 	{
 		formatter.printHelp("importer <nodes.csv> <edges.csv> ...", options);
@@ -26,14 +46,14 @@ public class CommandLineInterface extends CommonCommandLineInterface
 
 	public void parseCommandLine(String[] args) throws ParseException
 	{
-		if (args.length != 2)
-			throw new RuntimeException("Please supply a node and an edge file");
-
 		cmd = parser.parse(options, args);
 
 		String[] arguments = cmd.getArgs();
+		if (arguments.length != 2)
+			throw new RuntimeException("Please supply a node and an edge file");
 		nodeFile = arguments[0];
 		edgeFile = arguments[1];
+		ssaDDGMode = cmd.hasOption("ssaddg");
 	}
 
 }
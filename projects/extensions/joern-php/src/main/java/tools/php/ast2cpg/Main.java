@@ -15,6 +15,7 @@ import ddg.CFGAndUDGToDefUseCFG;
 import ddg.DDGCreator;
 import ddg.DataDependenceGraph.DDG;
 import ddg.DefUseCFG.DefUseCFG;
+import ddg.SSADDGCreator;
 import inputModules.csv.KeyedCSV.exceptions.InvalidCSVFile;
 import inputModules.csv.csvFuncExtractor.CSVFunctionExtractor;
 import outputModules.common.Writer;
@@ -79,7 +80,9 @@ public class Main {
 
 			UseDefGraph udg = cfgToUDG.convert(cfg);
 			DefUseCFG defUseCFG = udgAndCfgToDefUseCFG.convert(cfg, udg);
-			DDG ddg = ddgCreator.createForDefUseCFG(defUseCFG);
+			DDG ddg = cmdLine.getSSADDGMode()
+					? new SSADDGCreator().createForDefUseCFG(defUseCFG, cfg)
+					: ddgCreator.createForDefUseCFG(defUseCFG);
 			csvDDGExporter.writeDDGEdges(ddg);
 		}
 
@@ -0,0 +1,37 @@
+package tests.languages.php.ddgCreation;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import cfg.CFG;
+import ddg.CFGAndUDGToDefUseCFG;
+import ddg.DDGCreator;
+import ddg.SSADDGCreator;
+import ddg.DataDependenceGraph.DDG;
+import ddg.DataDependenceGraph.DDGDifference;
+import ddg.DefUseCFG.DefUseCFG;
+import inputModules.csv.KeyedCSV.exceptions.InvalidCSVFile;
+
+/**
+ * Runs the tests of PHPDDGCreatorTest with DDGs created by
+ * SSADDGCreator, and checks that these equal the DDGs created by
+ * DDGCreator.
+ */
+public class PHPSSADDGCreatorTest extends PHPDDGCreatorTest {
+
+	@Override
+	protected DDG getDDGForCFG(CFG cfg)
+			throws IOException, InvalidCSVFile
+	{
+		DefUseCFG defUseCFG = new CFGAndUDGToDefUseCFG().convert(cfg, getUDGForCFG(cfg));
+		DDG ddg = new SSADDGCreator().createForDefUseCFG(defUseCFG, cfg);
+
+		DDGDifference difference = new DDGCreator().createForDefUseCFG(defUseCFG).difference(ddg);
+		assertTrue( difference.getRelsToAdd().isEmpty());
+		assertTrue( difference.getRelsToRemove().isEmpty());
+
+		return ddg;
+	}
+
+}
@@ -17,6 +17,13 @@ public class JoernPlugin extends JoernProjectPlugin {
 		 connectToProjectDatabase();
      }
 
+	 @Override
+     public void afterExecution() throws Exception
+     {
+		 if (database != null)
+			 database.closeInstance();
+     }
+
 	 private void connectToProjectDatabase()
      {
 		 database = getProject().getNewDatabaseInstance();
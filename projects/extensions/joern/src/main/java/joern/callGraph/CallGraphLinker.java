@@ -0,0 +1,326 @@
+package joern.callGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves calls to the functions they call and stores the result in
+ * the database, so that interprocedural traversals need not resolve
+ * calls by name at query time:
+ *
+ * - CALLS edges connect call expressions to the definitions
+ * (FunctionDef nodes) of the functions they call.
+ *
+ * - IS_ARG edges connect the arguments of a call to the parameters
+ * of the called function with the same child number.
+ *
+ * Calls are resolved by name as the joern-lang steps did before: the
+ * last token of the callee and of the function's name, without
+ * asterisks, must be equal. A call may therefore be linked to several
+ * functions of the same name. Calls that already have outgoing CALLS
+ * edges (e.g., those created by the PHP call graph exporter) keep them
+ * and are not resolved by name; only their missing IS_ARG edges to the
+ * parameters of the functions they call are created. Existing edges are
+ * never duplicated, which also makes linking a database twice harmless.
+ * */
+
+public class CallGraphLinker
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(CallGraphLinker.class);
+
+	public static final String CALLS_EDGE = "CALLS";
+	public static final String IS_ARG_EDGE = "IS_ARG";
+
+	private static final String NODE_TYPE = "type";
+	private static final String NODE_CODE = "code";
+	private static final String NODE_NAME = "name";
+	private static final String NODE_CHILDNUM = "childNum";
+
+	private static final String TYPE_FUNCTION = "Function";
+	private static final String TYPE_CALLEE = "Callee";
+	private static final String TYPE_ARGLIST = "ArgumentList";
+	private static final String TYPE_PARAMLIST = "ParameterList";
+
+	private static final String AST_EDGE = "IS_AST_PARENT";
+	private static final String FUNCTION_TO_AST_EDGE = "IS_FUNCTION_OF_AST";
+
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final Graph graph;
+	private final GraphTraversalSource g;
+	private final int batchSize;
+
+	private long nCallEdges;
+	private long nArgEdges;
+
+	private Map<Object, Callee> defIdToCallee;
+
+	/**
+	 * The definition of a function along with its parameters by
+	 * child number.
+	 * */
+
+	private static class Callee
+	{
+		final Object functionDefId;
+		final Map<String, Object> childNumToParam = new HashMap<String, Object>();
+
+		Callee(Object functionDefId)
+		{
+			this.functionDefId = functionDefId;
+		}
+	}
+
+	public CallGraphLinker(Graph graph)
+	{
+		this(graph, DEFAULT_BATCH_SIZE);
+	}
+
+	public CallGraphLinker(Graph graph, int batchSize)
+	{
+		this.graph = graph;
+		this.g = graph.traversal();
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Link all calls in the database. Changes are committed after
+	 * each batch of calls.
+	 *
+	 * @return the number of CALLS edges created
+	 * */
+
+	public long link()
+	{
+		nCallEdges = 0;
+		nArgEdges = 0;
+
+		Map<String, List<Callee>> nameToCallees = loadFunctions();
+		List<Object> calleeIds = new ArrayList<Object>();
+		List<List<Callee>> targets = new ArrayList<List<Callee>>();
+
+		// Collect the resolvable calls before modifying the graph, so
+		// that no traversal is open while batches are committed.
+
+		g.V().has(NODE_TYPE, TYPE_CALLEE).forEachRemaining(callee -> {
+			List<Callee> callees = nameToCallees.get(normalizeName(value(
+					callee, NODE_CODE)));
+			if (callees == null)
+				return;
+			calleeIds.add(callee.id());
+			targets.add(callees);
+		});
+
+		for (int i = 0; i < calleeIds.size(); i += batchSize)
+		{
+			int end = Math.min(i + batchSize, calleeIds.size());
+			linkBatch(calleeIds.subList(i, end), targets.subList(i, end));
+			commit();
+		}
+
+		logger.info("Linked {} calls to functions, {} arguments to parameters",
+				nCallEdges, nArgEdges);
+		return nCallEdges;
+	}
+
+	public long getNumberOfArgumentEdges()
+	{
+		return nArgEdges;
+	}
+
+	private Map<String, List<Callee>> loadFunctions()
+	{
+		Map<String, List<Callee>> nameToCallees = new HashMap<String, List<Callee>>();
+		defIdToCallee = new HashMap<Object, Callee>();
+
+		g.V().has(NODE_TYPE, TYPE_FUNCTION).as("func").out(FUNCTION_TO_AST_EDGE)
+				.as("def").select("func", "def").forEachRemaining(pair -> {
+					String name = normalizeName(value(
+							(Vertex) pair.get("func"), NODE_NAME));
+					if (name == null)
+						return;
+					Callee callee = new Callee(((Vertex) pair.get("def")).id());
+					defIdToCallee.put(callee.functionDefId, callee);
+					nameToCallees.computeIfAbsent(name,
+							k -> new LinkedList<Callee>()).add(callee);
+				});
+
+		if (defIdToCallee.isEmpty())
+			return nameToCallees;
+
+		g.V(defIdToCallee.keySet().toArray()).as("def").out(AST_EDGE)
+				.has(NODE_TYPE, TYPE_PARAMLIST).out(AST_EDGE).as("param")
+				.select("def", "param").forEachRemaining(pair -> {
+					Vertex param = (Vertex) pair.get("param");
+					Callee callee = defIdToCallee.get(((Vertex) pair
+							.get("def")).id());
+					callee.childNumToParam.put(value(param, NODE_CHILDNUM),
+							param.id());
+				});
+
+		return nameToCallees;
+	}
+
+	private void linkBatch(List<Object> calleeIds, List<List<Callee>> targets)
+	{
+		Map<Object, Vertex> calleeToCall = new HashMap<Object, Vertex>();
+		g.V(calleeIds.toArray()).as("callee").in(AST_EDGE).as("call")
+				.select("callee", "call").forEachRemaining(pair -> calleeToCall
+						.put(((Vertex) pair.get("callee")).id(),
+								(Vertex) pair.get("call")));
+
+		Collection<Vertex> calls = calleeToCall.values();
+		if (calls.isEmpty())
+			return;
+
+		Map<Object, List<Object>> callToDefs = new HashMap<Object, List<Object>>();
+		g.V(callIds(calls)).as("call").out(CALLS_EDGE).as("def")
+				.select("call", "def").forEachRemaining(pair -> callToDefs
+						.computeIfAbsent(((Vertex) pair.get("call")).id(),
+								k -> new LinkedList<Object>())
+						.add(((Vertex) pair.get("def")).id()));
+
+		Map<Object, List<Vertex>> callToArgs = new HashMap<Object, List<Vertex>>();
+		g.V(callIds(calls)).as("call").out(AST_EDGE)
+				.has(NODE_TYPE, TYPE_ARGLIST).out(AST_EDGE).as("arg")
+				.select("call", "arg").forEachRemaining(pair -> callToArgs
+						.computeIfAbsent(((Vertex) pair.get("call")).id(),
+								k -> new LinkedList<Vertex>())
+						.add((Vertex) pair.get("arg")));
+
+		Set<List<Object>> argEdges = loadArgumentEdges(callToDefs, callToArgs);
+		Set<Object> done = new HashSet<Object>();
+
+		for (int i = 0; i < calleeIds.size(); i++)
+		{
+			Vertex call = calleeToCall.get(calleeIds.get(i));
+			if (call == null || !done.add(call.id()))
+				continue;
+
+			List<Vertex> args = callToArgs.get(call.id());
+			List<Object> defIds = callToDefs.get(call.id());
+
+			// Calls linked before keep their CALLS edges; only the
+			// arguments of the functions they call are linked.
+
+			if (defIds != null)
+			{
+				for (Object defId : defIds)
+				{
+					Callee callee = defIdToCallee.get(defId);
+					if (callee != null)
+						linkArguments(args, callee, argEdges);
+				}
+				continue;
+			}
+
+			for (Callee callee : targets.get(i))
+			{
+				call.addEdge(CALLS_EDGE, g.V(callee.functionDefId).next());
+				nCallEdges++;
+				linkArguments(args, callee, argEdges);
+			}
+		}
+	}
+
+	/**
+	 * The IS_ARG edges of the arguments of calls linked before, as
+	 * (argument id, parameter id) pairs.
+	 * */
+
+	private Set<List<Object>> loadArgumentEdges(
+			Map<Object, List<Object>> callToDefs,
+			Map<Object, List<Vertex>> callToArgs)
+	{
+		Set<List<Object>> argEdges = new HashSet<List<Object>>();
+		List<Object> argIds = new ArrayList<Object>();
+		for (Object callId : callToDefs.keySet())
+		{
+			List<Vertex> args = callToArgs.get(callId);
+			if (args == null)
+				continue;
+			for (Vertex arg : args)
+				argIds.add(arg.id());
+		}
+
+		if (argIds.isEmpty())
+			return argEdges;
+
+		g.V(argIds.toArray()).as("arg").out(IS_ARG_EDGE).as("param")
+				.select("arg", "param").forEachRemaining(pair -> argEdges
+						.add(Arrays.asList(((Vertex) pair.get("arg")).id(),
+								((Vertex) pair.get("param")).id())));
+		return argEdges;
+	}
+
+	private void linkArguments(List<Vertex> args, Callee callee,
+			Set<List<Object>> argEdges)
+	{
+		if (args == null)
+			return;
+
+		for (Vertex arg : args)
+		{
+			Object paramId = callee.childNumToParam.get(value(arg,
+					NODE_CHILDNUM));
+			if (paramId == null
+					|| !argEdges.add(Arrays.asList(arg.id(), paramId)))
+				continue;
+			arg.addEdge(IS_ARG_EDGE, g.V(paramId).next());
+			nArgEdges++;
+		}
+	}
+
+	private Object[] callIds(Collection<Vertex> calls)
+	{
+		List<Object> ids = new ArrayList<Object>(calls.size());
+		for (Vertex call : calls)
+			ids.add(call.id());
+		return ids.toArray();
+	}
+
+	private void commit()
+	{
+		if (graph.features().graph().supportsTransactions())
+			graph.tx().commit();
+	}
+
+	/**
+	 * The name by which calls refer to a function: the last token of
+	 * a function's name or a callee's code, without asterisks.
+	 * */
+
+	static String normalizeName(String name)
+	{
+		if (name == null)
+			return null;
+
+		String[] tokens = name.trim().split(" ");
+		String normalized = tokens[tokens.length - 1].replace("*", "").trim();
+		return normalized.isEmpty() ? null : normalized;
+	}
+
+	private static String value(Vertex vertex, String key)
+	{
+		VertexProperty<Object> property = vertex.property(key);
+		if (!property.isPresent())
+			return null;
+		return property.value().toString();
+	}
+
+}
@@ -0,0 +1,222 @@
+package joern.learning;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+
+/**
+ * Creates neighborhood hash feature vectors for the ASTs rooted at
+ * given nodes (`featureVectors` in joern-lang), one libsvm line per
+ * AST.
+ *
+ * ASTs are processed in chunks. The ASTs of a chunk are read and
+ * hashed in parallel, each worker reading in its own transaction,
+ * while lines are produced in the order of the given roots. Lines
+ * are computed only as far as they are consumed, so that they can be
+ * streamed to a file or fetched through a shell cursor.
+ * */
+
+public class FeatureVectorExtractor
+{
+	static final String NODE_TYPE = "type";
+	static final String NODE_CODE = "code";
+	static final String TYPE_PRIMARY_EXPRESSION = "PrimaryExpression";
+	static final String NUMBER_LABEL = "A_NUMBER";
+	static final String AST_EDGE = "IS_AST_PARENT";
+
+	/**
+	 * An AST with nodes numbered in breadth-first order
+	 * */
+
+	private static class Ast
+	{
+		final int[] labels;
+		final int[][] children;
+
+		Ast(int nNodes)
+		{
+			labels = new int[nNodes];
+			children = new int[nNodes][];
+		}
+	}
+
+	private final Graph graph;
+	private final int nThreads;
+	private final EvaluationToken token;
+	private int iterations = NeighborhoodHash.DEFAULT_ITERATIONS;
+
+	public FeatureVectorExtractor(Graph graph)
+	{
+		this(graph, Runtime.getRuntime().availableProcessors());
+	}
+
+	public FeatureVectorExtractor(Graph graph, int nThreads)
+	{
+		this.graph = graph;
+		this.nThreads = nThreads;
+		this.token = EvaluationToken.current();
+	}
+
+	public int getIterations()
+	{
+		return iterations;
+	}
+
+	public void setIterations(int iterations)
+	{
+		this.iterations = iterations;
+	}
+
+	/**
+	 * The libsvm line of the AST rooted at a node.
+	 *
+	 * @param root an AST node or its id
+	 * */
+
+	public String libsvmLine(Object root)
+	{
+		return NeighborhoodHash.libsvmString(hashedLabels(root));
+	}
+
+	/**
+	 * The final labels of the nodes of the AST rooted at a node, i.e.,
+	 * the features of the AST, each occurring once per node.
+	 *
+	 * @param root an AST node or its id
+	 * */
+
+	public int[] hashedLabels(Object root)
+	{
+		Ast ast = readAst(root);
+		return NeighborhoodHash.hash(ast.labels, ast.children, iterations);
+	}
+
+	/**
+	 * The libsvm lines of the ASTs rooted at the given nodes, in the
+	 * same order, computed lazily.
+	 * */
+
+	public Iterator<String> libsvmLines(List<?> roots)
+	{
+		return new ParallelChunkedMap<String>(graph, roots, this::libsvmLine,
+				nThreads, token);
+	}
+
+	/**
+	 * Write the libsvm lines of the ASTs rooted at the given nodes to
+	 * a file, one line per root.
+	 *
+	 * @return the number of lines written
+	 * */
+
+	public long writeLibsvm(List<?> roots, Path file) throws IOException
+	{
+		long nLines = 0;
+		try (BufferedWriter writer = Files.newBufferedWriter(file,
+				StandardCharsets.UTF_8))
+		{
+			Iterator<String> lines = libsvmLines(roots);
+			while (lines.hasNext())
+			{
+				writer.write(lines.next());
+				writer.newLine();
+				nLines++;
+			}
+		}
+		return nLines;
+	}
+
+	/**
+	 * Read the AST rooted at a node breadth-first, with one query per
+	 * level, and compute the initial label of each node: the hash of
+	 * its type for inner nodes, and of its code for leaves, where
+	 * numbers are replaced by a placeholder.
+	 * */
+
+	private Ast readAst(Object root)
+	{
+		GraphTraversalSource g = graph.traversal();
+		// Vertices are re-read, as the root may stem from another
+		// thread's transaction.
+		Vertex rootVertex = g.V(root instanceof Element ? ((Element) root)
+				.id() : root).next();
+
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		List<List<Integer>> childLists = new ArrayList<List<Integer>>();
+		Map<Object, Integer> idToIndex = new HashMap<Object, Integer>();
+
+		nodes.add(rootVertex);
+		childLists.add(new ArrayList<Integer>());
+		idToIndex.put(rootVertex.id(), 0);
+
+		List<Object> frontier = Collections.singletonList(rootVertex.id());
+		while (!frontier.isEmpty())
+		{
+			List<Object> next = new ArrayList<Object>();
+			g.V(frontier.toArray()).as("parent").out(AST_EDGE).as("child")
+					.select("parent", "child").forEachRemaining(pair -> {
+						Vertex child = (Vertex) pair.get("child");
+						if (idToIndex.containsKey(child.id()))
+							return;
+						int index = nodes.size();
+						nodes.add(child);
+						childLists.add(new ArrayList<Integer>());
+						idToIndex.put(child.id(), index);
+						childLists.get(idToIndex.get(((Vertex) pair
+								.get("parent")).id())).add(index);
+						next.add(child.id());
+					});
+			frontier = next;
+		}
+
+		Ast ast = new Ast(nodes.size());
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			List<Integer> childList = childLists.get(i);
+			ast.children[i] = new int[childList.size()];
+			for (int j = 0; j < childList.size(); j++)
+				ast.children[i][j] = childList.get(j);
+			ast.labels[i] = initialLabel(nodes.get(i), childList.isEmpty());
+		}
+		return ast;
+	}
+
+	private int initialLabel(Vertex node, boolean isLeaf)
+	{
+		String code = value(node, NODE_CODE);
+		String type = value(node, NODE_TYPE);
+
+		if (!isLeaf || code == null)
+			return NeighborhoodHash.hashVal(String.valueOf(type));
+
+		if (TYPE_PRIMARY_EXPRESSION.equals(type) && code.matches("[0-9]+"))
+			return NeighborhoodHash.hashVal(NUMBER_LABEL);
+
+		return NeighborhoodHash.hashVal(code);
+	}
+
+	private static String value(Vertex vertex, String key)
+	{
+		VertexProperty<Object> property = vertex.property(key);
+		if (!property.isPresent())
+			return null;
+		return property.value().toString();
+	}
+
+}
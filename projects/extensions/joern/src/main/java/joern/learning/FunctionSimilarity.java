@@ -0,0 +1,217 @@
+package joern.learning;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import octopus.api.similarity.SimilarityIndex;
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+
+/**
+ * Finds functions similar to a given function (`similarFunctions` in
+ * joern-lang), replacing the embedding scripts of joern-tools.
+ *
+ * Functions are compared by one of two kinds of feature vectors: the
+ * neighborhood hashes of their ASTs ("ast"), or the API symbols they
+ * use, i.e., the types they declare and the functions they call
+ * ("api"). For each kind, a SimilarityIndex over all functions is
+ * built on demand and saved in the project directory, so that it
+ * survives restarts of the server. Indices are not updated
+ * incrementally; they must be rebuilt after importing code.
+ * */
+
+public class FunctionSimilarity
+{
+	public static final String KIND_AST = "ast";
+	public static final String KIND_API = "api";
+
+	static final String NODE_TYPE = "type";
+	static final String NODE_CODE = "code";
+	static final String TYPE_FUNCTION = "Function";
+	static final String FUNCTION_TO_AST_EDGE = "IS_FUNCTION_OF_AST";
+
+	static final String[] API_SYMBOL_TYPES = { "IdentifierDeclType",
+			"ParameterType", "Callee", "Sizeof" };
+
+	private static final String INDEX_DIR = "similarity";
+	private static final String INDEX_EXTENSION = ".idx";
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(FunctionSimilarity.class);
+
+	/**
+	 * A loaded index and the modification time of its file
+	 * */
+
+	private static class CachedIndex
+	{
+		final SimilarityIndex index;
+		final long lastModified;
+
+		CachedIndex(SimilarityIndex index, long lastModified)
+		{
+			this.index = index;
+			this.lastModified = lastModified;
+		}
+	}
+
+	private static final Map<Path, CachedIndex> loadedIndices = new HashMap<Path, CachedIndex>();
+
+	private final Graph graph;
+	private final Path projectDir;
+	private final int nThreads;
+
+	public FunctionSimilarity(Graph graph, Path projectDir)
+	{
+		this(graph, projectDir, Runtime.getRuntime().availableProcessors());
+	}
+
+	public FunctionSimilarity(Graph graph, Path projectDir, int nThreads)
+	{
+		this.graph = graph;
+		this.projectDir = projectDir;
+		this.nThreads = nThreads;
+	}
+
+	/**
+	 * Compute the feature vectors of all functions and save them as
+	 * the index of the given kind, replacing any existing index.
+	 *
+	 * @return the number of indexed functions
+	 * */
+
+	public int buildIndex(String kind) throws IOException
+	{
+		checkKind(kind);
+		GraphTraversalSource g = graph.traversal();
+
+		List<Object[]> functions = new ArrayList<Object[]>();
+		g.V().has(NODE_TYPE, TYPE_FUNCTION).as("function")
+				.out(FUNCTION_TO_AST_EDGE).as("ast").select("function", "ast")
+				.forEachRemaining(pair -> functions.add(new Object[] {
+						((Vertex) pair.get("function")).id(),
+						((Vertex) pair.get("ast")).id() }));
+
+		FeatureVectorExtractor extractor = new FeatureVectorExtractor(graph,
+				nThreads);
+		Iterator<int[]> vectors = new ParallelChunkedMap<int[]>(graph,
+				functions, function -> {
+					Object astId = ((Object[]) function)[1];
+					return KIND_AST.equals(kind) ? extractor
+							.hashedLabels(astId) : apiSymbols(astId);
+				}, nThreads, EvaluationToken.current());
+
+		SimilarityIndex.Builder builder = new SimilarityIndex.Builder();
+		for (Object[] function : functions)
+			builder.addCounts(toLong(function[0]), vectors.next());
+		SimilarityIndex index = builder.build();
+
+		Path file = indexFile(kind);
+		Files.createDirectories(file.getParent());
+		index.save(file);
+		logger.info("Indexed {} functions by {} features in {}",
+				index.size(), kind, file);
+
+		synchronized (loadedIndices)
+		{
+			loadedIndices.put(file, new CachedIndex(index, Files
+					.getLastModifiedTime(file).toMillis()));
+		}
+		return index.size();
+	}
+
+	/**
+	 * The saved index of the given kind. It is loaded once and kept in
+	 * memory until its file changes.
+	 * */
+
+	public SimilarityIndex index(String kind) throws IOException
+	{
+		checkKind(kind);
+		Path file = indexFile(kind);
+		if (!Files.exists(file))
+			throw new RuntimeException("No " + kind
+					+ " similarity index. Build it first.");
+
+		long lastModified = Files.getLastModifiedTime(file).toMillis();
+		synchronized (loadedIndices)
+		{
+			CachedIndex cached = loadedIndices.get(file);
+			if (cached == null || cached.lastModified != lastModified)
+			{
+				cached = new CachedIndex(SimilarityIndex.load(file),
+						lastModified);
+				loadedIndices.put(file, cached);
+			}
+			return cached.index;
+		}
+	}
+
+	/**
+	 * The `k` functions most similar to a function, most similar
+	 * first.
+	 *
+	 * @param function a function node or its id
+	 * */
+
+	public List<SimilarityIndex.Match> similar(Object function, int k,
+			String kind) throws IOException
+	{
+		Object id = function instanceof Element ? ((Element) function).id()
+				: function;
+		SimilarityIndex index = index(kind);
+		long key = toLong(id);
+		if (!index.contains(key))
+			return Collections.emptyList();
+		return index.nearestNeighbors(key, k);
+	}
+
+	private int[] apiSymbols(Object astId)
+	{
+		List<Object> codes = graph.traversal().V(astId).emit()
+				.repeat(__.out(FeatureVectorExtractor.AST_EDGE))
+				.has(NODE_TYPE, P.within(Arrays.asList(API_SYMBOL_TYPES)))
+				.values(NODE_CODE).toList();
+
+		int[] features = new int[codes.size()];
+		for (int i = 0; i < features.length; i++)
+			features[i] = codes.get(i).toString().hashCode();
+		return features;
+	}
+
+	private Path indexFile(String kind)
+	{
+		return projectDir.resolve(INDEX_DIR).resolve(kind + INDEX_EXTENSION);
+	}
+
+	private static void checkKind(String kind)
+	{
+		if (!KIND_AST.equals(kind) && !KIND_API.equals(kind))
+			throw new IllegalArgumentException("Unknown similarity kind: "
+					+ kind);
+	}
+
+	private static long toLong(Object id)
+	{
+		if (id instanceof Number)
+			return ((Number) id).longValue();
+		return Long.parseLong(id.toString());
+	}
+
+}
@@ -0,0 +1,91 @@
+package joern.learning;
+
+import java.util.Arrays;
+
+/**
+ * The explicit neighborhood hash kernel on trees (see
+ * `learning/neighborhoodHash.groovy` in joern-lang and
+ * http://user.informatik.uni-goettingen.de/~krieck/docs/2013b-aisec.pdf).
+ *
+ * Nodes are numbered 0 to n-1. Labels are 16-bit hashes. In each
+ * iteration, a node's label is rotated by one bit and combined with
+ * the labels of its children by exclusive or.
+ * */
+
+public class NeighborhoodHash
+{
+	public static final int LABEL_MASK = 0xffff;
+	public static final int LABEL_WIDTH = 16;
+
+	/** Number of iterations, i.e., depth of the neighborhood */
+	public static final int DEFAULT_ITERATIONS = 2;
+
+	private NeighborhoodHash()
+	{
+	}
+
+	public static int hashVal(String s)
+	{
+		return s.hashCode() & LABEL_MASK;
+	}
+
+	public static int rotate(int label)
+	{
+		return ((label << 1) | ((label >>> (LABEL_WIDTH - 1)) & 0x1))
+				& LABEL_MASK;
+	}
+
+	/**
+	 * Perform `iterations` iterations of neighborhood hashing.
+	 *
+	 * @param labels initial label of each node
+	 * @param children child numbers of each node
+	 * @return the final labels, `labels` is left unchanged
+	 * */
+
+	public static int[] hash(int[] labels, int[][] children, int iterations)
+	{
+		int[] current = labels.clone();
+		int[] next = new int[labels.length];
+
+		for (int i = 0; i < iterations; i++)
+		{
+			for (int node = 0; node < current.length; node++)
+			{
+				int label = rotate(current[node]);
+				for (int child : children[node])
+					label ^= current[child];
+				next[node] = label;
+			}
+			int[] tmp = current;
+			current = next;
+			next = tmp;
+		}
+		return current;
+	}
+
+	/**
+	 * The sparse vector counting the occurrences of each label, as a
+	 * libsvm line: features in ascending order, separated (and
+	 * terminated) by a space.
+	 * */
+
+	public static String libsvmString(int[] labels)
+	{
+		int[] sorted = labels.clone();
+		Arrays.sort(sorted);
+
+		StringBuilder sBuilder = new StringBuilder(sorted.length * 8);
+		int i = 0;
+		while (i < sorted.length)
+		{
+			int j = i;
+			while (j < sorted.length && sorted[j] == sorted[i])
+				j++;
+			sBuilder.append(sorted[i]).append(':').append(j - i).append(' ');
+			i = j;
+		}
+		return sBuilder.toString();
+	}
+
+}
@@ -0,0 +1,125 @@
+package joern.learning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+
+/**
+ * Applies a function that reads from the graph to a list of inputs,
+ * lazily and in order. Inputs are processed in chunks; the inputs of
+ * a chunk are processed in parallel, each worker reading in its own
+ * transaction. The next chunk is only processed once the results of
+ * the previous one have been consumed.
+ * */
+
+class ParallelChunkedMap<T> implements Iterator<T>
+{
+	static final int CHUNK_SIZE = 1024;
+
+	private final Graph graph;
+	private final List<?> inputs;
+	private final Function<Object, T> function;
+	private final int nThreads;
+	private final EvaluationToken token;
+
+	private int nextChunk = 0;
+	private Iterator<T> chunk = Collections.emptyIterator();
+
+	ParallelChunkedMap(Graph graph, List<?> inputs,
+			Function<Object, T> function, int nThreads, EvaluationToken token)
+	{
+		this.graph = graph;
+		this.inputs = inputs;
+		this.function = function;
+		this.nThreads = nThreads;
+		this.token = token;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return chunk.hasNext() || nextChunk < inputs.size();
+	}
+
+	@Override
+	public T next()
+	{
+		if (!chunk.hasNext())
+		{
+			if (nextChunk >= inputs.size())
+				throw new NoSuchElementException();
+			int end = Math.min(nextChunk + CHUNK_SIZE, inputs.size());
+			chunk = processChunk(inputs.subList(nextChunk, end)).iterator();
+			nextChunk = end;
+		}
+		return chunk.next();
+	}
+
+	private List<T> processChunk(List<?> chunkInputs)
+	{
+		int poolSize = Math.max(1, Math.min(nThreads, chunkInputs.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+
+		try
+		{
+			List<Future<T>> futures = new LinkedList<Future<T>>();
+			for (Object input : chunkInputs)
+			{
+				futures.add(pool.submit(() -> {
+					try
+					{
+						checkCancelled();
+						return function.apply(input);
+					} finally
+					{
+						closeThreadTransaction();
+					}
+				}));
+			}
+
+			List<T> results = new ArrayList<T>(chunkInputs.size());
+			for (Future<T> future : futures)
+				results.add(future.get());
+			return results;
+
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private void checkCancelled()
+	{
+		if (token != null)
+			token.checkCancelled();
+	}
+
+	private void closeThreadTransaction()
+	{
+		if (graph.features().graph().supportsTransactions()
+				&& graph.tx().isOpen())
+			graph.tx().rollback();
+	}
+
+}
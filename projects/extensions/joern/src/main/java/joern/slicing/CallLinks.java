@@ -0,0 +1,114 @@
+package joern.slicing;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+
+import joern.callGraph.CallGraphLinker;
+import joern.taintTracking.dataflow.FunctionFlowGraph;
+
+/**
+ * Interprocedural successors of the nodes of a function, derived from
+ * the IS_ARG edges created at import (see CallGraphLinker):
+ *
+ * - Backwards, a parameter leads to the statements of its callers
+ * that contain the arguments bound to it.
+ *
+ * - Forwards, a statement leads to the parameters bound to the
+ * arguments it contains.
+ *
+ * Links are loaded on first use and kept as long as the flow graph
+ * of the function is cached.
+ * */
+
+class CallLinks
+{
+	static final String NODE_TYPE = "type";
+	static final String NODE_ISCFGNODE = "isCFGNode";
+	static final String NODE_FUNCTION_ID = "functionId";
+	static final String TYPE_ARGUMENT = "Argument";
+	static final String AST_EDGE = "IS_AST_PARENT";
+
+	private static final Map<FunctionFlowGraph, CallLinks> flowGraphToLinks = new WeakHashMap<FunctionFlowGraph, CallLinks>();
+
+	/**
+	 * A node in another function.
+	 * */
+
+	static class Target
+	{
+		final Object id;
+		final String functionId;
+
+		Target(Vertex vertex)
+		{
+			id = vertex.id();
+			VertexProperty<Object> property = vertex.property(NODE_FUNCTION_ID);
+			functionId = property.isPresent() ? property.value().toString()
+					: null;
+		}
+	}
+
+	private final Map<Integer, List<Target>> paramToCallerStatements = new HashMap<Integer, List<Target>>();
+	private final Map<Integer, List<Target>> statementToCalleeParams = new HashMap<Integer, List<Target>>();
+
+	static CallLinks forFlowGraph(GraphTraversalSource g,
+			FunctionFlowGraph flowGraph)
+	{
+		synchronized (flowGraphToLinks)
+		{
+			CallLinks links = flowGraphToLinks.get(flowGraph);
+			if (links == null)
+			{
+				links = new CallLinks(g, flowGraph);
+				flowGraphToLinks.put(flowGraph, links);
+			}
+			return links;
+		}
+	}
+
+	private CallLinks(GraphTraversalSource g, FunctionFlowGraph flowGraph)
+	{
+		Object[] nodeIds = new Object[flowGraph.size()];
+		for (int i = 0; i < nodeIds.length; i++)
+			nodeIds[i] = flowGraph.idOf(i);
+
+		g.V(nodeIds).as("param").in(CallGraphLinker.IS_ARG_EDGE)
+				.until(__.has(NODE_ISCFGNODE, "True"))
+				.repeat(__.in(AST_EDGE)).as("stmt").select("param", "stmt")
+				.forEachRemaining(pair -> add(paramToCallerStatements,
+						flowGraph.indexOf(((Vertex) pair.get("param")).id()),
+						(Vertex) pair.get("stmt")));
+
+		g.V(nodeIds).as("stmt").emit().repeat(__.out(AST_EDGE))
+				.has(NODE_TYPE, TYPE_ARGUMENT)
+				.out(CallGraphLinker.IS_ARG_EDGE).as("param")
+				.select("stmt", "param")
+				.forEachRemaining(pair -> add(statementToCalleeParams,
+						flowGraph.indexOf(((Vertex) pair.get("stmt")).id()),
+						(Vertex) pair.get("param")));
+	}
+
+	private static void add(Map<Integer, List<Target>> map, int index,
+			Vertex target)
+	{
+		map.computeIfAbsent(index, k -> new LinkedList<Target>()).add(
+				new Target(target));
+	}
+
+	List<Target> targets(int index, boolean forward)
+	{
+		List<Target> targets = (forward ? statementToCalleeParams
+				: paramToCallerStatements).get(index);
+		return targets == null ? Collections.<Target> emptyList() : targets;
+	}
+
+}
@@ -0,0 +1,263 @@
+package joern.slicing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+
+import joern.taintTracking.dataflow.DependenceEdges;
+import joern.taintTracking.dataflow.FunctionFlowGraph;
+import joern.taintTracking.dataflow.FunctionFlowGraphCache;
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+
+/**
+ * Forward and backward slices over the program dependence graph
+ * (`forwardSlice` and `backwardSlice` in joern-lang).
+ *
+ * A slice contains the start nodes and all nodes reachable from them
+ * in at most `order` steps along edges with the given labels. On the
+ * first step, only CONTROLS edges and edges carrying one of the given
+ * symbols are followed.
+ *
+ * Dependence edges are read once per function into the function's
+ * cached flow graph (see FunctionFlowGraphCache), and slices are
+ * computed on those with a worklist and bitsets. Interprocedural
+ * slices additionally step from parameters to the calling statements
+ * (backwards) and from statements to the parameters bound to their
+ * arguments (forwards); each such step counts as one step.
+ * */
+
+public class Slicer
+{
+	static final String NODE_FUNCTION_ID = "functionId";
+	static final String CONTROLS_EDGE = "CONTROLS";
+
+	private final GraphTraversalSource g;
+	private final FunctionFlowGraphCache cache;
+	private boolean interprocedural = false;
+
+	/**
+	 * A node in the flow graph of a function
+	 * */
+
+	private static class Node
+	{
+		final FunctionFlowGraph flowGraph;
+		final int index;
+		final int distance;
+
+		Node(FunctionFlowGraph flowGraph, int index, int distance)
+		{
+			this.flowGraph = flowGraph;
+			this.index = index;
+			this.distance = distance;
+		}
+	}
+
+	public Slicer(Graph graph)
+	{
+		this.g = graph.traversal();
+		this.cache = FunctionFlowGraphCache.forGraph(graph);
+	}
+
+	public boolean isInterprocedural()
+	{
+		return interprocedural;
+	}
+
+	public void setInterprocedural(boolean interprocedural)
+	{
+		this.interprocedural = interprocedural;
+	}
+
+	public List<Vertex> forwardSlice(Collection<?> starts,
+			Collection<String> symbols, int order, Collection<String> labels)
+	{
+		return toVertices(slice(starts, symbols, order, labels, true));
+	}
+
+	public List<Vertex> backwardSlice(Collection<?> starts,
+			Collection<String> symbols, int order, Collection<String> labels)
+	{
+		return toVertices(slice(starts, symbols, order, labels, false));
+	}
+
+	/**
+	 * One slice per start node, for slicing from many nodes at once.
+	 * The i'th start node is sliced along the i'th set of symbols.
+	 * Vertices of all slices are read with a single query.
+	 * */
+
+	public List<List<Vertex>> slices(List<?> starts,
+			List<? extends Collection<String>> symbols, int order,
+			Collection<String> labels, boolean forward)
+	{
+		List<List<Object>> sliceIds = new ArrayList<List<Object>>();
+		Set<Object> allIds = new HashSet<Object>();
+		for (int i = 0; i < starts.size(); i++)
+		{
+			List<Object> ids = slice(Collections.singletonList(starts.get(i)),
+					symbols.get(i), order, labels, forward);
+			sliceIds.add(ids);
+			allIds.addAll(ids);
+		}
+
+		Map<Object, Vertex> idToVertex = loadVertices(allIds);
+		List<List<Vertex>> slices = new ArrayList<List<Vertex>>(sliceIds.size());
+		for (List<Object> ids : sliceIds)
+		{
+			List<Vertex> slice = new ArrayList<Vertex>(ids.size());
+			for (Object id : ids)
+				slice.add(idToVertex.get(id));
+			slices.add(slice);
+		}
+		return slices;
+	}
+
+	private List<Object> slice(Collection<?> starts, Collection<String> symbols,
+			int order, Collection<String> labels, boolean forward)
+	{
+		Set<Object> sliceIds = new LinkedHashSet<Object>();
+		Map<FunctionFlowGraph, BitSet> flowGraphToExpanded = new IdentityHashMap<FunctionFlowGraph, BitSet>();
+		LinkedList<Node> worklist = new LinkedList<Node>();
+
+		for (Object start : starts)
+		{
+			Vertex vertex = start instanceof Vertex ? (Vertex) start : g.V(start)
+					.next();
+			sliceIds.add(vertex.id());
+
+			FunctionFlowGraph flowGraph = flowGraphOf(vertex.id(),
+					functionIdOf(vertex));
+			if (flowGraph != null)
+				worklist.add(new Node(flowGraph, flowGraph.indexOf(vertex.id()), 0));
+		}
+
+		while (!worklist.isEmpty())
+		{
+			EvaluationToken.checkCurrent();
+
+			Node node = worklist.removeFirst();
+			if (node.distance >= order)
+				continue;
+
+			// Start nodes are expanded along the given symbols only. If
+			// they are reached again later on, they are expanded fully.
+
+			boolean first = node.distance == 0;
+			if (!first)
+			{
+				BitSet expanded = flowGraphToExpanded.computeIfAbsent(
+						node.flowGraph, k -> new BitSet());
+				if (expanded.get(node.index))
+					continue;
+				expanded.set(node.index);
+			}
+
+			for (String label : labels)
+			{
+				DependenceEdges edges = node.flowGraph.edges(g, label);
+				BitSet allowedSymbols = first ? allowedSymbols(node.flowGraph,
+						symbols) : null;
+				boolean isControl = CONTROLS_EDGE.equals(label);
+
+				int end = edges.start(node.index + 1, forward);
+				for (int pos = edges.start(node.index, forward); pos < end; pos++)
+				{
+					if (first && !isControl)
+					{
+						int symbol = edges.symbol(pos, forward);
+						if (symbol == DependenceEdges.NO_SYMBOL
+								|| !allowedSymbols.get(symbol))
+							continue;
+					}
+					int next = edges.node(pos, forward);
+					sliceIds.add(node.flowGraph.idOf(next));
+					worklist.add(new Node(node.flowGraph, next,
+							node.distance + 1));
+				}
+			}
+
+			if (interprocedural)
+				addCallLinks(node, forward, sliceIds, worklist);
+		}
+
+		return new ArrayList<Object>(sliceIds);
+	}
+
+	private void addCallLinks(Node node, boolean forward, Set<Object> sliceIds,
+			List<Node> worklist)
+	{
+		CallLinks links = CallLinks.forFlowGraph(g, node.flowGraph);
+		for (CallLinks.Target target : links.targets(node.index, forward))
+		{
+			sliceIds.add(target.id);
+			FunctionFlowGraph flowGraph = flowGraphOf(target.id,
+					target.functionId);
+			if (flowGraph != null)
+				worklist.add(new Node(flowGraph, flowGraph.indexOf(target.id),
+						node.distance + 1));
+		}
+	}
+
+	private BitSet allowedSymbols(FunctionFlowGraph flowGraph,
+			Collection<String> symbols)
+	{
+		BitSet allowed = new BitSet();
+		for (String symbol : symbols)
+		{
+			int id = flowGraph.symbolId(symbol);
+			if (id != -1)
+				allowed.set(id);
+		}
+		return allowed;
+	}
+
+	private FunctionFlowGraph flowGraphOf(Object id, String functionId)
+	{
+		if (functionId == null)
+			return null;
+		FunctionFlowGraph flowGraph = cache.get(g, functionId, id);
+		if (flowGraph == null || flowGraph.indexOf(id) == -1)
+			return null;
+		return flowGraph;
+	}
+
+	private String functionIdOf(Vertex vertex)
+	{
+		VertexProperty<Object> property = vertex.property(NODE_FUNCTION_ID);
+		return property.isPresent() ? property.value().toString() : null;
+	}
+
+	private List<Vertex> toVertices(List<Object> ids)
+	{
+		Map<Object, Vertex> idToVertex = loadVertices(ids);
+		List<Vertex> vertices = new ArrayList<Vertex>(ids.size());
+		for (Object id : ids)
+			vertices.add(idToVertex.get(id));
+		return vertices;
+	}
+
+	private Map<Object, Vertex> loadVertices(Collection<Object> ids)
+	{
+		Map<Object, Vertex> idToVertex = new HashMap<Object, Vertex>();
+		if (!ids.isEmpty())
+			g.V(ids.toArray()).forEachRemaining(
+					vertex -> idToVertex.put(vertex.id(), vertex));
+		return idToVertex;
+	}
+
+}
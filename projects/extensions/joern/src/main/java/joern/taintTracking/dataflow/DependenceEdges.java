@@ -0,0 +1,83 @@
+package joern.taintTracking.dataflow;
+
+import java.util.List;
+
+/**
+ * Edges of one label between the nodes of a FunctionFlowGraph in
+ * compressed sparse row form, for both directions. Each edge carries
+ * the id of its symbol (the `var` property of REACHES edges) or
+ * NO_SYMBOL.
+ * */
+
+public class DependenceEdges
+{
+	public static final int NO_SYMBOL = -1;
+
+	private final int[] outStart;
+	private final int[] outNode;
+	private final int[] outSymbol;
+	private final int[] inStart;
+	private final int[] inNode;
+	private final int[] inSymbol;
+
+	DependenceEdges(int nNodes, List<int[]> edges)
+	{
+		outStart = new int[nNodes + 1];
+		outNode = new int[edges.size()];
+		outSymbol = new int[edges.size()];
+		inStart = new int[nNodes + 1];
+		inNode = new int[edges.size()];
+		inSymbol = new int[edges.size()];
+
+		for (int[] edge : edges)
+		{
+			outStart[edge[0] + 1]++;
+			inStart[edge[1] + 1]++;
+		}
+		for (int i = 0; i < nNodes; i++)
+		{
+			outStart[i + 1] += outStart[i];
+			inStart[i + 1] += inStart[i];
+		}
+
+		int[] outPos = outStart.clone();
+		int[] inPos = inStart.clone();
+		for (int[] edge : edges)
+		{
+			outNode[outPos[edge[0]]] = edge[1];
+			outSymbol[outPos[edge[0]]++] = edge[2];
+			inNode[inPos[edge[1]]] = edge[0];
+			inSymbol[inPos[edge[1]]++] = edge[2];
+		}
+	}
+
+	/**
+	 * Edges leaving (`forward`) or entering node `index` are those at
+	 * positions `start(index, forward)` to `start(index + 1, forward)`.
+	 * */
+
+	public int start(int index, boolean forward)
+	{
+		return forward ? outStart[index] : inStart[index];
+	}
+
+	/**
+	 * The node at the other end of the edge at `position`.
+	 * */
+
+	public int node(int position, boolean forward)
+	{
+		return forward ? outNode[position] : inNode[position];
+	}
+
+	public int symbol(int position, boolean forward)
+	{
+		return forward ? outSymbol[position] : inSymbol[position];
+	}
+
+	public int size()
+	{
+		return outNode.length;
+	}
+
+}
@@ -0,0 +1,227 @@
+package joern.taintTracking.dataflow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+/**
+ * The control flow graph of a function and the symbols defined by
+ * its statements, loaded once and held in int-indexed arrays. Nodes
+ * are numbered in the order in which they are found, starting with the
+ * entry node.
+ *
+ * All CFG nodes of the function are included, not only those reachable
+ * from the entry node: statements after a return statement, for
+ * example, still have data and control dependences of their own.
+ *
+ * Edges of other labels between the function's CFG nodes, e.g., the
+ * data and control dependence edges of the PDG, are loaded on first
+ * use (see `edges`).
+ * */
+
+public class FunctionFlowGraph
+{
+	static final String NODE_CODE = "code";
+	static final String NODE_KEY = "_key";
+
+	static final String CFG_EDGE = "FLOWS_TO";
+	static final String DEFINES_EDGE = "DEF";
+	static final String FUNCTION_TO_CFG_EDGE = "IS_FUNCTION_OF_CFG";
+	static final String DATA_FLOW_SYMBOL = "var";
+
+	private final String functionId;
+	private final List<Object> nodeIds = new ArrayList<Object>();
+	private final Map<Object, Integer> idToIndex = new HashMap<Object, Integer>();
+	private final Map<String, BitSet> symbolToDefs = new HashMap<String, BitSet>();
+	private final Map<String, Integer> symbolToId = new HashMap<String, Integer>();
+	private final Map<String, DependenceEdges> labelToEdges = new ConcurrentHashMap<String, DependenceEdges>();
+	private int[][] successors;
+
+	private FunctionFlowGraph(String functionId)
+	{
+		this.functionId = functionId;
+	}
+
+	/**
+	 * Load the flow graph of the function with the given key. The CFG
+	 * is read breadth-first from the entry node, following FLOWS_TO
+	 * edges in both directions, so that nodes the entry node does not
+	 * reach are found through their successors. Each node found is
+	 * expanded once, and its outgoing edges are recorded then.
+	 *
+	 * @return the flow graph or null if there is no such function
+	 * */
+
+	static FunctionFlowGraph load(GraphTraversalSource g, String functionId)
+	{
+		List<Object> entries = g.V().has(NODE_KEY, functionId)
+				.out(FUNCTION_TO_CFG_EDGE).id().toList();
+		if (entries.isEmpty())
+			return null;
+
+		FunctionFlowGraph flowGraph = new FunctionFlowGraph(functionId);
+		List<List<Integer>> adjacency = new ArrayList<List<Integer>>();
+
+		List<Object> frontier = new LinkedList<Object>();
+		frontier.add(entries.get(0));
+		flowGraph.addNode(entries.get(0), adjacency);
+
+		while (!frontier.isEmpty())
+		{
+			List<Object> next = new LinkedList<Object>();
+			g.V(frontier.toArray()).as("src").out(CFG_EDGE).as("dst")
+					.select("src", "dst").forEachRemaining(pair -> {
+						Object srcId = ((Vertex) pair.get("src")).id();
+						Object dstId = ((Vertex) pair.get("dst")).id();
+						flowGraph.addNode(dstId, adjacency, next);
+						adjacency.get(flowGraph.idToIndex.get(srcId)).add(
+								flowGraph.idToIndex.get(dstId));
+					});
+			// Predecessors the entry node may not reach
+			g.V(frontier.toArray()).in(CFG_EDGE).id().forEachRemaining(
+					srcId -> flowGraph.addNode(srcId, adjacency, next));
+			frontier = next;
+		}
+
+		flowGraph.successors = new int[adjacency.size()][];
+		for (int i = 0; i < adjacency.size(); i++)
+		{
+			List<Integer> succs = adjacency.get(i);
+			flowGraph.successors[i] = new int[succs.size()];
+			for (int j = 0; j < succs.size(); j++)
+				flowGraph.successors[i][j] = succs.get(j);
+		}
+
+		g.V(flowGraph.nodeIds.toArray()).as("stmt").out(DEFINES_EDGE)
+				.as("symbol").select("stmt", "symbol")
+				.forEachRemaining(pair -> {
+					Vertex symbol = (Vertex) pair.get("symbol");
+					int index = flowGraph.idToIndex.get(((Vertex) pair
+							.get("stmt")).id());
+					flowGraph.symbolToDefs.computeIfAbsent(
+							symbol.value(NODE_CODE).toString(),
+							k -> new BitSet()).set(index);
+				});
+
+		return flowGraph;
+	}
+
+	private void addNode(Object id, List<List<Integer>> adjacency,
+			List<Object> next)
+	{
+		if (idToIndex.containsKey(id))
+			return;
+		next.add(id);
+		addNode(id, adjacency);
+	}
+
+	private void addNode(Object id, List<List<Integer>> adjacency)
+	{
+		idToIndex.put(id, nodeIds.size());
+		nodeIds.add(id);
+		adjacency.add(new ArrayList<Integer>(2));
+	}
+
+	public String getFunctionId()
+	{
+		return functionId;
+	}
+
+	public int size()
+	{
+		return nodeIds.size();
+	}
+
+	/**
+	 * @return the index of the node with the given id or -1 if the
+	 *         node is not part of the flow graph
+	 * */
+
+	public int indexOf(Object id)
+	{
+		Integer index = idToIndex.get(id);
+		return index == null ? -1 : index;
+	}
+
+	public Object idOf(int index)
+	{
+		return nodeIds.get(index);
+	}
+
+	public int[] successors(int index)
+	{
+		return successors[index];
+	}
+
+	/**
+	 * Nodes defining `symbol`. The returned set must not be modified.
+	 * */
+
+	public BitSet definitionsOf(String symbol)
+	{
+		BitSet defs = symbolToDefs.get(symbol);
+		return defs == null ? new BitSet() : defs;
+	}
+
+	/**
+	 * Id of a symbol carried by dependence edges (see
+	 * DependenceEdges.NO_SYMBOL).
+	 *
+	 * @return the id or -1 if no loaded edge carries the symbol
+	 * */
+
+	public synchronized int symbolId(String symbol)
+	{
+		Integer id = symbolToId.get(symbol);
+		return id == null ? -1 : id;
+	}
+
+	private synchronized int internSymbol(String symbol)
+	{
+		return symbolToId.computeIfAbsent(symbol, k -> symbolToId.size());
+	}
+
+	/**
+	 * Edges with the given label between the nodes of this flow
+	 * graph, loaded with a single query on first use. Edges leaving
+	 * the function are omitted.
+	 * */
+
+	public DependenceEdges edges(GraphTraversalSource g, String label)
+	{
+		return labelToEdges.computeIfAbsent(label, k -> loadEdges(g, label));
+	}
+
+	private DependenceEdges loadEdges(GraphTraversalSource g, String label)
+	{
+		List<int[]> edges = new ArrayList<int[]>();
+
+		g.V(nodeIds.toArray()).outE(label).forEachRemaining(edge -> {
+			int src = indexOf(edge.outVertex().id());
+			int dst = indexOf(edge.inVertex().id());
+			if (src == -1 || dst == -1)
+				return;
+			edges.add(new int[] { src, dst, symbolOf(edge) });
+		});
+
+		return new DependenceEdges(size(), edges);
+	}
+
+	private int symbolOf(Edge edge)
+	{
+		Property<Object> property = edge.property(DATA_FLOW_SYMBOL);
+		if (!property.isPresent())
+			return DependenceEdges.NO_SYMBOL;
+		return internSymbol(property.value().toString());
+	}
+
+}
@@ -0,0 +1,98 @@
+package joern.taintTracking.dataflow;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+/**
+ * Flow graphs of recently queried functions, one cache per database.
+ * Caches are shared by all shells of a project, as the graph of a
+ * project is shared (see TitanGraphRegistry).
+ *
+ * A cached flow graph is keyed by the function's key. When a function
+ * is reimported, its nodes receive new ids, so a flow graph that does
+ * not contain the nodes asked about is stale and is reloaded.
+ *
+ * A cache does not refer to its graph, so that the cache of a graph
+ * that has been closed is collected along with the graph.
+ * */
+
+public class FunctionFlowGraphCache
+{
+	private static final int MAX_FUNCTIONS = 1024;
+
+	private static final Map<Graph, FunctionFlowGraphCache> caches = new WeakHashMap<Graph, FunctionFlowGraphCache>();
+
+	private final Map<String, FunctionFlowGraph> functionIdToFlowGraph = new LinkedHashMap<String, FunctionFlowGraph>(
+			16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, FunctionFlowGraph> eldest)
+		{
+			return size() > MAX_FUNCTIONS;
+		}
+	};
+
+	public static synchronized FunctionFlowGraphCache forGraph(Graph graph)
+	{
+		return caches.computeIfAbsent(graph,
+				key -> new FunctionFlowGraphCache());
+	}
+
+	/**
+	 * The flow graph of a function that contains all nodes with the
+	 * given ids, loading it through `g`, a traversal source of the
+	 * cache's graph, if it is not cached or stale.
+	 *
+	 * @return the flow graph or null if the function does not exist
+	 * */
+
+	public FunctionFlowGraph get(GraphTraversalSource g, String functionId,
+			Object... nodeIds)
+	{
+		FunctionFlowGraph flowGraph;
+		synchronized (this)
+		{
+			flowGraph = functionIdToFlowGraph.get(functionId);
+		}
+		if (flowGraph != null && containsAll(flowGraph, nodeIds))
+			return flowGraph;
+
+		flowGraph = FunctionFlowGraph.load(g, functionId);
+		if (flowGraph == null)
+			return null;
+
+		synchronized (this)
+		{
+			functionIdToFlowGraph.put(functionId, flowGraph);
+		}
+		return flowGraph;
+	}
+
+	public synchronized void invalidate(String functionId)
+	{
+		functionIdToFlowGraph.remove(functionId);
+	}
+
+	public synchronized void clear()
+	{
+		functionIdToFlowGraph.clear();
+	}
+
+	private boolean containsAll(FunctionFlowGraph flowGraph, Object[] nodeIds)
+	{
+		for (Object id : nodeIds)
+		{
+			if (flowGraph.indexOf(id) == -1)
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,156 @@
+package joern.taintTracking.dataflow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+
+/**
+ * Searches control flow paths from a source statement to a
+ * destination statement on which no statement redefines a symbol or
+ * matches a sanitizer description (`u` in the paper, see `cfgPaths`
+ * in joern-lang).
+ *
+ * The search is a breadth-first search over the cached flow graph
+ * of the enclosing function, so each statement is visited at most
+ * once and the sanitizer is evaluated at most once per statement.
+ * This replaces the recursive enumeration of paths, which is
+ * exponential in the number of branches inside loops.
+ *
+ * Paths are no longer limited to 30 statements. The limit only kept
+ * the enumeration tractable, and it made paths to distant statements
+ * go unreported.
+ * */
+
+public class UnsanitizedPathFinder
+{
+	static final String NODE_FUNCTION_ID = "functionId";
+
+	private final Graph graph;
+	private final FunctionFlowGraphCache cache;
+
+	public UnsanitizedPathFinder(Graph graph)
+	{
+		this.graph = graph;
+		this.cache = FunctionFlowGraphCache.forGraph(graph);
+	}
+
+	/**
+	 * A shortest path from `src` to `dst` such that no statement on
+	 * the path after `src` defines `symbol` or matches `sanitizer`.
+	 * This includes `dst`.
+	 *
+	 * @param sanitizer tests a statement and the symbol of interest
+	 * @return the statements on the path, starting with `src`, or an
+	 *         empty list if there is no such path
+	 * */
+
+	public List<Vertex> findPath(Vertex src, Vertex dst, String symbol,
+			BiPredicate<Vertex, String> sanitizer)
+	{
+		if (src.id().equals(dst.id()))
+			return Collections.singletonList(src);
+
+		String functionId = functionIdOf(src);
+		if (functionId == null || !functionId.equals(functionIdOf(dst)))
+			return Collections.emptyList();
+
+		FunctionFlowGraph flowGraph = cache.get(graph.traversal(),
+				functionId, src.id(), dst.id());
+		if (flowGraph == null)
+			return Collections.emptyList();
+
+		int srcIndex = flowGraph.indexOf(src.id());
+		int dstIndex = flowGraph.indexOf(dst.id());
+		if (srcIndex == -1 || dstIndex == -1)
+			return Collections.emptyList();
+
+		Map<Integer, Vertex> loaded = new HashMap<Integer, Vertex>();
+		loaded.put(srcIndex, src);
+		loaded.put(dstIndex, dst);
+
+		BitSet defs = flowGraph.definitionsOf(symbol);
+		BitSet sanitizerChecked = new BitSet(flowGraph.size());
+		BitSet sanitizers = new BitSet(flowGraph.size());
+		BitSet visited = new BitSet(flowGraph.size());
+		int[] predecessor = new int[flowGraph.size()];
+
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		queue.add(srcIndex);
+		visited.set(srcIndex);
+
+		while (!queue.isEmpty())
+		{
+			EvaluationToken.checkCurrent();
+
+			int current = queue.removeFirst();
+			for (int succ : flowGraph.successors(current))
+			{
+				if (visited.get(succ))
+					continue;
+				visited.set(succ);
+
+				if (defs.get(succ))
+					continue;
+
+				if (!sanitizerChecked.get(succ))
+				{
+					sanitizerChecked.set(succ);
+					if (sanitizer.test(vertex(flowGraph, succ, loaded), symbol))
+						sanitizers.set(succ);
+				}
+				if (sanitizers.get(succ))
+					continue;
+
+				predecessor[succ] = current;
+				if (succ == dstIndex)
+					return toPath(flowGraph, predecessor, srcIndex, dstIndex,
+							loaded);
+				queue.add(succ);
+			}
+		}
+
+		return Collections.emptyList();
+	}
+
+	private List<Vertex> toPath(FunctionFlowGraph flowGraph,
+			int[] predecessor, int srcIndex, int dstIndex,
+			Map<Integer, Vertex> loaded)
+	{
+		LinkedList<Integer> indices = new LinkedList<Integer>();
+		for (int i = dstIndex; i != srcIndex; i = predecessor[i])
+			indices.addFirst(i);
+		indices.addFirst(srcIndex);
+
+		List<Vertex> path = new ArrayList<Vertex>(indices.size());
+		for (int index : indices)
+			path.add(vertex(flowGraph, index, loaded));
+		return path;
+	}
+
+	private Vertex vertex(FunctionFlowGraph flowGraph, int index,
+			Map<Integer, Vertex> loaded)
+	{
+		return loaded.computeIfAbsent(index,
+				i -> graph.vertices(flowGraph.idOf(i)).next());
+	}
+
+	private String functionIdOf(Vertex vertex)
+	{
+		VertexProperty<Object> property = vertex.property(NODE_FUNCTION_ID);
+		if (!property.isPresent())
+			return null;
+		return property.value().toString();
+	}
+
+}
@@ -0,0 +1,133 @@
+package joern.taintTracking.initGraphs;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A graphlet, referred to as `local def tree` in the paper. It is
+ * rooted at a call node that is linked to its argument nodes. These
+ * are in turn linked to the variables they use, and variables are
+ * linked to the statements defining them.
+ *
+ * All nodes are represented by their ids. Properties are exposed as
+ * bean properties so that graphlets can be used from Groovy exactly
+ * like the graphlets formerly created in Groovy.
+ * */
+
+public class Graphlet
+{
+	/** edges of the local def tree and from conditions to the variables they use */
+	private Map<Object, List<Object>> edges = new HashMap<Object, List<Object>>();
+
+	/** edges from leaves to [argument id, graphlet index] pairs */
+	private Map<Object, List<List<Object>>> extEdges = new HashMap<Object, List<List<Object>>>();
+
+	private List<Object> leaves = new LinkedList<Object>();
+	private List<Object> args = new LinkedList<Object>();
+	private List<Object> conditions = new LinkedList<Object>();
+	private Map<Object, List<Object>> argToCnd = new HashMap<Object, List<Object>>();
+	private Map<Object, Object> cndIdToObject = new HashMap<Object, Object>();
+
+	/**
+	 * Copy the graphlet. Collections are copied one level deep, which
+	 * is sufficient for the modifications performed on graphlets
+	 * during creation and decompression of initialization graphs.
+	 * */
+
+	public Graphlet copy()
+	{
+		Graphlet copy = new Graphlet();
+		copy.edges = copyMap(edges);
+		copy.extEdges = new HashMap<Object, List<List<Object>>>();
+		for (Map.Entry<Object, List<List<Object>>> entry : extEdges.entrySet())
+			copy.extEdges.put(entry.getKey(),
+					new LinkedList<List<Object>>(entry.getValue()));
+		copy.leaves = new LinkedList<Object>(leaves);
+		copy.args = new LinkedList<Object>(args);
+		copy.conditions = new LinkedList<Object>(conditions);
+		copy.argToCnd = copyMap(argToCnd);
+		copy.cndIdToObject = new HashMap<Object, Object>(cndIdToObject);
+		return copy;
+	}
+
+	private static Map<Object, List<Object>> copyMap(Map<Object, List<Object>> map)
+	{
+		Map<Object, List<Object>> copy = new HashMap<Object, List<Object>>();
+		for (Map.Entry<Object, List<Object>> entry : map.entrySet())
+			copy.put(entry.getKey(), new LinkedList<Object>(entry.getValue()));
+		return copy;
+	}
+
+	public Map<Object, List<Object>> getEdges()
+	{
+		return edges;
+	}
+
+	public void setEdges(Map<Object, List<Object>> edges)
+	{
+		this.edges = edges;
+	}
+
+	public Map<Object, List<List<Object>>> getExtEdges()
+	{
+		return extEdges;
+	}
+
+	public void setExtEdges(Map<Object, List<List<Object>>> extEdges)
+	{
+		this.extEdges = extEdges;
+	}
+
+	public List<Object> getLeaves()
+	{
+		return leaves;
+	}
+
+	public void setLeaves(List<Object> leaves)
+	{
+		this.leaves = leaves;
+	}
+
+	public List<Object> getArgs()
+	{
+		return args;
+	}
+
+	public void setArgs(List<Object> args)
+	{
+		this.args = args;
+	}
+
+	public List<Object> getConditions()
+	{
+		return conditions;
+	}
+
+	public void setConditions(List<Object> conditions)
+	{
+		this.conditions = conditions;
+	}
+
+	public Map<Object, List<Object>> getArgToCnd()
+	{
+		return argToCnd;
+	}
+
+	public void setArgToCnd(Map<Object, List<Object>> argToCnd)
+	{
+		this.argToCnd = argToCnd;
+	}
+
+	public Map<Object, Object> getCndIdToObject()
+	{
+		return cndIdToObject;
+	}
+
+	public void setCndIdToObject(Map<Object, Object> cndIdToObject)
+	{
+		this.cndIdToObject = cndIdToObject;
+	}
+
+}
@@ -0,0 +1,53 @@
+package joern.taintTracking.initGraphs;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The initialization graph of a call site: the graphlets of the
+ * call site and of its callers, as created by `InitGraphBuilder`.
+ * The graphlet at index 0 belongs to the call site itself.
+ * */
+
+public class InitGraph
+{
+	private List<Graphlet> graphlets;
+	private List<Object> invocations = new LinkedList<Object>();
+	private Object callSiteId;
+
+	public InitGraph(List<Graphlet> graphlets)
+	{
+		this.graphlets = new LinkedList<Graphlet>(graphlets);
+	}
+
+	public List<Graphlet> getGraphlets()
+	{
+		return graphlets;
+	}
+
+	public void setGraphlets(List<Graphlet> graphlets)
+	{
+		this.graphlets = graphlets;
+	}
+
+	public List<Object> getInvocations()
+	{
+		return invocations;
+	}
+
+	public void setInvocations(List<Object> invocations)
+	{
+		this.invocations = invocations;
+	}
+
+	public Object getCallSiteId()
+	{
+		return callSiteId;
+	}
+
+	public void setCallSiteId(Object callSiteId)
+	{
+		this.callSiteId = callSiteId;
+	}
+
+}
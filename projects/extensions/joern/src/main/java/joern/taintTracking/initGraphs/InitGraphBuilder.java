@@ -0,0 +1,413 @@
+package joern.taintTracking.initGraphs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+
+/**
+ * Creates initialization graphs (see `taintTracking/initGraphs` in
+ * joern-lang and the algorithm for initialization graph creation in
+ * the paper). This replaces the former Groovy implementation of
+ * `createInitGraph` and `taintGraph_`, which is reachable from the
+ * shell under the same names.
+ *
+ * Callers are found via the IS_ARG edges created at import (see
+ * joern.callGraph.CallGraphLinker). A builder memoizes graphlets per
+ * argument set. When the argument set consists of arguments bound to
+ * the parameters of a callee, the memoized graphlet is shared by all
+ * call sites whose initialization graphs reach that callee. One
+ * builder should therefore be used for all call sites of a sink,
+ * ideally via `createInitGraphs`, which reads the arguments of all
+ * call sites in one query and processes call sites in parallel.
+ *
+ * Builders cache database contents and should not outlive a query.
+ * A builder created during an evaluation on a shell stops, on all of
+ * its threads, once the evaluation is cancelled.
+ * */
+
+public class InitGraphBuilder
+{
+	/** Maximum depth of the interprocedural expansion */
+	public static final int MAX_DEPTH = 4;
+
+	private static final int DEF_STMT_CONDITION_ORDER = 1;
+	private static final int CALL_SITE_CONDITION_ORDER = 3;
+
+	private final Graph graph;
+	private final InitGraphQueries queries;
+	private final int nThreads;
+	private final EvaluationToken token;
+
+	private final Map<List<Object>, Graphlet> argSetToGraphlet = new ConcurrentHashMap<List<Object>, Graphlet>();
+
+	public InitGraphBuilder(Graph graph)
+	{
+		this(graph, Runtime.getRuntime().availableProcessors());
+	}
+
+	public InitGraphBuilder(Graph graph, int nThreads)
+	{
+		this.graph = graph;
+		this.queries = new InitGraphQueries(graph);
+		this.nThreads = nThreads;
+		this.token = EvaluationToken.current();
+	}
+
+	/**
+	 * Entry point for the creation of the initialization graph of a
+	 * single call site.
+	 *
+	 * @param callSite id of a CallExpression node, or the node itself
+	 * */
+
+	public InitGraph createInitGraph(Object callSite)
+	{
+		Object callSiteId = idOf(callSite);
+		return createInitGraph(callSiteId,
+				queries.callToArguments(callSiteId));
+	}
+
+	/**
+	 * Create the initialization graphs of several call sites, in
+	 * parallel. The graphs are returned in the order of the given
+	 * call sites.
+	 * */
+
+	public List<InitGraph> createInitGraphs(Collection<?> callSites)
+	{
+		List<Object> callSiteIds = new ArrayList<Object>();
+		for (Object callSite : callSites)
+			callSiteIds.add(idOf(callSite));
+
+		Map<Object, List<Object>> callToArgs = queries
+				.callToArguments(new LinkedHashSet<Object>(callSiteIds));
+
+		int poolSize = Math.max(1, Math.min(nThreads, callSiteIds.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+
+		try
+		{
+			List<Future<InitGraph>> futures = new LinkedList<Future<InitGraph>>();
+			for (Object callSiteId : callSiteIds)
+			{
+				futures.add(pool.submit(() -> {
+					try
+					{
+						return createInitGraph(callSiteId,
+								callToArgs.get(callSiteId));
+					} finally
+					{
+						closeThreadTransaction();
+					}
+				}));
+			}
+
+			List<InitGraph> initGraphs = new LinkedList<InitGraph>();
+			for (Future<InitGraph> future : futures)
+				initGraphs.add(future.get());
+			return initGraphs;
+
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private InitGraph createInitGraph(Object callSiteId, List<Object> argSet)
+	{
+		InitGraph initGraph = new InitGraph(taintGraph(argSet,
+				new HashSet<Object>(), 0, 0));
+		initGraph.setCallSiteId(callSiteId);
+		return initGraph;
+	}
+
+	/**
+	 * Recursively create the graphlets for a set of arguments of a
+	 * call and for the arguments passed to the enclosing function by
+	 * its callers.
+	 *
+	 * @param visited ids of calls already expanded on this path
+	 * @param curIdOffset index the graphlet of `argSet` receives
+	 * */
+
+	public List<Graphlet> taintGraph(List<?> argSet, Collection<?> visited,
+			int curIdOffset, int depth)
+	{
+		List<Graphlet> retval = new LinkedList<Graphlet>();
+
+		if (argSet.size() == 0 || depth == MAX_DEPTH)
+			return retval;
+
+		checkCancelled();
+
+		List<Object> argIds = new ArrayList<Object>();
+		for (Object arg : argSet)
+			argIds.add(idOf(arg));
+
+		Object callId = queries.argToCall(argIds.get(0));
+		if (visited.contains(callId))
+			return retval;
+
+		Graphlet graphlet = createGraphlet(argIds, callId);
+
+		// Leaves are unique, so each parameter node is its own and
+		// only leaf.
+
+		List<Object> paramNodes = new LinkedList<Object>();
+		for (Object leaf : graphlet.getLeaves())
+		{
+			InitGraphQueries.NodeInfo info = queries.node(leaf);
+			if (!InitGraphQueries.TYPE_PARAMETER.equals(info.type))
+				continue;
+			paramNodes.add(leaf);
+		}
+
+		Map<Object, List<List<Object>>> extEdges = new HashMap<Object, List<List<Object>>>();
+		graphlet.setExtEdges(extEdges);
+
+		if (paramNodes.size() == 0)
+		{
+			retval.add(graphlet);
+			return retval;
+		}
+
+		Set<Object> newVisited = new HashSet<Object>(visited);
+		newVisited.add(callId);
+
+		// transform parameter nodes to argument nodes of the callers
+
+		for (List<Object> newArgNodes : queries.callerArguments(paramNodes)
+				.values())
+		{
+			// Unable to find args for all params, skip this caller.
+			if (newArgNodes.contains(null))
+				continue;
+
+			List<Graphlet> graphlets = taintGraph(newArgNodes, newVisited,
+					curIdOffset + 1, depth + 1);
+			retval.addAll(graphlets);
+
+			if (graphlets.size() == 0)
+				continue;
+
+			// add edges from leaves to argument nodes
+
+			for (int i = 0; i < paramNodes.size(); i++)
+			{
+				List<Object> extEdge = new ArrayList<Object>(2);
+				extEdge.add(newArgNodes.get(i));
+				extEdge.add(curIdOffset + 1);
+				extEdges.computeIfAbsent(paramNodes.get(i),
+						k -> new LinkedList<List<Object>>()).add(extEdge);
+			}
+			curIdOffset += graphlets.size();
+		}
+
+		retval.add(0, graphlet);
+		return retval;
+	}
+
+	/**
+	 * Create the graphlet for a set of arguments of the call with id
+	 * `callId`. Graphlets are memoized per argument set, a copy is
+	 * returned.
+	 * */
+
+	public Graphlet createGraphlet(List<?> argSet, Object callId)
+	{
+		List<Object> key = new ArrayList<Object>(argSet);
+		Graphlet graphlet = argSetToGraphlet.get(key);
+		if (graphlet == null)
+		{
+			graphlet = computeGraphlet(key, callId);
+			argSetToGraphlet.putIfAbsent(key, graphlet);
+		}
+		return graphlet.copy();
+	}
+
+	private Graphlet computeGraphlet(List<Object> argSet, Object callId)
+	{
+		List<List<Object>> vars = new ArrayList<List<Object>>();
+		Map<Object, List<Object>> defStmts = new LinkedHashMap<Object, List<Object>>();
+		varsAndDefStmts(argSet, vars, defStmts);
+
+		List<Object> allDefStmts = new LinkedList<Object>();
+		for (List<Object> stmts : defStmts.values())
+			allDefStmts.addAll(stmts);
+
+		// Pairs of (sub-)conditions and the symbols used by the entire
+		// condition, first for def statements, then for the call site.
+
+		List<Object> conditions = new LinkedList<Object>();
+		List<List<Object>> conditionSymbols = new LinkedList<List<Object>>();
+		addConditions(
+				queries.controllingConditions(allDefStmts,
+						DEF_STMT_CONDITION_ORDER), conditions,
+				conditionSymbols);
+		addConditions(
+				queries.controllingConditions(argSet.subList(0, 1),
+						CALL_SITE_CONDITION_ORDER), conditions,
+				conditionSymbols);
+
+		Map<Object, List<Object>> edges = new HashMap<Object, List<Object>>();
+
+		// create edges from conditions to variables it uses.
+
+		for (int i = 0; i < conditions.size(); i++)
+			edges.put(conditions.get(i),
+					new LinkedList<Object>(conditionSymbols.get(i)));
+
+		edges.put(callId, new LinkedList<Object>(argSet));
+
+		for (int i = 0; i < argSet.size(); i++)
+			edges.computeIfAbsent(argSet.get(i), k -> new LinkedList<Object>())
+					.addAll(vars.get(i));
+
+		for (Map.Entry<Object, List<Object>> entry : defStmts.entrySet())
+			edges.computeIfAbsent(entry.getKey(), k -> new LinkedList<Object>())
+					.addAll(entry.getValue());
+
+		// create map from conditions to arguments that consume a
+		// variable used in the condition
+
+		Map<Object, List<Object>> argToCnd = new HashMap<Object, List<Object>>();
+		for (Object arg : argSet)
+		{
+			List<Object> cnds = new LinkedList<Object>();
+			for (Object cond : conditions)
+			{
+				if (!Collections.disjoint(edges.get(cond),
+						edges.get(arg)))
+					cnds.add(cond);
+			}
+			argToCnd.put(arg, cnds);
+		}
+
+		Graphlet graphlet = new Graphlet();
+		graphlet.setArgs(new LinkedList<Object>(argSet));
+		graphlet.setEdges(edges);
+		graphlet.setLeaves(new LinkedList<Object>(sortedUnique(allDefStmts)));
+		graphlet.setConditions(conditions);
+		graphlet.setArgToCnd(argToCnd);
+		return graphlet;
+	}
+
+	private void addConditions(List<Object> controllingConditions,
+			List<Object> conditions, List<List<Object>> conditionSymbols)
+	{
+		List<Object> sortedConditions = new LinkedList<Object>();
+		Map<Object, List<Object>> symbolsForSubCondition = new HashMap<Object, List<Object>>();
+
+		for (Object condition : controllingConditions)
+		{
+			List<Object> symbolsUsed = queries.usesFiltered(condition);
+			for (Object subCondition : queries.subConditions(condition))
+			{
+				sortedConditions.add(subCondition);
+				symbolsForSubCondition.put(subCondition, symbolsUsed);
+			}
+		}
+
+		sortedConditions.sort(InitGraphQueries.byId());
+		for (Object subCondition : sortedConditions)
+		{
+			conditions.add(subCondition);
+			conditionSymbols.add(symbolsForSubCondition.get(subCondition));
+		}
+	}
+
+	/**
+	 * For each argument, determine the variables it uses and, for
+	 * each of these, the statements directly defining it.
+	 * */
+
+	private void varsAndDefStmts(List<Object> argSet, List<List<Object>> vars,
+			Map<Object, List<Object>> defStmts)
+	{
+		for (Object arg : argSet)
+		{
+			InitGraphQueries.NodeInfo node = queries.node(arg);
+			List<Object> symbolNodeIds = queries.usesFiltered(arg);
+
+			Object statementId;
+			if (InitGraphQueries.TYPE_ARGUMENT.equals(node.type))
+				statementId = queries.argToCall(arg);
+			else
+				statementId = queries.statementOf(arg);
+
+			for (Object symbolNodeId : symbolNodeIds)
+			{
+				String varCode = queries.node(symbolNodeId).code;
+				List<Object> defs = queries.directDefs(statementId, varCode);
+				if (defs.isEmpty())
+					continue;
+
+				List<Object> defsForSymbol = defStmts.computeIfAbsent(
+						symbolNodeId, k -> new LinkedList<Object>());
+				for (Object def : defs)
+				{
+					if (!defsForSymbol.contains(def))
+						defsForSymbol.add(def);
+				}
+			}
+
+			vars.add(new LinkedList<Object>(symbolNodeIds));
+		}
+	}
+
+	private static Collection<Object> sortedUnique(Collection<Object> ids)
+	{
+		TreeSet<Object> set = new TreeSet<Object>(InitGraphQueries.byId());
+		set.addAll(ids);
+		return set;
+	}
+
+	private void checkCancelled()
+	{
+		if (token != null)
+			token.checkCancelled();
+	}
+
+	private void closeThreadTransaction()
+	{
+		if (graph.features().graph().supportsTransactions()
+				&& graph.tx().isOpen())
+			graph.tx().rollback();
+	}
+
+	private static Object idOf(Object node)
+	{
+		if (node instanceof Element)
+			return ((Element) node).id();
+		return node;
+	}
+
+}
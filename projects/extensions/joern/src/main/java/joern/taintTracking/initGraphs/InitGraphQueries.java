@@ -0,0 +1,364 @@
+package joern.taintTracking.initGraphs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+
+import joern.callGraph.CallGraphLinker;
+
+/**
+ * Database reads required for the creation of initialization graphs.
+ * Each corresponds to a joern-lang step (given in parentheses).
+ *
+ * Node properties and the results of repeated lookups are cached.
+ * Caches are thread-safe and hold ids and property values only, so
+ * that a single instance can serve several threads, each of which
+ * reads in its own transaction.
+ * */
+
+class InitGraphQueries
+{
+	static final String NODE_TYPE = "type";
+	static final String NODE_CODE = "code";
+	static final String NODE_CHILDNUM = "childNum";
+	static final String NODE_ISCFGNODE = "isCFGNode";
+
+	static final String TYPE_ARGLIST = "ArgumentList";
+	static final String TYPE_ARGUMENT = "Argument";
+	static final String TYPE_CONDITION = "Condition";
+	static final String TYPE_PARAMETER = "Parameter";
+	static final String TYPE_OR = "OrExpression";
+	static final String TYPE_AND = "AndExpression";
+
+	static final String AST_EDGE = "IS_AST_PARENT";
+	static final String USES_EDGE = "USE";
+	static final String DATA_FLOW_EDGE = "REACHES";
+	static final String CONTROLS_EDGE = "CONTROLS";
+	static final String ARG_EDGE = CallGraphLinker.IS_ARG_EDGE;
+	static final String DATA_FLOW_SYMBOL = "var";
+
+	private final GraphTraversalSource g;
+
+	private final Map<Object, NodeInfo> nodes = new ConcurrentHashMap<Object, NodeInfo>();
+	private final Map<Object, Object> nodeToParent = new ConcurrentHashMap<Object, Object>();
+	private final Map<Object, List<Object>> nodeToUsesFiltered = new ConcurrentHashMap<Object, List<Object>>();
+
+	static class NodeInfo
+	{
+		final String type;
+		final String code;
+		final String childNum;
+		final String isCFGNode;
+
+		NodeInfo(Vertex vertex)
+		{
+			type = value(vertex, NODE_TYPE);
+			code = value(vertex, NODE_CODE);
+			childNum = value(vertex, NODE_CHILDNUM);
+			isCFGNode = value(vertex, NODE_ISCFGNODE);
+		}
+
+		private static String value(Vertex vertex, String key)
+		{
+			VertexProperty<Object> property = vertex.property(key);
+			if (!property.isPresent())
+				return null;
+			return property.value().toString();
+		}
+	}
+
+	InitGraphQueries(Graph graph)
+	{
+		g = graph.traversal();
+	}
+
+	NodeInfo node(Object id)
+	{
+		NodeInfo info = nodes.get(id);
+		if (info != null)
+			return info;
+
+		prefetch(Collections.singletonList(id));
+		info = nodes.get(id);
+		if (info == null)
+			throw new IllegalArgumentException("No such node: " + id);
+		return info;
+	}
+
+	/**
+	 * Load properties of all given nodes that are not cached yet
+	 * with a single query.
+	 * */
+
+	void prefetch(Collection<?> ids)
+	{
+		List<Object> missing = new ArrayList<Object>();
+		for (Object id : ids)
+		{
+			if (!nodes.containsKey(id))
+				missing.add(id);
+		}
+		if (missing.isEmpty())
+			return;
+
+		g.V(missing.toArray()).forEachRemaining(vertex -> nodes.put(
+				vertex.id(), new NodeInfo(vertex)));
+	}
+
+	/**
+	 * Arguments of each of the given calls, ordered by position
+	 * (callToArguments). The arguments of all calls are retrieved
+	 * with a single traversal.
+	 * */
+
+	Map<Object, List<Object>> callToArguments(Collection<?> callIds)
+	{
+		Map<Object, List<Object>> callToArgs = new HashMap<Object, List<Object>>();
+		for (Object callId : callIds)
+			callToArgs.put(callId, new ArrayList<Object>());
+
+		if (callIds.isEmpty())
+			return callToArgs;
+
+		g.V(callIds.toArray()).as("call").out(AST_EDGE)
+				.has(NODE_TYPE, TYPE_ARGLIST).as("argList").out(AST_EDGE)
+				.as("arg").select("call", "argList", "arg")
+				.forEachRemaining(path -> {
+					Object callId = ((Vertex) path.get("call")).id();
+					Object argListId = ((Vertex) path.get("argList")).id();
+					Vertex arg = (Vertex) path.get("arg");
+					nodes.put(arg.id(), new NodeInfo(arg));
+					nodeToParent.put(arg.id(), argListId);
+					nodeToParent.put(argListId, callId);
+					callToArgs.get(callId).add(arg.id());
+				});
+
+		for (List<Object> args : callToArgs.values())
+			args.sort(byChildNum());
+		return callToArgs;
+	}
+
+	List<Object> callToArguments(Object callId)
+	{
+		return callToArguments(Collections.singletonList(callId)).get(callId);
+	}
+
+	/**
+	 * The call an argument belongs to (argToCall).
+	 * */
+
+	Object argToCall(Object argId)
+	{
+		Object argList = parent(argId);
+		return argList == null ? null : parent(argList);
+	}
+
+	/**
+	 * The statement enclosing an AST node, which may be the node
+	 * itself (statements).
+	 * */
+
+	Object statementOf(Object id)
+	{
+		Object current = id;
+		while (current != null && !"True".equals(node(current).isCFGNode))
+			current = parent(current);
+		return current;
+	}
+
+	private Object parent(Object id)
+	{
+		Object parent = nodeToParent.get(id);
+		if (parent != null)
+			return parent;
+
+		List<Object> parents = g.V(id).in(AST_EDGE).id().toList();
+		if (parents.isEmpty())
+			return null;
+		nodeToParent.put(id, parents.get(0));
+		return parents.get(0);
+	}
+
+	/**
+	 * Symbols used by a node, omitting symbols that are part of
+	 * other, longer symbols used by the node (usesFiltered).
+	 * */
+
+	List<Object> usesFiltered(Object id)
+	{
+		List<Object> uses = nodeToUsesFiltered.get(id);
+		if (uses != null)
+			return uses;
+
+		List<Vertex> symbols = g.V(id).out(USES_EDGE).toList();
+		for (Vertex symbol : symbols)
+			nodes.putIfAbsent(symbol.id(), new NodeInfo(symbol));
+
+		symbols.sort(Comparator.comparingInt(symbol -> node(symbol.id()).code
+				.length()));
+		Collections.reverse(symbols);
+
+		List<String> acceptedCodes = new LinkedList<String>();
+		Set<Object> accepted = new LinkedHashSet<Object>();
+		for (Vertex symbol : symbols)
+		{
+			String code = node(symbol.id()).code;
+			boolean contained = false;
+			for (String acceptedCode : acceptedCodes)
+				contained |= acceptedCode.contains(code);
+			if (contained)
+				continue;
+			acceptedCodes.add(code);
+			accepted.add(symbol.id());
+		}
+
+		uses = new ArrayList<Object>(accepted);
+		nodeToUsesFiltered.put(id, uses);
+		return uses;
+	}
+
+	/**
+	 * Statements whose definition of `variable` reaches the statement
+	 * enclosing the given node, ordered by id (directDefs).
+	 * */
+
+	List<Object> directDefs(Object id, String variable)
+	{
+		Object statementId = statementOf(id);
+		if (statementId == null)
+			return new LinkedList<Object>();
+
+		List<Object> defs = g.V(statementId).inE(DATA_FLOW_EDGE)
+				.has(DATA_FLOW_SYMBOL, variable).outV().id().toList();
+		defs.removeIf(defId -> defId.equals(statementId));
+		defs.sort(byId());
+		return defs;
+	}
+
+	/**
+	 * Conditions controlling the statements enclosing the given nodes
+	 * within `order` steps in the control dependence graph
+	 * (controllingConditions). Each condition is reported once.
+	 * */
+
+	List<Object> controllingConditions(Collection<?> ids, int order)
+	{
+		Set<Object> conditions = new LinkedHashSet<Object>();
+		Set<Object> frontier = new LinkedHashSet<Object>();
+		for (Object id : ids)
+		{
+			Object statementId = statementOf(id);
+			if (statementId != null)
+				frontier.add(statementId);
+		}
+
+		Set<Object> visited = new HashSet<Object>(frontier);
+		for (int i = 0; i < order && !frontier.isEmpty(); i++)
+		{
+			List<Vertex> controllers = g.V(frontier.toArray())
+					.in(CONTROLS_EDGE).toList();
+			frontier = new LinkedHashSet<Object>();
+			for (Vertex controller : controllers)
+			{
+				nodes.putIfAbsent(controller.id(), new NodeInfo(controller));
+				if (TYPE_CONDITION.equals(node(controller.id()).type))
+					conditions.add(controller.id());
+				if (visited.add(controller.id()))
+					frontier.add(controller.id());
+			}
+		}
+		return new ArrayList<Object>(conditions);
+	}
+
+	/**
+	 * All sub-conditions of a condition: its first child and the
+	 * operands of all boolean operators it contains (subConditions).
+	 * */
+
+	List<Object> subConditions(Object conditionId)
+	{
+		List<Object> subConditions = new LinkedList<Object>();
+
+		List<Object> children = g.V(conditionId).out(AST_EDGE).id().toList();
+		if (children.isEmpty())
+			return subConditions;
+		prefetch(children);
+		children.sort(byChildNum());
+		subConditions.add(children.get(0));
+
+		List<Object> operands = g.V(conditionId).emit()
+				.repeat(__.out(AST_EDGE))
+				.has(NODE_TYPE, P.within(TYPE_OR, TYPE_AND))
+				.out(AST_EDGE).id().toList();
+		operands.sort(byId());
+		subConditions.addAll(operands);
+		return subConditions;
+	}
+
+	/**
+	 * Arguments bound to the given parameters at each call of their
+	 * function, read from the IS_ARG edges created at import
+	 * (parameterToCallerArgs). Calls are ordered by id, and the
+	 * arguments of each call are aligned with `paramIds`. Arguments
+	 * missing at a call are null.
+	 * */
+
+	Map<Object, List<Object>> callerArguments(List<Object> paramIds)
+	{
+		Map<Object, List<Object>> callToArgs = new TreeMap<Object, List<Object>>(
+				byId());
+		if (paramIds.isEmpty())
+			return callToArgs;
+
+		Map<Object, Integer> paramToIndex = new HashMap<Object, Integer>();
+		for (int i = 0; i < paramIds.size(); i++)
+			paramToIndex.put(paramIds.get(i), i);
+
+		g.V(paramIds.toArray()).as("param").in(ARG_EDGE).as("arg")
+				.select("param", "arg").forEachRemaining(pair -> {
+					Object paramId = ((Vertex) pair.get("param")).id();
+					Object argId = ((Vertex) pair.get("arg")).id();
+					Object callId = argToCall(argId);
+					if (callId == null)
+						return;
+					List<Object> args = callToArgs.computeIfAbsent(callId,
+							k -> new ArrayList<Object>(Collections.nCopies(
+									paramIds.size(), null)));
+					args.set(paramToIndex.get(paramId), argId);
+				});
+		return callToArgs;
+	}
+
+	private Comparator<Object> byChildNum()
+	{
+		return Comparator.comparingInt(id -> {
+			String childNum = node(id).childNum;
+			return childNum == null ? Integer.MAX_VALUE : Integer
+					.parseInt(childNum);
+		});
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Comparator<Object> byId()
+	{
+		return (a, b) -> ((Comparable) a).compareTo(b);
+	}
+
+}
@@ -1,16 +1,38 @@
 package ast;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.Map;
 
 import ast.expressions.Expression;
 import ast.walking.ASTNodeVisitor;
 
+/**
+ * Base class of all AST nodes.
+ *
+ * Nodes are kept compact, as entire translation units are held in
+ * memory while parsing and exporting: the code string and node id
+ * (which nearly every node has) are stored in fields of their own, and
+ * other properties in a small array that is only allocated when
+ * needed. Short code strings are interned, as the same identifiers and
+ * operators occur over and over. The location is stored in primitive
+ * fields and materialized by getLocation.
+ */
+
 public class ASTNode
 {
-	private Map<String, String> properties;
-	private CodeLocation location = new CodeLocation();
+	private static final int INTERN_MAX_LENGTH = 64;
+	private static final long NO_NODE_ID = Long.MIN_VALUE;
+
+	private String code;
+	private long nodeId = NO_NODE_ID;
+	// Further properties as alternating keys and values
+	private String[] properties;
+
+	private int startLine = CodeLocation.NOT_SET;
+	private int endLine = CodeLocation.NOT_SET;
+	private int startPos = CodeLocation.NOT_SET;
+	private int startIndex = CodeLocation.NOT_SET;
+	private int stopIndex = CodeLocation.NOT_SET;
 
 	private boolean isInCFG = false;
 
@@ -35,8 +57,14 @@ public class ASTNode
 
 	private void copyAttributes(ASTNode otherNode)
 	{
-		setCodeStr(otherNode.getCodeStr());
-		location = otherNode.location;
+		// Only the code and the location, not the node id or other
+		// properties
+		code = otherNode.code;
+		startLine = otherNode.startLine;
+		endLine = otherNode.endLine;
+		startPos = otherNode.startPos;
+		startIndex = otherNode.startIndex;
+		stopIndex = otherNode.stopIndex;
 		setChildNumber(otherNode.childNumber);
 		if (otherNode.isInCFG())
 			markAsCFGNode();
@@ -53,6 +81,41 @@ public class ASTNode
 		}
 	}
 
+	private int indexOfProperty(String key)
+	{
+		if (properties == null)
+			return -1;
+		for (int i = 0; i < properties.length; i += 2)
+		{
+			if (properties[i].equals(key))
+				return i;
+		}
+		return -1;
+	}
+
+	private static String intern(String s)
+	{
+		if (s == null || s.length() > INTERN_MAX_LENGTH)
+			return s;
+		return s.intern();
+	}
+
+	private static long parseNodeId(String val)
+	{
+		if (val == null)
+			return NO_NODE_ID;
+		try
+		{
+			long id = Long.parseLong(val);
+			// Only ids that are stored as given
+			if (id != NO_NODE_ID && Long.toString(id).equals(val))
+				return id;
+		} catch (NumberFormatException e)
+		{
+		}
+		return NO_NODE_ID;
+	}
+
 
 	/* methods for handling children */
 
@@ -73,23 +136,14 @@ public class ASTNode
 
 	public boolean isLeaf()
 	{
-		return (children.size() == 0);
+		return (getChildCount() == 0);
 	}
 
 	public ASTNode getChild(int i)
 	{
-		if (children == null)
-			return null;
-
-		ASTNode retval;
-		try
-		{
-			retval = children.get(i);
-		} catch (IndexOutOfBoundsException ex)
-		{
+		if (i < 0 || i >= getChildCount())
 			return null;
-		}
-		return retval;
+		return children.get(i);
 	}
 
 	public ASTNode popLastChild()
@@ -102,21 +156,59 @@ public class ASTNode
 
 	public String getProperty(String key)
 	{
-		if (properties == null)
-			return null;
+		if (ASTNodeProperties.CODE.equals(key))
+			return code;
+		if (ASTNodeProperties.NODE_ID.equals(key) && nodeId != NO_NODE_ID)
+			return Long.toString(nodeId);
 
-		String retval = properties.get(key);
-		if (retval == null)
+		int i = indexOfProperty(key);
+		if (i < 0)
 			return null;
-		return retval;
+		return properties[i + 1];
 	}
 
 	public void setProperty(String key, String val)
 	{
+		if (ASTNodeProperties.CODE.equals(key))
+		{
+			code = intern(val);
+			return;
+		}
+		if (ASTNodeProperties.NODE_ID.equals(key))
+		{
+			nodeId = parseNodeId(val);
+			if (nodeId != NO_NODE_ID || val == null)
+			{
+				removeProperty(key);
+				return;
+			}
+		}
+
+		int i = indexOfProperty(key);
+		if (i >= 0)
+		{
+			properties[i + 1] = val;
+			return;
+		}
+
 		if (properties == null)
-			properties = new HashMap<String, String>();
+			properties = new String[2];
+		else
+			properties = Arrays.copyOf(properties, properties.length + 2);
+		properties[properties.length - 2] = key;
+		properties[properties.length - 1] = val;
+	}
 
-		properties.put(key, val);
+	private void removeProperty(String key)
+	{
+		int i = indexOfProperty(key);
+		if (i < 0)
+			return;
+		String[] remaining = new String[properties.length - 2];
+		System.arraycopy(properties, 0, remaining, 0, i);
+		System.arraycopy(properties, i + 2, remaining, i,
+				properties.length - i - 2);
+		properties = remaining.length == 0 ? null : remaining;
 	}
 
 	public String getFlags() {
@@ -144,15 +236,18 @@ public class ASTNode
 
 	protected String getCodeStr()
 	{
-		return getProperty(ASTNodeProperties.CODE);
+		return code;
 	}
 
 	public void setCodeStr(String aCodeStr)
 	{
-		setProperty(ASTNodeProperties.CODE, aCodeStr);
+		code = intern(aCodeStr);
 	}
 
 	public Long getNodeId() {
+		if (nodeId != NO_NODE_ID)
+			return nodeId;
+
 		Long id;
 		try {
 			id = Long.parseLong(getProperty(ASTNodeProperties.NODE_ID));
@@ -172,17 +267,32 @@ public class ASTNode
 
 	public String getLocationString()
 	{
-		return this.location.toString();
+		return getLocation().toString();
 	}
 
+	/**
+	 * A copy of the location of this node. Changes to the returned
+	 * object do not affect the node, use setLocation.
+	 */
+
 	public CodeLocation getLocation()
 	{
-		return this.location;
+		CodeLocation location = new CodeLocation();
+		location.startLine = startLine;
+		location.endLine = endLine;
+		location.startPos = startPos;
+		location.startIndex = startIndex;
+		location.stopIndex = stopIndex;
+		return location;
 	}
 
 	public void setLocation(CodeLocation location)
 	{
-		this.location = location;
+		startLine = location.startLine;
+		endLine = location.endLine;
+		startPos = location.startPos;
+		startIndex = location.startIndex;
+		stopIndex = location.stopIndex;
 	}
 
 	public String getTypeAsString()
@@ -1,6 +1,7 @@
 package cdg;
 
 import graphutils.Edge;
+import cfg.BasicBlockCFG;
 import cfg.CFG;
 import cfg.nodes.CFGNode;
 import dom.DominatorTree;
@@ -86,4 +87,40 @@ public class CDGCreator
 		}
 		return cdg;
 	}
+
+	/**
+	 * Creates the control dependence graph of the function given by a
+	 * basic-block control flow graph and its post-dominator tree. The
+	 * dependences are computed between blocks and then expanded to the
+	 * nodes of the CFG the blocks have been built from: a block depends
+	 * on the branch that ends another block, and all of its nodes share
+	 * this dependence. The result equals that of create for the
+	 * original CFG.
+	 * 
+	 * @param cfg
+	 *            The basic-block control flow graph.
+	 * @param postdominatorTree
+	 *            The post-dominator tree of the basic-block control flow
+	 *            graph.
+	 * @return The control dependence graph of the original CFG.
+	 */
+	public static CDG createForBasicBlocks(BasicBlockCFG cfg,
+			DominatorTree<CFGNode> postdominatorTree)
+	{
+		CDG blockCDG = create(cfg, postdominatorTree);
+		CDG cdg = new CDG();
+		for (CFGNode node : cfg.getStatementCFG().getVertices())
+		{
+			cdg.addVertex(node);
+		}
+		for (CDGEdge edge : blockCDG.getEdges())
+		{
+			CFGNode condition = cfg.getLastNode(edge.getSource());
+			for (CFGNode node : cfg.getNodes(edge.getDestination()))
+			{
+				cdg.addEdge(condition, node);
+			}
+		}
+		return cdg;
+	}
 }
@@ -22,4 +22,10 @@ public class ASTToCFGConverter
 	{
 		return factory.newInstance(node);
 	}
+
+	public BasicBlockCFG convertToBasicBlocks(FunctionDefBase node)
+	{
+		// compact CFG mode: straight-line code is merged into basic blocks
+		return new BasicBlockCFG(convert(node));
+	}
 }
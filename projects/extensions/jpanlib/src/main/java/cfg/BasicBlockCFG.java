@@ -0,0 +1,151 @@
+package cfg;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cfg.nodes.BasicBlock;
+import cfg.nodes.CFGNode;
+
+/**
+ * A compact form of a CFG, in which straight-line sequences of nodes
+ * are merged into basic blocks. The entry and exit nodes are those of
+ * the original CFG, and every other node of the original CFG belongs to
+ * exactly one block. Two consecutive nodes are merged if the edge
+ * between them is unlabeled and is the only outgoing edge of the first
+ * and the only incoming edge of the second node. Edges between blocks
+ * carry the labels of the original edges.
+ */
+
+public class BasicBlockCFG extends CFG
+{
+	private CFG statementCFG;
+	private Map<CFGNode, BasicBlock> blocks = new HashMap<CFGNode, BasicBlock>();
+
+	public BasicBlockCFG(CFG cfg)
+	{
+		super(cfg.getEntryNode(), cfg.getExitNode());
+		statementCFG = cfg;
+
+		for (CFGNode node : cfg.getVertices())
+		{
+			if (!isEntryOrExit(node) && getPredecessorInBlock(node) == null)
+				createBlock(node);
+		}
+		// Cycles of straight-line nodes have no node to start a block at
+		for (CFGNode node : cfg.getVertices())
+		{
+			if (!isEntryOrExit(node) && !blocks.containsKey(node))
+				createBlock(node);
+		}
+
+		addEdges(getEntryNode(), getEntryNode());
+		for (CFGNode vertex : getVertices())
+		{
+			if (vertex instanceof BasicBlock)
+				addEdges(vertex, ((BasicBlock) vertex).getLastNode());
+		}
+	}
+
+	/**
+	 * The CFG this CFG has been built from.
+	 */
+
+	public CFG getStatementCFG()
+	{
+		return statementCFG;
+	}
+
+	/**
+	 * The block a node of the original CFG belongs to. The entry and
+	 * exit nodes are their own blocks.
+	 */
+
+	public CFGNode getBlock(CFGNode node)
+	{
+		if (isEntryOrExit(node))
+			return node;
+		return blocks.get(node);
+	}
+
+	/**
+	 * The nodes of the original CFG a vertex of this CFG stands for, in
+	 * the order in which they are executed.
+	 */
+
+	public List<CFGNode> getNodes(CFGNode vertex)
+	{
+		if (vertex instanceof BasicBlock)
+			return ((BasicBlock) vertex).getNodes();
+		return Collections.singletonList(vertex);
+	}
+
+	public CFGNode getFirstNode(CFGNode vertex)
+	{
+		if (vertex instanceof BasicBlock)
+			return ((BasicBlock) vertex).getFirstNode();
+		return vertex;
+	}
+
+	public CFGNode getLastNode(CFGNode vertex)
+	{
+		if (vertex instanceof BasicBlock)
+			return ((BasicBlock) vertex).getLastNode();
+		return vertex;
+	}
+
+	private void createBlock(CFGNode first)
+	{
+		BasicBlock block = new BasicBlock();
+		addVertex(block);
+
+		CFGNode node = first;
+		while (node != null)
+		{
+			block.addNode(node);
+			blocks.put(node, block);
+			node = getSuccessorInBlock(node);
+		}
+	}
+
+	private void addEdges(CFGNode vertex, CFGNode lastNode)
+	{
+		for (CFGEdge edge : statementCFG.outgoingEdges(lastNode))
+		{
+			addEdge(vertex, getBlock(edge.getDestination()), edge.getLabel());
+		}
+	}
+
+	private CFGNode getPredecessorInBlock(CFGNode node)
+	{
+		if (statementCFG.inDegree(node) != 1)
+			return null;
+		CFGEdge edge = statementCFG.incomingEdges(node).iterator().next();
+		CFGNode predecessor = edge.getSource();
+		if (predecessor == node || isEntryOrExit(predecessor)
+				|| !CFGEdge.EMPTY_LABEL.equals(edge.getLabel())
+				|| statementCFG.outDegree(predecessor) != 1)
+			return null;
+		return predecessor;
+	}
+
+	private CFGNode getSuccessorInBlock(CFGNode node)
+	{
+		if (statementCFG.outDegree(node) != 1)
+			return null;
+		CFGNode successor = statementCFG.outgoingEdges(node).iterator().next()
+				.getDestination();
+		if (isEntryOrExit(successor) || blocks.containsKey(successor)
+				|| getPredecessorInBlock(successor) != node)
+			return null;
+		return successor;
+	}
+
+	private boolean isEntryOrExit(CFGNode node)
+	{
+		return node == statementCFG.getEntryNode()
+				|| node == statementCFG.getExitNode();
+	}
+
+}
@@ -1,10 +1,15 @@
 package cfg;
 
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import ast.ASTNode;
@@ -36,6 +41,10 @@ import cfg.nodes.InfiniteForNode;
 public class CFGFactory
 {
 	protected static StructuredFlowVisitor structuredFlowVisitior;
+	protected static NestedStatementVisitor nestedStatementVisitor = new NestedStatementVisitor();
+
+	// Conversion run by the current thread, if any
+	private static final ThreadLocal<Conversion> currentConversion = new ThreadLocal<Conversion>();
 
 	public CFG newInstance(FunctionDefBase functionDefinition)
 	{
@@ -532,11 +541,111 @@ public class CFGFactory
 		}
 	}
 
+	/**
+	 * Convert a node without recursing into its nested statements. The
+	 * nested statements reported by the NestedStatementVisitor are
+	 * converted first, using an explicit stack, and their CFGs are handed
+	 * to the factory method of their parent when it asks for them.
+	 * Statements that have not been reported are converted when they are
+	 * asked for. The resulting CFG is the same as the one built by
+	 * recursive descent, but deeply nested code does not overflow the
+	 * stack.
+	 */
+
 	public static CFG convert(ASTNode node)
 	{
 		if (node == null)
 			return newInstance();
 
+		Conversion conversion = currentConversion.get();
+		if (conversion != null)
+			return conversion.getCFG(node);
+
+		conversion = new Conversion();
+		currentConversion.set(conversion);
+		try
+		{
+			return conversion.convert(node);
+		}
+		finally
+		{
+			currentConversion.remove();
+		}
+	}
+
+	/**
+	 * State of a call of convert. Each node to convert is a work item on
+	 * the stack: when it is first seen, its nested statements are pushed
+	 * on top of it; once they are converted, the node itself is.
+	 */
+
+	private static class Conversion
+	{
+		// CFGs of nested statements whose parents have not asked for them yet
+		private final Map<ASTNode, CFG> convertedStatements = new IdentityHashMap<ASTNode, CFG>();
+
+		private static class WorkItem
+		{
+			final ASTNode node;
+			boolean expanded = false;
+
+			WorkItem(ASTNode node)
+			{
+				this.node = node;
+			}
+		}
+
+		CFG convert(ASTNode root)
+		{
+			Deque<WorkItem> stack = new ArrayDeque<WorkItem>();
+			stack.push(new WorkItem(root));
+
+			while (true)
+			{
+				WorkItem item = stack.peek();
+				if (!item.expanded)
+				{
+					item.expanded = true;
+					List<ASTNode> statements = getNestedStatements(item.node);
+					// Push in reverse, so that statements are converted in order
+					for (int i = statements.size() - 1; i >= 0; i--)
+						stack.push(new WorkItem(statements.get(i)));
+					continue;
+				}
+
+				stack.pop();
+				CFG cfg = convertNode(item.node);
+				if (stack.isEmpty())
+					return cfg;
+				convertedStatements.put(item.node, cfg);
+			}
+		}
+
+		CFG getCFG(ASTNode statement)
+		{
+			// Each CFG is handed out once, as its parent modifies it
+			CFG cfg = convertedStatements.remove(statement);
+			if (cfg == null)
+				return convert(statement);
+			return cfg;
+		}
+
+		private List<ASTNode> getNestedStatements(ASTNode node)
+		{
+			try
+			{
+				return nestedStatementVisitor.getNestedStatements(node);
+			}
+			catch (RuntimeException e)
+			{
+				// The factory turns malformed nodes into error nodes
+				return Collections.emptyList();
+			}
+		}
+	}
+
+	private static CFG convertNode(ASTNode node)
+	{
 		node.accept(structuredFlowVisitior);
 		return structuredFlowVisitior.getCFG();
 	}
@@ -0,0 +1,51 @@
+package cfg;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import ast.ASTNode;
+import ast.logical.statements.CompoundStatement;
+import ast.walking.ASTNodeVisitor;
+
+/**
+ * Determines nested statements of a visited node that CFGFactory
+ * converts whenever it converts the node, so that CFGFactory can convert
+ * them beforehand, without recursion.
+ * 
+ * Language-specific subclasses must not report statements that their
+ * StructuredFlowVisitor may not convert, e.g., because the conversion
+ * of the node fails before or depends on the CFGs of other statements:
+ * converting a statement marks its nodes as CFG nodes. Statements that
+ * are not reported are converted once they are asked for.
+ */
+
+public class NestedStatementVisitor extends ASTNodeVisitor
+{
+
+	protected List<ASTNode> nestedStatements;
+
+	public List<ASTNode> getNestedStatements(ASTNode node)
+	{
+		nestedStatements = new LinkedList<ASTNode>();
+		node.accept(this);
+		return nestedStatements;
+	}
+
+	protected void addNestedStatement(ASTNode statement)
+	{
+		if (statement != null)
+			nestedStatements.add(statement);
+	}
+
+	public void visit(CompoundStatement content)
+	{
+		for (ASTNode statement : content.getStatements())
+			addNestedStatement(statement);
+	}
+
+	public void visit(ASTNode expression)
+	{
+		// no statements known in advance
+	}
+
+}
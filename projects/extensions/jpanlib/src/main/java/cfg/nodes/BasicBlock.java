@@ -0,0 +1,47 @@
+package cfg.nodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of CFG nodes that are always executed one after another:
+ * control enters the block at its first node and leaves it at its last
+ * node.
+ */
+
+public class BasicBlock extends AbstractCFGNode
+{
+	private List<CFGNode> nodes = new ArrayList<CFGNode>();
+
+	public void addNode(CFGNode node)
+	{
+		nodes.add(node);
+	}
+
+	public List<CFGNode> getNodes()
+	{
+		return nodes;
+	}
+
+	public CFGNode getFirstNode()
+	{
+		return nodes.get(0);
+	}
+
+	public CFGNode getLastNode()
+	{
+		return nodes.get(nodes.size() - 1);
+	}
+
+	public int size()
+	{
+		return nodes.size();
+	}
+
+	@Override
+	public String toString()
+	{
+		return nodes.toString();
+	}
+
+}
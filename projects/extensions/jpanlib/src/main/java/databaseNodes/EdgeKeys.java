@@ -4,4 +4,7 @@ public class EdgeKeys {
 
 	// symbol for reaching definitions (EdgeTypes.REACHES)
 	public static final String VAR = "var";
+
+	// child number of the destination node (EdgeTypes.IS_AST_PARENT)
+	public static final String CHILD_NUM = "childNum";
 }
@@ -9,13 +9,16 @@ import ast.functionDef.FunctionDefBase;
 import cdg.CDG;
 import cdg.CDGCreator;
 import cfg.ASTToCFGConverter;
+import cfg.BasicBlockCFG;
 import cfg.CFG;
 import cfg.CFGFactory;
 import cfg.nodes.CFGNode;
+import ddg.BasicBlockDDGCreator;
 import ddg.CFGAndUDGToDefUseCFG;
 import ddg.DDGCreator;
 import ddg.DataDependenceGraph.DDG;
 import ddg.DefUseCFG.DefUseCFG;
+import ddg.SSADDGCreator;
 import dom.DominatorTree;
 import udg.CFGToUDGConverter;
 import udg.useDefAnalysis.ASTDefUseAnalyzer;
@@ -44,6 +47,9 @@ public class FunctionDatabaseNode extends DatabaseNode
 	DDGCreator ddgCreator = new DDGCreator();
 	CDGCreator cdgCreator = new CDGCreator();
 
+	boolean basicBlockMode = false;
+	boolean ssaDDGMode = false;
+
 	public void setCFGFactory(CFGFactory factory)
 	{
 		astToCFG.setFactory(factory);
@@ -54,21 +60,67 @@ public class FunctionDatabaseNode extends DatabaseNode
 		cfgToUDG.setASTDefUseAnalyzer(analyzer);
 	}
 
+	/**
+	 * Compute dominators, post-dominators, control dependences and
+	 * reaching definitions over the basic blocks of the CFG and expand
+	 * them to statements afterwards. The results are the same as in the
+	 * default mode.
+	 */
+
+	public void setBasicBlockMode(boolean basicBlockMode)
+	{
+		this.basicBlockMode = basicBlockMode;
+	}
+
+	/**
+	 * Create the DDG with SSADDGCreator, which takes precedence over the
+	 * basic-block mode for the DDG. The results are the same.
+	 */
+
+	public void setSSADDGMode(boolean ssaDDGMode)
+	{
+		this.ssaDDGMode = ssaDDGMode;
+	}
+
 	@Override
 	public void initialize(Object node)
 	{
 		astRoot = (FunctionDefBase) node;
 		cfg = astToCFG.convert(astRoot);
-		dom = DominatorTree.newDominatorTree(cfg);
-		postDom = DominatorTree.newPostDominatorTree(cfg);
-		udg = cfgToUDG.convert(cfg);
-		DefUseCFG defUseCFG = udgAndCfgToDefUseCFG.convert(cfg, udg);
-		ddg = ddgCreator.createForDefUseCFG(defUseCFG);
-		cdg = CDGCreator.create(cfg, postDom);
+		if (basicBlockMode)
+		{
+			initializeOverBasicBlocks();
+		} else
+		{
+			dom = DominatorTree.newDominatorTree(cfg);
+			postDom = DominatorTree.newPostDominatorTree(cfg);
+			udg = cfgToUDG.convert(cfg);
+			DefUseCFG defUseCFG = udgAndCfgToDefUseCFG.convert(cfg, udg);
+			ddg = ssaDDGMode ? new SSADDGCreator().createForDefUseCFG(
+					defUseCFG, cfg) : ddgCreator.createForDefUseCFG(defUseCFG);
+			cdg = CDGCreator.create(cfg, postDom);
+		}
 
 		setSignature(astRoot);
 	}
 
+	private void initializeOverBasicBlocks()
+	{
+		BasicBlockCFG blockCFG = new BasicBlockCFG(cfg);
+		DominatorTree<CFGNode> blockPostDom = DominatorTree
+				.newPostDominatorTree(blockCFG);
+		dom = DominatorTree.expandDominatorTree(
+				DominatorTree.newDominatorTree(blockCFG), blockCFG);
+		postDom = DominatorTree.expandPostDominatorTree(blockPostDom,
+				blockCFG);
+		udg = cfgToUDG.convert(cfg);
+		DefUseCFG defUseCFG = udgAndCfgToDefUseCFG.convert(cfg, udg);
+		ddg = ssaDDGMode ? new SSADDGCreator().createForDefUseCFG(defUseCFG,
+				cfg) : new BasicBlockDDGCreator().createForDefUseCFG(defUseCFG,
+				blockCFG);
+		cdg = CDGCreator.createForBasicBlocks(blockCFG, blockPostDom);
+	}
+
 	@Override
 	public Map<String, Object> createProperties()
 	{
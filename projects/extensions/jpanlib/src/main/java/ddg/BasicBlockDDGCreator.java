@@ -0,0 +1,178 @@
+package ddg;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cfg.BasicBlockCFG;
+import cfg.CFGEdge;
+import cfg.nodes.ASTNodeContainer;
+import cfg.nodes.CFGNode;
+import ddg.DataDependenceGraph.DDG;
+import ddg.DefUseCFG.DefUseCFG;
+
+/**
+ * Creates the same DDG as DDGCreator, but computes reaching definitions
+ * for basic blocks instead of single statements. Definitions reaching
+ * the statements of a block are only derived while the DDG is created,
+ * one block at a time.
+ *
+ * Reaching definitions are represented by the statements defining each
+ * symbol.
+ */
+
+public class BasicBlockDDGCreator
+{
+	private DefUseCFG defUseCFG;
+	private BasicBlockCFG cfg;
+
+	private Map<CFGNode, Map<String, Set<Object>>> in;
+	private Map<CFGNode, Map<String, Set<Object>>> out;
+	private Map<CFGNode, Map<String, Set<Object>>> gen;
+
+	/**
+	 * @param aDefUseCFG
+	 *            the DefUseCFG of the CFG the blocks have been built from
+	 * @param aCfg
+	 *            the basic-block CFG
+	 */
+
+	public DDG createForDefUseCFG(DefUseCFG aDefUseCFG, BasicBlockCFG aCfg)
+	{
+		defUseCFG = aDefUseCFG;
+		cfg = aCfg;
+		in = new HashMap<CFGNode, Map<String, Set<Object>>>();
+		out = new HashMap<CFGNode, Map<String, Set<Object>>>();
+		gen = new HashMap<CFGNode, Map<String, Set<Object>>>();
+
+		calculateReachingDefs();
+		DDG ddg = createDDGFromReachingDefs();
+
+		in = out = gen = null;
+		return ddg;
+	}
+
+	private void calculateReachingDefs()
+	{
+		Set<CFGNode> changedBlocks = new LinkedHashSet<CFGNode>();
+		for (CFGNode block : cfg.getVertices())
+		{
+			Map<String, Set<Object>> genForBlock = new HashMap<String, Set<Object>>();
+			for (CFGNode node : cfg.getNodes(block))
+				transfer(genForBlock, getStatement(node));
+			gen.put(block, genForBlock);
+			out.put(block, genForBlock);
+			changedBlocks.add(block);
+		}
+
+		while (!changedBlocks.isEmpty())
+		{
+			CFGNode block = changedBlocks.iterator().next();
+			changedBlocks.remove(block);
+
+			if (cfg.inDegree(block) == 0)
+				continue;
+
+			// in(B) = union(out(P))_{P in parents(B)}
+			Map<String, Set<Object>> inForBlock = new HashMap<String, Set<Object>>();
+			for (CFGEdge edge : cfg.incomingEdges(block))
+				union(inForBlock, out.get(edge.getSource()));
+			in.put(block, inForBlock);
+
+			// out(B) = (in(B) - kill(B)) + gen(B), where kill(B) consists
+			// of the definitions of the symbols B defines.
+			Map<String, Set<Object>> outForBlock = new HashMap<String, Set<Object>>(
+					inForBlock);
+			outForBlock.putAll(gen.get(block));
+
+			if (outForBlock.equals(out.get(block)))
+				continue;
+			out.put(block, outForBlock);
+
+			for (CFGEdge edge : cfg.outgoingEdges(block))
+				changedBlocks.add(edge.getDestination());
+		}
+	}
+
+	private DDG createDDGFromReachingDefs()
+	{
+		DDG ddg = new DDG();
+
+		for (CFGNode block : cfg.getVertices())
+		{
+			Map<String, Set<Object>> reachingDefs = new HashMap<String, Set<Object>>();
+			if (in.containsKey(block))
+				reachingDefs.putAll(in.get(block));
+
+			for (CFGNode node : cfg.getNodes(block))
+			{
+				Object statement = getStatement(node);
+				List<Object> usedSymbols = defUseCFG.getSymbolsUsed()
+						.get(statement);
+				if (usedSymbols != null)
+				{
+					for (Object s : usedSymbols)
+					{
+						String symbol = (String) s;
+						Set<Object> defs = reachingDefs.get(symbol);
+						if (defs == null)
+							continue;
+						for (Object def : defs)
+							ddg.add(def, statement, symbol);
+					}
+				}
+				transfer(reachingDefs, statement);
+			}
+		}
+
+		return ddg;
+	}
+
+	/**
+	 * Replaces the definitions of all symbols defined by the statement
+	 * with the statement's own.
+	 */
+
+	private void transfer(Map<String, Set<Object>> reachingDefs,
+			Object statement)
+	{
+		for (Object symbol : defUseCFG.getSymbolsDefinedBy(statement))
+		{
+			Set<Object> defs = new HashSet<Object>();
+			defs.add(statement);
+			reachingDefs.put((String) symbol, defs);
+		}
+	}
+
+	private void union(Map<String, Set<Object>> target,
+			Map<String, Set<Object>> source)
+	{
+		for (Map.Entry<String, Set<Object>> entry : source.entrySet())
+		{
+			Set<Object> defs = target.get(entry.getKey());
+			if (defs == null)
+				target.put(entry.getKey(), entry.getValue());
+			else if (!defs.containsAll(entry.getValue()))
+			{
+				defs = new HashSet<Object>(defs);
+				defs.addAll(entry.getValue());
+				target.put(entry.getKey(), defs);
+			}
+		}
+	}
+
+	/**
+	 * The key of a CFG node in the DefUseCFG, see CFGAndUDGToDefUseCFG.
+	 */
+
+	private Object getStatement(CFGNode node)
+	{
+		if (node instanceof ASTNodeContainer)
+			return ((ASTNodeContainer) node).getASTNode();
+		return node;
+	}
+
+}
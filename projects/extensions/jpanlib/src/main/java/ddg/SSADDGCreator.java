@@ -0,0 +1,456 @@
+package ddg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cfg.CFG;
+import cfg.CFGEdge;
+import cfg.nodes.ASTNodeContainer;
+import cfg.nodes.CFGNode;
+import ddg.DataDependenceGraph.DDG;
+import ddg.DefUseCFG.DefUseCFG;
+import dom.DominatorTree;
+import graphutils.Edge;
+import graphutils.IncidenceListGraph;
+
+/**
+ * Creates the same DDG as DDGCreator from def-use chains of the static
+ * single assignment (SSA) form of a CFG, instead of from sets of
+ * reaching definitions.
+ *
+ * Phi functions are placed at the iterated dominance frontiers of the
+ * statements defining a symbol, and each use is linked to the
+ * definition or phi function that reaches it by renaming along the
+ * dominator tree. A use reached by a phi function depends on all
+ * definitions reaching the phi function through its arguments.
+ *
+ * Nodes that cannot be reached from the entry node are treated as if
+ * the entry node were connected to them. This adds no definitions to
+ * any path, so that definitions in unreachable code are found as by
+ * DDGCreator.
+ */
+
+public class SSADDGCreator
+{
+	private static final int UNDEFINED = -1;
+
+	private DefUseCFG defUseCFG;
+
+	// Nodes of the CFG and their numbers
+	private List<CFGNode> nodes;
+	private Map<CFGNode, Integer> numbers;
+
+	// The entry node, the successors of each node, immediate dominators
+	// and children in the dominator tree
+	private int entry;
+	private int[][] successors;
+	private int[] dominator;
+	private int[][] dominated;
+
+	// Symbols used and defined by each node
+	private String[][] uses;
+	private String[][] defs;
+
+	// Phi functions: the node and symbol of each, the phi functions of
+	// each node and the values of the arguments of each. Values below
+	// nodes.size() are the definitions of nodes, others are phi functions.
+	private List<Integer> phiNode = new ArrayList<Integer>();
+	private List<String> phiSymbol = new ArrayList<String>();
+	private Map<Integer, List<Integer>> phisOfNode = new HashMap<Integer, List<Integer>>();
+	private List<Set<Integer>> phiArguments = new ArrayList<Set<Integer>>();
+
+	// The value each use of a symbol refers to
+	private Map<Integer, Map<String, Integer>> useValues = new HashMap<Integer, Map<String, Integer>>();
+
+	/**
+	 * @param aDefUseCFG
+	 *            the DefUseCFG of the CFG
+	 * @param cfg
+	 *            the CFG
+	 */
+
+	public DDG createForDefUseCFG(DefUseCFG aDefUseCFG, CFG cfg)
+	{
+		defUseCFG = aDefUseCFG;
+
+		initializeNodes(cfg);
+		initializeDominators(cfg);
+		placePhiFunctions(computeDominanceFrontiers());
+		rename();
+		return createDDGFromUseValues();
+	}
+
+	private void initializeNodes(CFG cfg)
+	{
+		nodes = new ArrayList<CFGNode>(cfg.getVertices());
+		numbers = new HashMap<CFGNode, Integer>();
+		for (int i = 0; i < nodes.size(); i++)
+			numbers.put(nodes.get(i), i);
+		entry = numbers.get(cfg.getEntryNode());
+
+		int n = nodes.size();
+		successors = new int[n][];
+		uses = new String[n][];
+		defs = new String[n][];
+		for (int i = 0; i < n; i++)
+		{
+			CFGNode node = nodes.get(i);
+			int[] destinations = new int[cfg.outDegree(node)];
+			int j = 0;
+			for (CFGEdge edge : cfg.outgoingEdges(node))
+				destinations[j++] = numbers.get(edge.getDestination());
+			successors[i] = destinations;
+
+			Object statement = getStatement(node);
+			List<Object> used = defUseCFG.getSymbolsUsed().get(statement);
+			uses[i] = used == null ? new String[0] : used
+					.toArray(new String[used.size()]);
+			defs[i] = new HashSet<Object>(defUseCFG
+					.getSymbolsDefinedBy(statement)).toArray(new String[0]);
+		}
+	}
+
+	private void initializeDominators(CFG cfg)
+	{
+		DominatorTree<CFGNode> dominatorTree = DominatorTree
+				.newDominatorTree(cfg);
+
+		if (dominatorTree.getVertices().size() < nodes.size())
+			dominatorTree = newDominatorTreeForAllNodes(cfg, dominatorTree);
+
+		int n = nodes.size();
+		dominator = new int[n];
+		int[] nDominated = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			dominator[i] = i == entry ? UNDEFINED : numbers.get(dominatorTree
+					.getDominator(nodes.get(i)));
+			if (dominator[i] != UNDEFINED)
+				nDominated[dominator[i]]++;
+		}
+
+		dominated = new int[n][];
+		for (int i = 0; i < n; i++)
+			dominated[i] = new int[nDominated[i]];
+		for (int i = 0; i < n; i++)
+		{
+			if (dominator[i] != UNDEFINED)
+				dominated[dominator[i]][--nDominated[dominator[i]]] = i;
+		}
+	}
+
+	/**
+	 * Connect the entry node to all nodes it cannot reach, both in the
+	 * successors used for renaming and in the graph the dominator tree is
+	 * computed for.
+	 */
+
+	private DominatorTree<CFGNode> newDominatorTreeForAllNodes(CFG cfg,
+			DominatorTree<CFGNode> dominatorTree)
+	{
+		IncidenceListGraph<CFGNode, Edge<CFGNode>> graph = new IncidenceListGraph<CFGNode, Edge<CFGNode>>();
+		for (CFGNode node : nodes)
+			graph.addVertex(node);
+		for (CFGEdge edge : cfg.getEdges())
+			graph.addEdge(new Edge<CFGNode>(edge.getSource(), edge
+					.getDestination()));
+
+		CFGNode entryNode = cfg.getEntryNode();
+		for (CFGNode node : nodes)
+		{
+			if (dominatorTree.contains(node))
+				continue;
+			graph.addEdge(new Edge<CFGNode>(entryNode, node));
+			successors[entry] = Arrays.copyOf(successors[entry],
+					successors[entry].length + 1);
+			successors[entry][successors[entry].length - 1] = numbers
+					.get(node);
+		}
+
+		return DominatorTree.newDominatorTree(graph, entryNode);
+	}
+
+	private BitSet[] computeDominanceFrontiers()
+	{
+		int n = nodes.size();
+		int[] nPredecessors = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			for (int successor : successors[i])
+				nPredecessors[successor]++;
+		}
+
+		BitSet[] frontiers = new BitSet[n];
+		for (int i = 0; i < n; i++)
+			frontiers[i] = new BitSet();
+
+		// A join node is in the frontier of each node on the way up the
+		// dominator tree from its predecessors to its immediate dominator.
+		for (int predecessor = 0; predecessor < n; predecessor++)
+		{
+			for (int join : successors[predecessor])
+			{
+				if (nPredecessors[join] < 2 || join == entry)
+					continue;
+				int runner = predecessor;
+				while (runner != dominator[join] && !frontiers[runner].get(join))
+				{
+					frontiers[runner].set(join);
+					runner = dominator[runner];
+				}
+			}
+		}
+		return frontiers;
+	}
+
+	private void placePhiFunctions(BitSet[] frontiers)
+	{
+		Map<String, List<Integer>> definingNodes = new HashMap<String, List<Integer>>();
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			for (String symbol : defs[i])
+			{
+				List<Integer> list = definingNodes.get(symbol);
+				if (list == null)
+				{
+					list = new ArrayList<Integer>();
+					definingNodes.put(symbol, list);
+				}
+				list.add(i);
+			}
+		}
+
+		BitSet hasPhi = new BitSet();
+		BitSet queued = new BitSet();
+		Deque<Integer> worklist = new ArrayDeque<Integer>();
+		for (Map.Entry<String, List<Integer>> definitions : definingNodes
+				.entrySet())
+		{
+			hasPhi.clear();
+			queued.clear();
+			for (int node : definitions.getValue())
+			{
+				queued.set(node);
+				worklist.add(node);
+			}
+
+			while (!worklist.isEmpty())
+			{
+				BitSet frontier = frontiers[worklist.remove()];
+				for (int join = frontier.nextSetBit(0); join >= 0; join = frontier
+						.nextSetBit(join + 1))
+				{
+					if (hasPhi.get(join))
+						continue;
+					hasPhi.set(join);
+					addPhiFunction(join, definitions.getKey());
+					if (!queued.get(join))
+					{
+						queued.set(join);
+						worklist.add(join);
+					}
+				}
+			}
+		}
+	}
+
+	private void addPhiFunction(int node, String symbol)
+	{
+		List<Integer> phis = phisOfNode.get(node);
+		if (phis == null)
+		{
+			phis = new ArrayList<Integer>();
+			phisOfNode.put(node, phis);
+		}
+		phis.add(nodes.size() + phiNode.size());
+		phiNode.add(node);
+		phiSymbol.add(symbol);
+		phiArguments.add(new HashSet<Integer>());
+	}
+
+	/**
+	 * Walk the dominator tree with a stack of the current values of each
+	 * symbol, recording the values of uses and of phi function arguments.
+	 */
+
+	private void rename()
+	{
+		Map<String, Deque<Integer>> currentValues = new HashMap<String, Deque<Integer>>();
+		Deque<Integer> stack = new ArrayDeque<Integer>();
+		stack.push(entry);
+
+		// Nodes are pushed again, as ~node, to pop their values when
+		// leaving them.
+		while (!stack.isEmpty())
+		{
+			int node = stack.pop();
+			if (node < 0)
+			{
+				popValues(~node, currentValues);
+				continue;
+			}
+			stack.push(~node);
+
+			List<Integer> phis = phisOfNode.get(node);
+			if (phis != null)
+			{
+				for (int phi : phis)
+					pushValue(currentValues, phiSymbol.get(phi - nodes.size()),
+							phi);
+			}
+
+			if (uses[node].length > 0)
+			{
+				Map<String, Integer> values = new HashMap<String, Integer>();
+				for (String symbol : uses[node])
+					values.put(symbol, currentValue(currentValues, symbol));
+				useValues.put(node, values);
+			}
+
+			for (String symbol : defs[node])
+				pushValue(currentValues, symbol, node);
+
+			for (int successor : successors[node])
+			{
+				List<Integer> successorPhis = phisOfNode.get(successor);
+				if (successorPhis == null)
+					continue;
+				for (int phi : successorPhis)
+				{
+					int value = currentValue(currentValues,
+							phiSymbol.get(phi - nodes.size()));
+					if (value != UNDEFINED)
+						phiArguments.get(phi - nodes.size()).add(value);
+				}
+			}
+
+			for (int child : dominated[node])
+				stack.push(child);
+		}
+	}
+
+	private void popValues(int node, Map<String, Deque<Integer>> currentValues)
+	{
+		for (String symbol : defs[node])
+			currentValues.get(symbol).pop();
+
+		List<Integer> phis = phisOfNode.get(node);
+		if (phis != null)
+		{
+			for (int phi : phis)
+				currentValues.get(phiSymbol.get(phi - nodes.size())).pop();
+		}
+	}
+
+	private void pushValue(Map<String, Deque<Integer>> currentValues,
+			String symbol, int value)
+	{
+		Deque<Integer> values = currentValues.get(symbol);
+		if (values == null)
+		{
+			values = new ArrayDeque<Integer>();
+			currentValues.put(symbol, values);
+		}
+		values.push(value);
+	}
+
+	private int currentValue(Map<String, Deque<Integer>> currentValues,
+			String symbol)
+	{
+		Deque<Integer> values = currentValues.get(symbol);
+		if (values == null || values.isEmpty())
+			return UNDEFINED;
+		return values.peek();
+	}
+
+	/**
+	 * The definitions reaching each phi function, i.e., the definitions
+	 * among its arguments and those reaching phi functions among them.
+	 */
+
+	private List<Set<Integer>> resolvePhiFunctions()
+	{
+		int nPhis = phiNode.size();
+		List<Set<Integer>> reachingDefs = new ArrayList<Set<Integer>>(nPhis);
+		List<List<Integer>> users = new ArrayList<List<Integer>>(nPhis);
+		for (int i = 0; i < nPhis; i++)
+			users.add(new ArrayList<Integer>());
+
+		for (int i = 0; i < nPhis; i++)
+		{
+			Set<Integer> defsOfPhi = new HashSet<Integer>();
+			for (int value : phiArguments.get(i))
+			{
+				if (value < nodes.size())
+					defsOfPhi.add(value);
+				else
+					users.get(value - nodes.size()).add(i);
+			}
+			reachingDefs.add(defsOfPhi);
+		}
+
+		Deque<Integer> worklist = new ArrayDeque<Integer>();
+		for (int i = 0; i < nPhis; i++)
+			worklist.add(i);
+		while (!worklist.isEmpty())
+		{
+			int phi = worklist.remove();
+			for (int user : users.get(phi))
+			{
+				if (reachingDefs.get(user).addAll(reachingDefs.get(phi)))
+					worklist.add(user);
+			}
+		}
+		return reachingDefs;
+	}
+
+	private DDG createDDGFromUseValues()
+	{
+		List<Set<Integer>> phiDefs = resolvePhiFunctions();
+		DDG ddg = new DDG();
+
+		for (Map.Entry<Integer, Map<String, Integer>> usesOfNode : useValues
+				.entrySet())
+		{
+			Object statement = getStatement(nodes.get(usesOfNode.getKey()));
+			for (Map.Entry<String, Integer> use : usesOfNode.getValue()
+					.entrySet())
+			{
+				int value = use.getValue();
+				if (value == UNDEFINED)
+					continue;
+				if (value < nodes.size())
+				{
+					ddg.add(getStatement(nodes.get(value)), statement,
+							use.getKey());
+					continue;
+				}
+				for (int def : phiDefs.get(value - nodes.size()))
+					ddg.add(getStatement(nodes.get(def)), statement,
+							use.getKey());
+			}
+		}
+
+		return ddg;
+	}
+
+	/**
+	 * The key of a CFG node in the DefUseCFG, see CFGAndUDGToDefUseCFG.
+	 */
+
+	private Object getStatement(CFGNode node)
+	{
+		if (node instanceof ASTNodeContainer)
+			return ((ASTNodeContainer) node).getASTNode();
+		return node;
+	}
+
+}
@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
+import cfg.BasicBlockCFG;
 import cfg.CFG;
 import cfg.CFGEdge;
 import cfg.nodes.CFGNode;
@@ -46,6 +47,60 @@ public class DominatorTree<V>
 				reverseCFG.getEntryNode()).create();
 	}
 
+	/**
+	 * Expands the dominator tree of a basic-block CFG to the nodes of the
+	 * CFG it has been built from. Each node is immediately dominated by
+	 * its predecessor in its block, and the first node of a block by the
+	 * last node of the block's immediate dominator.
+	 */
+
+	public static DominatorTree<CFGNode> expandDominatorTree(
+			DominatorTree<CFGNode> blockTree, BasicBlockCFG cfg)
+	{
+		DominatorTree<CFGNode> tree = new DominatorTree<CFGNode>(
+				cfg.getEntryNode());
+		for (CFGNode block : blockTree.getVertices())
+		{
+			if (block == cfg.getEntryNode())
+				continue;
+			CFGNode dominator = cfg
+					.getLastNode(blockTree.getDominator(block));
+			for (CFGNode node : cfg.getNodes(block))
+			{
+				tree.dominators.put(node, dominator);
+				dominator = node;
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Expands the post-dominator tree of a basic-block CFG to the nodes
+	 * of the CFG it has been built from, as expandDominatorTree does for
+	 * dominator trees.
+	 */
+
+	public static DominatorTree<CFGNode> expandPostDominatorTree(
+			DominatorTree<CFGNode> blockTree, BasicBlockCFG cfg)
+	{
+		DominatorTree<CFGNode> tree = new DominatorTree<CFGNode>(
+				cfg.getExitNode());
+		for (CFGNode block : blockTree.getVertices())
+		{
+			if (block == cfg.getExitNode())
+				continue;
+			CFGNode dominator = cfg
+					.getFirstNode(blockTree.getDominator(block));
+			List<CFGNode> nodes = cfg.getNodes(block);
+			for (int i = nodes.size() - 1; i >= 0; i--)
+			{
+				tree.dominators.put(nodes.get(i), dominator);
+				dominator = nodes.get(i);
+			}
+		}
+		return tree;
+	}
+
 	public Collection<V> getVertices()
 	{
 		return dominators.keySet();
@@ -0,0 +1,272 @@
+package fileWalker;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A walker that enumerates directories on a background thread, so that
+ * reading directories (e.g., on a network file system) overlaps with
+ * the work of listeners. Enumerated files and directories are passed
+ * to the calling thread through a bounded queue.
+ *
+ * By default, listeners are informed on the calling thread, in the
+ * same order and with the same paths as by OrderedWalker: depth-first,
+ * with the entries of each directory sorted by name. This order does
+ * not depend on timing.
+ *
+ * Optionally, files are dispatched to listeners by several threads
+ * (see setNumberOfDispatchThreads), which requires thread-safe
+ * listeners. Files of a directory may then be visited in any order,
+ * but each directory is entered before any of its files is visited and
+ * left after all of them have been visited. Directory events are
+ * always reported on the calling thread.
+ */
+
+public class ParallelWalker extends SourceFileWalker
+{
+	static final int QUEUE_CAPACITY = 1024;
+
+	private enum EventType
+	{
+		ENTER_DIRECTORY, FILE, LEAVE_DIRECTORY, END
+	}
+
+	private static class WalkEvent
+	{
+		final EventType type;
+		final Path path;
+
+		WalkEvent(EventType type, Path path)
+		{
+			this.type = type;
+			this.path = path;
+		}
+	}
+
+	private static final WalkEvent END_OF_WALK = new WalkEvent(
+			EventType.END, null);
+
+	private final FileNameMatcher matcher = new FileNameMatcher();
+	private final List<SourceFileListener> listeners = new LinkedList<SourceFileListener>();
+	private int nDispatchThreads = 1;
+
+	private volatile RuntimeException dispatchException;
+	private volatile RuntimeException enumerationException;
+
+	public ParallelWalker()
+	{
+		setFilenameFilter(DEFAULT_FILENAME_FILTER);
+	}
+
+	@Override
+	public void setFilenameFilter(String filter)
+	{
+		matcher.setFilenameFilter(filter);
+	}
+
+	@Override
+	public void addListener(SourceFileListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	/**
+	 * Visit files on the given number of threads. Listeners must be
+	 * thread-safe if this is larger than 1 (the default).
+	 */
+
+	public void setNumberOfDispatchThreads(int nThreads)
+	{
+		nDispatchThreads = Math.max(1, nThreads);
+	}
+
+	@Override
+	protected void walkExistingFileOrDirectory(String dirOrFileName)
+			throws IOException
+	{
+		BlockingQueue<WalkEvent> queue = new ArrayBlockingQueue<WalkEvent>(
+				QUEUE_CAPACITY);
+		Path start = Paths.get(dirOrFileName);
+
+		enumerationException = null;
+
+		Thread enumerator = new Thread(() -> enumerate(start, queue),
+				"file-enumerator");
+		enumerator.setDaemon(true);
+		enumerator.start();
+
+		try
+		{
+			if (nDispatchThreads == 1)
+				dispatchInOrder(queue);
+			else
+				dispatchConcurrently(queue);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} finally
+		{
+			enumerator.interrupt();
+		}
+
+		if (enumerationException != null)
+			throw enumerationException;
+	}
+
+	private void dispatchInOrder(BlockingQueue<WalkEvent> queue)
+			throws InterruptedException
+	{
+		WalkEvent event;
+		while ((event = queue.take()) != END_OF_WALK)
+		{
+			if (event.type == EventType.FILE)
+				reportFile(event.path);
+			else
+				reportDirectory(event);
+		}
+	}
+
+	private void dispatchConcurrently(BlockingQueue<WalkEvent> queue)
+			throws InterruptedException
+	{
+		// Bounds the number of files submitted but not yet visited.
+		int maxInFlight = 4 * nDispatchThreads;
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		ExecutorService pool = Executors
+				.newFixedThreadPool(nDispatchThreads);
+		dispatchException = null;
+
+		try
+		{
+			WalkEvent event;
+			while ((event = queue.take()) != END_OF_WALK)
+			{
+				if (event.type == EventType.FILE)
+				{
+					Path path = event.path;
+					inFlight.acquire();
+					throwDispatchException();
+					pool.execute(() -> visitFileAndRelease(path, inFlight));
+				} else
+				{
+					awaitFiles(inFlight, maxInFlight);
+					reportDirectory(event);
+				}
+			}
+			awaitFiles(inFlight, maxInFlight);
+		} finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private void visitFileAndRelease(Path path, Semaphore inFlight)
+	{
+		try
+		{
+			reportFile(path);
+		} catch (RuntimeException e)
+		{
+			if (dispatchException == null)
+				dispatchException = e;
+		} finally
+		{
+			inFlight.release();
+		}
+	}
+
+	private void awaitFiles(Semaphore inFlight, int maxInFlight)
+			throws InterruptedException
+	{
+		inFlight.acquire(maxInFlight);
+		inFlight.release(maxInFlight);
+		throwDispatchException();
+	}
+
+	private void throwDispatchException()
+	{
+		if (dispatchException != null)
+			throw dispatchException;
+	}
+
+	private void enumerate(Path start, BlockingQueue<WalkEvent> queue)
+	{
+		try
+		{
+			try
+			{
+				if (Files.isDirectory(start))
+					enumerateDirectory(start, queue);
+				else if (matcher.fileMatches(start))
+					queue.put(new WalkEvent(EventType.FILE, start));
+			} catch (RuntimeException e)
+			{
+				enumerationException = e;
+			}
+			queue.put(END_OF_WALK);
+		} catch (InterruptedException e)
+		{
+			// The walk has been aborted
+		}
+	}
+
+	private void enumerateDirectory(Path dir, BlockingQueue<WalkEvent> queue)
+			throws InterruptedException
+	{
+		List<Path> entries = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir))
+		{
+			for (Path entry : stream)
+				entries.add(entry);
+		} catch (IOException e)
+		{
+			System.err.println("Warning: Skipping " + dir
+					+ " because it cannot be read");
+			return;
+		}
+		Collections.sort(entries);
+
+		queue.put(new WalkEvent(EventType.ENTER_DIRECTORY, dir));
+		for (Path entry : entries)
+		{
+			// As OrderedWalker, which enters subdirectories by their
+			// absolute path.
+			if (Files.isDirectory(entry))
+				enumerateDirectory(entry.toAbsolutePath(), queue);
+			else if (matcher.fileMatches(entry))
+				queue.put(new WalkEvent(EventType.FILE, entry));
+		}
+		queue.put(new WalkEvent(EventType.LEAVE_DIRECTORY, dir));
+	}
+
+	private void reportDirectory(WalkEvent event)
+	{
+		for (SourceFileListener listener : listeners)
+		{
+			if (event.type == EventType.ENTER_DIRECTORY)
+				listener.preVisitDirectory(event.path);
+			else
+				listener.postVisitDirectory(event.path);
+		}
+	}
+
+	private void reportFile(Path path)
+	{
+		for (SourceFileListener listener : listeners)
+			listener.visitFile(path);
+	}
+
+}
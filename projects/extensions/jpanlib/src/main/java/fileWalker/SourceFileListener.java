@@ -14,6 +14,17 @@ public abstract class SourceFileListener
 
 	abstract public void visitFile(Path filename);
 
+	/**
+	 * Visit a file whose content has already been read by the walker.
+	 * Listeners that can process the content directly should override
+	 * this, the default reads the file from disk again.
+	 */
+
+	public void visitFile(Path filename, char[] content)
+	{
+		visitFile(filename);
+	}
+
 	abstract public void preVisitDirectory(Path dir);
 
 	abstract public void postVisitDirectory(Path dir);
@@ -2,6 +2,7 @@ package graphutils;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -25,7 +26,8 @@ public class IncidenceListGraph<V, E extends Edge<V>> implements Iterable<V>
 
 	public IncidenceListGraph()
 	{
-		this.vertices = new LinkedList<V>();
+		// keeps insertion order, with constant-time lookups
+		this.vertices = new LinkedHashSet<V>();
 		this.outNeighborhood = new MultiHashMap<V, E>();
 		this.inNeighborhood = new MultiHashMap<V, E>();
 	}
@@ -0,0 +1,73 @@
+package outputModules.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact binary alternative to the node and edge CSV files.
+ *
+ * A file starts with MAGIC, VERSION (both 4 byte big endian ints) and
+ * a flags byte. The rest of the file is a sequence of blocks, each
+ * consisting of its uncompressed length, its stored length (4 byte
+ * ints) and the stored bytes, which are deflated if FLAG_COMPRESSED is
+ * set. A block of length 0 ends the file.
+ *
+ * The concatenated block contents are a sequence of records, each
+ * starting with a tag byte. Numbers are unsigned LEB128 varints,
+ * strings are a varint byte count followed by UTF-8 bytes.
+ *
+ * STRING: a string. Strings are numbered from 0 in order of
+ * appearance and stand for node types, edge labels and property keys.
+ * Each is defined once, before its first use.
+ *
+ * NODE: node id, string number of the node type plus one (0 if the
+ * node has no type), number of properties, and for each property the
+ * string number of its key and its value as a string.
+ *
+ * EDGE: source node id, destination node id, string number of the
+ * label, number of properties and properties as for nodes.
+ *
+ * Edges only refer to nodes defined earlier in the file. The reader is
+ * octopus.server.importer.binary.BinaryGraphReader.
+ * */
+
+public class BinaryGraphFormat
+{
+	public static final int MAGIC = 0x43504742; // "CPGB"
+	public static final int VERSION = 1;
+
+	public static final int FLAG_COMPRESSED = 0x1;
+
+	public static final int TAG_STRING = 1;
+	public static final int TAG_NODE = 2;
+	public static final int TAG_EDGE = 3;
+
+	public static final int BLOCK_SIZE = 1 << 16;
+
+	public static final String FILENAME = "graph.bin";
+
+	private BinaryGraphFormat()
+	{
+	}
+
+	public static void writeVarLong(OutputStream out, long value)
+			throws IOException
+	{
+		while ((value & ~0x7fL) != 0)
+		{
+			out.write((int) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	public static void writeString(OutputStream out, String s)
+			throws IOException
+	{
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+}
@@ -0,0 +1,192 @@
+package outputModules.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import databaseNodes.NodeKeys;
+import outputModules.common.WriterImpl;
+import outputModules.csv.CSVWriterImpl;
+
+/**
+ * Writes nodes and edges into a single file in BinaryGraphFormat,
+ * placed in the first output directory (cf. SinglePairCSVWriterImpl).
+ * Nodes and edges carry the same properties as in CSV output.
+ * */
+
+public class BinaryWriterImpl implements WriterImpl
+{
+	private final boolean compress;
+
+	private OutputStream out;
+	private final Map<String, Integer> stringToNumber = new HashMap<String, Integer>();
+	private long lastNodeId = 0;
+
+	public BinaryWriterImpl()
+	{
+		this(true);
+	}
+
+	public BinaryWriterImpl(boolean compress)
+	{
+		this.compress = compress;
+	}
+
+	@Override
+	public void changeOutputDir(String dirNameForFileNode)
+	{
+		if (out != null)
+			return;
+
+		Path path = Paths.get(dirNameForFileNode, BinaryGraphFormat.FILENAME);
+		try
+		{
+			Files.createDirectories(path.getParent());
+			DataOutputStream header = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(path)));
+			header.writeInt(BinaryGraphFormat.MAGIC);
+			header.writeInt(BinaryGraphFormat.VERSION);
+			header.writeByte(compress ? BinaryGraphFormat.FLAG_COMPRESSED : 0);
+			out = new BlockOutputStream(header, compress);
+		} catch (IOException e)
+		{
+			throw new RuntimeException("Cannot create file: " + path, e);
+		}
+	}
+
+	@Override
+	public long writeNode(Object node, Map<String, Object> properties)
+	{
+		try
+		{
+			String type = value(properties, NodeKeys.NODE_TYPE);
+			int typeNumber = type == null ? 0 : stringNumber(type) + 1;
+			int nProperties = countProperties(properties,
+					CSVWriterImpl.nodeProperties, NodeKeys.NODE_TYPE);
+			int[] keyNumbers = keyNumbers(properties,
+					CSVWriterImpl.nodeProperties, NodeKeys.NODE_TYPE);
+
+			out.write(BinaryGraphFormat.TAG_NODE);
+			BinaryGraphFormat.writeVarLong(out, lastNodeId);
+			BinaryGraphFormat.writeVarLong(out, typeNumber);
+			writeProperties(properties, CSVWriterImpl.nodeProperties,
+					NodeKeys.NODE_TYPE, nProperties, keyNumbers);
+		} catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+		return lastNodeId++;
+	}
+
+	@Override
+	public void writeEdge(long srcId, long dstId,
+			Map<String, Object> properties, String edgeType)
+	{
+		try
+		{
+			int labelNumber = stringNumber(edgeType);
+			int nProperties = countProperties(properties,
+					CSVWriterImpl.edgeProperties, null);
+			int[] keyNumbers = keyNumbers(properties,
+					CSVWriterImpl.edgeProperties, null);
+
+			out.write(BinaryGraphFormat.TAG_EDGE);
+			BinaryGraphFormat.writeVarLong(out, srcId);
+			BinaryGraphFormat.writeVarLong(out, dstId);
+			BinaryGraphFormat.writeVarLong(out, labelNumber);
+			writeProperties(properties, CSVWriterImpl.edgeProperties, null,
+					nProperties, keyNumbers);
+		} catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void shutdown()
+	{
+		if (out == null)
+			return;
+		try
+		{
+			out.close();
+		} catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Number of a string, which is defined in the output if it has not
+	 * been used before. Must not be called while writing a record.
+	 * */
+
+	private int stringNumber(String s) throws IOException
+	{
+		Integer number = stringToNumber.get(s);
+		if (number != null)
+			return number;
+
+		number = stringToNumber.size();
+		stringToNumber.put(s, number);
+		out.write(BinaryGraphFormat.TAG_STRING);
+		BinaryGraphFormat.writeString(out, s);
+		return number;
+	}
+
+	private int countProperties(Map<String, Object> properties,
+			String[] keys, String skip)
+	{
+		int n = 0;
+		for (String key : keys)
+		{
+			if (!key.equals(skip) && value(properties, key) != null)
+				n++;
+		}
+		return n;
+	}
+
+	private int[] keyNumbers(Map<String, Object> properties, String[] keys,
+			String skip) throws IOException
+	{
+		int[] numbers = new int[keys.length];
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (!keys[i].equals(skip) && value(properties, keys[i]) != null)
+				numbers[i] = stringNumber(keys[i]);
+		}
+		return numbers;
+	}
+
+	private void writeProperties(Map<String, Object> properties,
+			String[] keys, String skip, int nProperties, int[] keyNumbers)
+			throws IOException
+	{
+		BinaryGraphFormat.writeVarLong(out, nProperties);
+		for (int i = 0; i < keys.length; i++)
+		{
+			String value = value(properties, keys[i]);
+			if (keys[i].equals(skip) || value == null)
+				continue;
+			BinaryGraphFormat.writeVarLong(out, keyNumbers[i]);
+			BinaryGraphFormat.writeString(out, value);
+		}
+	}
+
+	private static String value(Map<String, Object> properties, String key)
+	{
+		if (properties == null)
+			return null;
+		Object value = properties.get(key);
+		if (value == null || value.toString().equals(""))
+			return null;
+		return value.toString();
+	}
+
+}
@@ -0,0 +1,108 @@
+package outputModules.binary;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Splits the written bytes into blocks of BinaryGraphFormat, which
+ * are optionally deflated. Closing the stream writes the final empty
+ * block.
+ * */
+
+public class BlockOutputStream extends OutputStream
+{
+	private final DataOutputStream out;
+	private final Deflater deflater;
+
+	private final byte[] block = new byte[BinaryGraphFormat.BLOCK_SIZE];
+	private int blockLength = 0;
+	private byte[] compressed;
+	private boolean closed = false;
+
+	public BlockOutputStream(OutputStream out, boolean compress)
+	{
+		this.out = new DataOutputStream(out);
+		this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		if (blockLength == block.length)
+			writeBlock();
+		block[blockLength++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		while (len > 0)
+		{
+			if (blockLength == block.length)
+				writeBlock();
+			int n = Math.min(len, block.length - blockLength);
+			System.arraycopy(b, off, block, blockLength, n);
+			blockLength += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void writeBlock() throws IOException
+	{
+		if (blockLength == 0)
+			return;
+
+		out.writeInt(blockLength);
+		if (deflater == null)
+		{
+			out.writeInt(blockLength);
+			out.write(block, 0, blockLength);
+		} else
+		{
+			if (compressed == null)
+				compressed = new byte[block.length + block.length / 8 + 64];
+			deflater.reset();
+			deflater.setInput(block, 0, blockLength);
+			deflater.finish();
+			int storedLength = 0;
+			while (!deflater.finished())
+			{
+				if (storedLength == compressed.length)
+					compressed = Arrays.copyOf(compressed,
+							compressed.length * 2);
+				storedLength += deflater.deflate(compressed, storedLength,
+						compressed.length - storedLength);
+			}
+			out.writeInt(storedLength);
+			out.write(compressed, 0, storedLength);
+		}
+		blockLength = 0;
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		writeBlock();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+		closed = true;
+
+		writeBlock();
+		out.writeInt(0);
+		out.writeInt(0);
+		out.close();
+		if (deflater != null)
+			deflater.end();
+	}
+
+}
@@ -18,6 +18,8 @@ public abstract class FunctionExporter extends ASTNodeExporter
 	protected DOMExporter domExporter;
 	protected ASTDefUseAnalyzer analyzer;
 	protected CFGFactory cfgFactory;
+	protected boolean basicBlockMode = false;
+	protected boolean ssaDDGMode = false;
 
 	protected abstract void linkFunctionWithAST(FunctionDatabaseNode function);
 
@@ -27,6 +29,23 @@ public abstract class FunctionExporter extends ASTNodeExporter
 	protected abstract void linkFunctionToFileNode(
 			FunctionDatabaseNode function, FileDatabaseNode fileNode);
 
+	/**
+	 * See FunctionDatabaseNode.setBasicBlockMode
+	 */
+
+	public void setBasicBlockMode(boolean basicBlockMode)
+	{
+		this.basicBlockMode = basicBlockMode;
+	}
+
+	/**
+	 * See FunctionDatabaseNode.setSSADDGMode
+	 */
+
+	public void setSSADDGMode(boolean ssaDDGMode)
+	{
+		this.ssaDDGMode = ssaDDGMode;
+	}
 
 	@Override
 	public void addToDatabaseSafe(ASTNode node)
@@ -39,6 +58,8 @@ public abstract class FunctionExporter extends ASTNodeExporter
 			analyzer.reset();
 			function.setASTDefUseAnalyzer(analyzer);
 			function.setCFGFactory(cfgFactory);
+			function.setBasicBlockMode(basicBlockMode);
+			function.setSSADDGMode(ssaDDGMode);
 
 			try{
 				function.initialize(node);
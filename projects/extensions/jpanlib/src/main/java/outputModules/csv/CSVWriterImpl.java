@@ -16,13 +16,16 @@ public abstract class CSVWriterImpl implements WriterImpl {
 
 	final String SEPARATOR = "\t";
 
-	final String[] nodeProperties = { NodeKeys.NODE_TYPE, NodeKeys.CODE,
+	// Columns of the node and edge files. Writers producing the graph
+	// directly store the same properties.
+
+	public static final String[] nodeProperties = { NodeKeys.NODE_TYPE, NodeKeys.CODE,
 			NodeKeys.LOCATION, NodeKeys.FUNCTION_ID,
 			NodeKeys.CHILD_NUMBER, NodeKeys.IS_CFG_NODE , NodeKeys.OPERATOR,
 			NodeKeys.BASE_TYPE, NodeKeys.COMPLETE_TYPE, NodeKeys.IDENTIFIER
 	};
 
-	final String[] edgeProperties = { EdgeKeys.VAR };
+	public static final String[] edgeProperties = { EdgeKeys.VAR, EdgeKeys.CHILD_NUM };
 
 	long lastNodeId = 0;
 
@@ -4,6 +4,7 @@ import java.io.File;
 
 import outputModules.CSVASTWalker;
 import outputModules.common.Writer;
+import outputModules.common.WriterImpl;
 import outputModules.csv.exporters.CSVFunctionExporter;
 import outputModules.parser.Parser;
 
@@ -13,16 +14,29 @@ public abstract class ParserCSVOutput extends Parser
 
 	private CSVFunctionExporter functionExporter;
 	boolean multiFileOutput = true;
+	private WriterImpl writerImpl;
 
 	public void setMultiFileOutput(boolean multiFileOutput)
 	{
 		this.multiFileOutput = multiFileOutput;
 	}
 
+	/**
+	 * Write nodes and edges using the given writer instead of into CSV
+	 * files, e.g., to write them into a database directly.
+	 * */
+
+	public void setWriterImpl(WriterImpl writerImpl)
+	{
+		this.writerImpl = writerImpl;
+	}
+
 	@Override
 	public void initialize()
 	{
-		if(multiFileOutput)
+		if(writerImpl != null)
+			Writer.setWriterImpl(writerImpl);
+		else if(multiFileOutput)
 			Writer.setWriterImpl(new MultiPairCSVWriterImpl());
 		else
 			Writer.setWriterImpl(new SinglePairCSVWriterImpl());
@@ -33,7 +47,8 @@ public abstract class ParserCSVOutput extends Parser
 	@Override
 	protected void initializeDatabase()
 	{
-		createOutputDirectory();
+		if(writerImpl == null)
+			createOutputDirectory();
 	}
 
 	private void createOutputDirectory()
@@ -1,9 +1,11 @@
 package outputModules.csv.exporters;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import ast.ASTNode;
 import databaseNodes.ASTDatabaseNode;
+import databaseNodes.EdgeKeys;
 import databaseNodes.EdgeTypes;
 import databaseNodes.NodeKeys;
 import outputModules.common.ASTExporter;
@@ -17,7 +19,14 @@ public class CSVASTExporter extends ASTExporter
 	{
 		long srcId = Writer.getIdForObject(parent);
 		long dstId = Writer.getIdForObject(child);
-		Writer.addEdge(srcId, dstId, null, EdgeTypes.IS_AST_PARENT);
+
+		// The child number is duplicated onto the edge so that
+		// the database can index AST edges by it.
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(EdgeKeys.CHILD_NUM,
+				Integer.toString(child.getChildNumber()));
+
+		Writer.addEdge(srcId, dstId, properties, EdgeTypes.IS_AST_PARENT);
 	}
 
 	@Override
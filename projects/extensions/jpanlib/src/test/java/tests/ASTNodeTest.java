@@ -0,0 +1,113 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ast.ASTNode;
+import ast.ASTNodeProperties;
+import ast.CodeLocation;
+import ast.logical.statements.CompoundStatement;
+
+public class ASTNodeTest
+{
+
+	@Test
+	public void testChildren()
+	{
+		CompoundStatement node = new CompoundStatement();
+		assertTrue(node.isLeaf());
+		assertEquals(0, node.getStatements().size());
+
+		for (int i = 0; i < 5; i++)
+			node.addChild(new ASTNode());
+
+		assertEquals(5, node.getChildCount());
+		assertEquals(5, node.getStatements().size());
+		assertEquals(3, node.getChild(3).getChildNumber());
+		assertSame(node.getChild(4), node.getStatement(4));
+		assertNull(node.getChild(5));
+		assertNull(node.getChild(-1));
+
+		ASTNode last = node.getChild(4);
+		assertSame(last, node.popLastChild());
+		assertEquals(4, node.getStatements().size());
+
+		// The statements are the children themselves
+		node.getStatements().remove(0);
+		assertEquals(3, node.getChildCount());
+	}
+
+	@Test
+	public void testProperties()
+	{
+		ASTNode node = new ASTNode();
+		assertNull(node.getProperty(ASTNodeProperties.CODE));
+		assertNull(node.getProperty(ASTNodeProperties.NODE_ID));
+
+		node.setCodeStr("x");
+		node.setNodeId(42L);
+		node.setFlags("FLAG");
+		node.setProperty("childnum", "1");
+		node.setProperty("childnum", "2");
+
+		assertEquals("x", node.getProperty(ASTNodeProperties.CODE));
+		assertEquals("42", node.getProperty(ASTNodeProperties.NODE_ID));
+		assertEquals(Long.valueOf(42), node.getNodeId());
+		assertEquals("FLAG", node.getFlags());
+		assertEquals("2", node.getProperty("childnum"));
+
+		node.setProperty(ASTNodeProperties.NODE_ID, "not a number");
+		assertEquals("not a number",
+				node.getProperty(ASTNodeProperties.NODE_ID));
+		node.setProperty(ASTNodeProperties.NODE_ID, "7");
+		assertEquals(Long.valueOf(7), node.getNodeId());
+	}
+
+	@Test
+	public void testLocation()
+	{
+		ASTNode node = new ASTNode();
+		assertEquals(CodeLocation.NOT_SET, node.getLocation().startLine);
+
+		CodeLocation location = new CodeLocation();
+		location.startLine = 3;
+		location.endLine = 5;
+		location.startPos = 1;
+		location.startIndex = 10;
+		location.stopIndex = 20;
+		node.setLocation(location);
+
+		assertEquals(location.toString(), node.getLocationString());
+		assertEquals(5, node.getLocation().endLine);
+	}
+
+	@Test
+	public void testCopy()
+	{
+		ASTNode node = new ASTNode();
+		node.setCodeStr("f ( )");
+		node.setNodeId(42L);
+		node.setFlags("FLAG");
+		CodeLocation location = new CodeLocation();
+		location.startLine = 3;
+		node.setLocation(location);
+		ASTNode child = new ASTNode();
+		child.setCodeStr("f");
+		node.addChild(child);
+
+		ASTNode copy = new ASTNode(node);
+
+		// Only the code and the location are copied
+		assertEquals("f ( )", copy.getEscapedCodeStr());
+		assertEquals(3, copy.getLocation().startLine);
+		assertNull(copy.getProperty(ASTNodeProperties.NODE_ID));
+		assertNull(copy.getFlags());
+		assertEquals(1, copy.getChildCount());
+		assertEquals("f", copy.getChild(0).getEscapedCodeStr());
+	}
+
+}
@@ -0,0 +1,110 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fileWalker.OrderedWalker;
+import fileWalker.ParallelWalker;
+import fileWalker.SourceFileListener;
+import fileWalker.SourceFileWalker;
+
+public class ParallelWalkerTest
+{
+	private static final String[] ARGS = { "src/test/java/tests/samples/" };
+
+	private static class EventRecorder extends SourceFileListener
+	{
+		List<String> events = new ArrayList<String>();
+		Set<String> openDirectories = new HashSet<String>();
+		boolean filesInsideDirectories = true;
+
+		@Override
+		public synchronized void visitFile(Path filename)
+		{
+			events.add("file " + filename);
+			Path parent = filename.getParent();
+			if (!openDirectories.contains(parent.toString()))
+				filesInsideDirectories = false;
+		}
+
+		@Override
+		public synchronized void preVisitDirectory(Path dir)
+		{
+			events.add("enter " + dir);
+			openDirectories.add(dir.toString());
+		}
+
+		@Override
+		public synchronized void postVisitDirectory(Path dir)
+		{
+			events.add("leave " + dir);
+			openDirectories.remove(dir.toString());
+		}
+
+		@Override
+		public void initialize()
+		{
+		}
+
+		@Override
+		public void shutdown()
+		{
+		}
+	}
+
+	private EventRecorder walk(SourceFileWalker walker) throws IOException
+	{
+		EventRecorder recorder = new EventRecorder();
+		walker.addListener(recorder);
+		walker.walk(ARGS);
+		return recorder;
+	}
+
+	@Test
+	public void testSameOrderAsOrderedWalker() throws IOException
+	{
+		List<String> expected = walk(new OrderedWalker()).events;
+		List<String> events = walk(new ParallelWalker()).events;
+
+		assertEquals(expected, events);
+		assertEquals(7, events.size());
+	}
+
+	@Test
+	public void testConcurrentDispatch() throws IOException
+	{
+		ParallelWalker walker = new ParallelWalker();
+		walker.setNumberOfDispatchThreads(4);
+		EventRecorder recorder = walk(walker);
+
+		List<String> expected = walk(new OrderedWalker()).events;
+		assertEquals(new HashSet<String>(expected),
+				new HashSet<String>(recorder.events));
+		assertTrue(recorder.filesInsideDirectories);
+		assertTrue(recorder.openDirectories.isEmpty());
+	}
+
+	@Test
+	public void testFilenameFilter() throws IOException
+	{
+		ParallelWalker walker = new ParallelWalker();
+		walker.setFilenameFilter("*.cpp");
+		FilenameAggregator listener = new FilenameAggregator();
+		walker.addListener(listener);
+		walker.walk(ARGS);
+
+		assertEquals(1, listener.filenames.size());
+		assertEquals("src/test/java/tests/samples/tiff.cpp",
+				listener.filenames.get(0));
+	}
+
+}
@@ -13,6 +13,7 @@ Object.metaClass.TYPE_CALL = 'CallExpression'
 Object.metaClass.TYPE_CALLEE = 'Callee'
 Object.metaClass.TYPE_FUNCTION = 'Function'
 Object.metaClass.TYPE_ARGLIST = 'ArgumentList'
+Object.metaClass.TYPE_ARGUMENT = 'Argument'
 Object.metaClass.TYPE_ASSIGNMENT = 'AssignmentExpr'
 Object.metaClass.TYPE_FILE = 'File'
 
@@ -34,6 +35,9 @@ Object.metaClass.FUNCTION_TO_CFG_EDGE = 'IS_FUNCTION_OF_CFG'
 
 Object.metaClass.FILE_TO_FUNCTION_EDGE = 'IS_FILE_OF'
 
+Object.metaClass.CALL_EDGE = 'CALLS'
+Object.metaClass.ARG_EDGE = 'IS_ARG'
+
 // Edge keys
 
 Object.metaClass.DATA_FLOW_SYMBOL = 'var'
@@ -68,16 +68,10 @@ GraphTraversal.metaClass.functionToFile = {
 }
 
 /**
- * For a function node, get callers using `name` property.
+ * For a function node, get calls to the function via the CALLS edges
+ * created at import.
  **/
 
-GraphTraversal.metaClass.functionToCallers = {
-	_().transform{
-
-		funcName = it.name
-		funcName = funcName.split(' ')[-1].trim()
-	   	funcName = funcName.replace('*', '')
-
-		getCallsTo(funcName)
-	}.scatter()
-}
+addStep("functionToCallers", {
+	delegate.functionToAST().in(CALL_EDGE)
+})
@@ -0,0 +1,54 @@
+import java.nio.file.Paths
+
+import joern.learning.FunctionSimilarity
+
+/**
+   Similar functions
+   -----------------
+
+   Functions are compared by the neighborhood hashes of their ASTs
+   ('ast') or by the API symbols they use ('api'). Indices over all
+   functions are kept in the project directory and must be
+   (re)built after importing code.
+*/
+
+functionSimilarity = {
+	new FunctionSimilarity(graph, Paths.get(projectDir))
+}
+
+/**
+   Build the similarity index of the given kind.
+
+   @returns The number of indexed functions
+*/
+
+buildSimilarityIndex = { kind = 'ast' ->
+	functionSimilarity().buildIndex(kind)
+}
+
+/**
+   The ids of the k functions most similar to a function and their
+   similarity scores, most similar first.
+*/
+
+similarFunctionIds = { functionId, k = 10, kind = 'ast' ->
+	functionSimilarity().similar(functionId, k, kind).collect{ [it.id, it.score] }
+}
+
+/**
+   Map function nodes to the k most similar functions, most similar
+   first.
+*/
+
+addStep("similarFunctions", { def args ->
+	def k = args.size() > 0 ? args[0] : 10
+	def kind = args.size() > 1 ? args[1] : 'ast'
+	def similarity = functionSimilarity()
+
+	delegate.flatMap{
+		def ids = similarity.similar(it.get(), k, kind).collect{ it.id }
+		if (ids.isEmpty()) return [].iterator()
+		def idToVertex = g.V(*ids).toList().collectEntries{ [(it.id() as long): it] }
+		ids.collect{ idToVertex[it] }.findAll{ it != null }.iterator()
+	}
+})
@@ -1,12 +1,10 @@
 
 /**
- This is how you _would_ directly query the index, but don't ever do that.
+ Do not query the index directly via `graph.indexQuery`. Use the
+ index-backed search steps `searchCodePrefix`, `searchCodeRegex` and
+ `searchCodeTokens` instead.
 */
 
-// queryNodeIndex = { query ->
-//   __.inject(*graph.indexQuery('byTypeAndValue', query).vertices()*.getElement())
-// }
-
 /**
    Retrieve functions by name.
 
@@ -19,25 +17,41 @@ getFunctionsByName = { name ->
 
 getFunctionsByFilename = { name ->
 
-     g.V().has(NODE_TYPE, TYPE_FILE)
-     	.has(NODE_CODE, name)
+	getFilesByName(name)
 	.out(FILE_TO_FUNCTION_EDGE)
 	.has(NODE_TYPE, TYPE_FUNCTION)
 }
 
+/**
+   Retrieve nodes by type and code. Both conditions are answered
+   together by the composite index `byTypeAndCode`.
+*/
+
 getNodesWithTypeAndCode = { type, code ->
 
 	g.V().has(NODE_TYPE, type)
 	   .has(NODE_CODE, code)
 }
 
+/**
+   Retrieve nodes of a given type whose code matches a regular
+   expression. Both conditions are answered by the Lucene index
+   `byValue`.
+*/
+
+getNodesWithTypeAndCodeRegex = { type, regex ->
+
+	g.V().has(NODE_TYPE, type)
+	   .has(NODE_CODE, textRegex(regex))
+}
+
 getFunctionsByFileAndName = { filename, name  ->
 	getFunctionsByFilename(filename)
 	.has(NODE_CODE, name)
 }
 
-getFilesByName = { filename ->	
-	g.V().has(NODE_TYPE, TYPE_FILE).has(NODE_CODE, filename)
+getFilesByName = { filename ->
+	getNodesWithTypeAndCode(TYPE_FILE, filename)
 }
 
 /**
@@ -55,8 +69,28 @@ getCallsTo = { callee ->
 }
 
 getCallsToRegex = { regex ->
- g.V().has(NODE_TYPE, TYPE_CALLEE).has(NODE_CODE, textRegex(regex))
- .calleeToCall()
+  getNodesWithTypeAndCodeRegex(TYPE_CALLEE, regex)
+  .calleeToCall()
+}
+
+/**
+   Retrieve calls to functions whose name starts with `prefix`
+   or contains all of the given tokens. At most `limit` callees
+   are looked up in the index.
+*/
+
+getCallsToPrefix = { prefix, limit = -1 ->
+  searchCodePrefix(prefix, TYPE_CALLEE, limit)
+  .calleeToCall()
+}
+
+getCallsToTokens = { tokens, limit = -1 ->
+  searchCodeTokens(tokens, TYPE_CALLEE, limit)
+  .calleeToCall()
+}
+
+getFunctionsByNameRegex = { regex ->
+	getNodesWithTypeAndCodeRegex(TYPE_FUNCTION, regex)
 }
 
 /**
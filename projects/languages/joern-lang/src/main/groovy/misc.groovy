@@ -5,37 +5,38 @@ hasRegex = { args ->
 	delegate.has(property, textRegex(regex))
 }
 
-In = { def args ->
+/**
+   Traverse edges of type `edgeType` whose property `key` is in
+   `vals` (or equal to `vals` for single values). The property
+   filter is part of the edge step so that vertex-centric indices
+   (e.g., on REACHES.var) are used.
+*/
 
- def edgeType = args[0];
- def key = args[1];
- def vals = args[2];
+addStep("In", { def args ->
 
-	if(Collection.isAssignableFrom(vals.getClass())){
-		filterExpr = { it.getProperty(key) in vals }
-	}else{
-		filterExpr = {it.getProperty(key) == vals}
-	}
+	def edgeType = args[0];
+	def key = args[1];
+	def vals = args[2];
 
-	_().inE(edgeType).filter(filterExpr).outV()
-}
+	delegate.inE(edgeType).has(key, valuesPredicate(vals)).outV()
+})
 
-Out = { def args ->
+addStep("Out", { def args ->
 
-  def edgeType = args[0];
-  def key = args[1];
-  def vals = args[2];
+	def edgeType = args[0];
+	def key = args[1];
+	def vals = args[2];
 
-	if(Collection.isAssignableFrom(vals.getClass())){
-		filterExpr = { it.getProperty(key) in vals }
-	}else{
-		filterExpr = {it.getProperty(key) == vals}
-	}
+	delegate.outE(edgeType).has(key, valuesPredicate(vals)).inV()
+})
 
-	_().outE(edgeType).filter(filterExpr).inV()
+valuesPredicate = { vals ->
+	if(Collection.isAssignableFrom(vals.getClass()))
+		P.within(vals)
+	else
+		P.eq(vals)
 }
 
-
 /**
    Map node ids to nodes
 */
@@ -57,12 +58,13 @@ idsToEdges = {
 }
 
 /**
-   Create nodes from a list of node ids
+   Create nodes from a list of node ids. Note that `g.V()`
+   without ids would return all nodes.
 */
 
 idListToNodes = { listOfIds ->
 
-  g.V(*listOfIds)
+  listOfIds ? g.V(*listOfIds) : __.inject([] as Object[])
 
 }
 
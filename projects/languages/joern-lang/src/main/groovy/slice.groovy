@@ -1,93 +1,115 @@
-forwardSlice = { def args -> 
+import joern.slicing.Slicer
+
+/**
+   Slices are computed by joern.slicing.Slicer on the data and control
+   dependence edges of each function, which are read from the database
+   once per function and cached.
+
+   symbols  symbols to follow on the first step
+   ORDER    maximum number of steps (default: 5)
+   edgeTypes  edge labels to follow (default: REACHES and CONTROLS)
+   interprocedural  also step from arguments to parameters (forward) or
+            from parameters to the calling statements (backward), using
+            the IS_ARG edges created at import (default: false)
+*/
+
+slicer = { def interprocedural ->
+	def slicer = new Slicer(graph)
+	slicer.setInterprocedural(interprocedural)
+	slicer
+}
+
+addStep("forwardSlice", { def args ->
 	     def symbols = args[0];
 	     def ORDER = 5; if(args.size() > 1) ORDER = args[1];
 	     def edgeTypes = ['REACHES', 'CONTROLS']; if(args.size() > 2) edgeTypes = args[2];
-	     
-  	_()
-	.copySplit(
-	  	_(),
-	  	_().sideEffect{first = true;}.as('x')
-		.transform{
-			  it.outE(*edgeTypes)
-			  .filter{it.label == 'CONTROLS' || !first || it.var in symbols}
-			  .inV().gather{it}.scatter()
-			  .sideEffect{first = false}
-		}.scatter()
-		.loop('x'){it.loops <= ORDER}{true}
-	).fairMerge()
-	.dedup()
-}
+	     def interprocedural = false; if(args.size() > 3) interprocedural = args[3];
+
+	delegate.fold().flatMap{
+		slicer(interprocedural).forwardSlice(it.get(), symbols, ORDER, edgeTypes).iterator()
+	}
+})
 
-backwardSlice = { def args -> 
+addStep("backwardSlice", { def args ->
 	     def symbols = args[0];
 	     def ORDER = 5; if(args.size() > 1) ORDER = args[1];
 	     def edgeTypes = ['REACHES', 'CONTROLS']; if(args.size() > 2) edgeTypes = args[2];
-	      
-	_()
-	.copySplit(
-		_(),
-		_()
-		.sideEffect{first = true;}.as('x')
-		.transform{
-			it.inE(*edgeTypes)
-			.filter{it.label == 'CONTROLS' || !first || it.var in symbols}
-			.outV().gather{it}.scatter()
-			.sideEffect{first = false}
-		}.scatter()
-		.loop('x'){it.loops <= ORDER}{true}
-	).fairMerge()
-	.dedup()
-}
+	     def interprocedural = false; if(args.size() > 3) interprocedural = args[3];
+
+	delegate.fold().flatMap{
+		slicer(interprocedural).backwardSlice(it.get(), symbols, ORDER, edgeTypes).iterator()
+	}
+})
+
+/**
+   Slices from many nodes at once, one slice (a list of nodes) per
+   node. Each node is sliced along the symbols it uses.
+*/
+
+addStep("bulkSlices", { def args ->
+	     def forward = args[0];
+	     def ORDER = 5; if(args.size() > 1) ORDER = args[1];
+	     def edgeTypes = ['REACHES', 'CONTROLS']; if(args.size() > 2) edgeTypes = args[2];
+	     def interprocedural = false; if(args.size() > 3) interprocedural = args[3];
+
+	delegate.fold().flatMap{
+		def nodes = it.get()
+		def starts = nodes.collect{ node -> g.V(node).statements().tryNext().orElse(node) }
+		def symbols = nodes.collect{ node -> g.V(node).out(USES_EDGE).values(NODE_CODE).toList() }
+		slicer(interprocedural).slices(starts, symbols, ORDER, edgeTypes, forward).iterator()
+	}
+})
 
 /**
    Starting from an argument node, slice backwards, but for data flow,
    consider only the symbols actually used in the argument.
 */
 
-sliceBackFromArgument = { def args -> 
-	     def symbols = args[0];
+addStep("sliceBackFromArgument", { def args ->
 	     def ORDER = 5; if(args.size() > 1) ORDER = args[1];
 	     def edgeTypes = ['REACHES', 'CONTROLS']; if(args.size() > 2) edgeTypes = args[2];
-	      
-	_().transform{
-		symbols = it.uses().code.toList();
-		it.statements().backwardSlice(symbols, ORDER, edgeTypes)
-	}.scatter()
-}
+	     def interprocedural = false; if(args.size() > 3) interprocedural = args[3];
+
+	def s = slicer(interprocedural)
+	delegate.flatMap{
+		def symbols = g.V(it.get()).out(USES_EDGE).values(NODE_CODE).toList()
+		s.backwardSlice(g.V(it.get()).statements().toList(), symbols, ORDER, edgeTypes).iterator()
+	}
+})
 
 /**
    Starting from an argument node, slice forward, but for data flow,
    consider only the symbols actually used in the argument.
 */
 
-sliceForwardFromArgument = { def args -> 
-	     def symbols = args[0];
+addStep("sliceForwardFromArgument", { def args ->
 	     def ORDER = 5; if(args.size() > 1) ORDER = args[1];
 	     def edgeTypes = ['REACHES', 'CONTROLS']; if(args.size() > 2) edgeTypes = args[2];
+	     def interprocedural = false; if(args.size() > 3) interprocedural = args[3];
 
-	_().transform{
-		symbols = it.uses().code.toList();
-		it.statements().forwardSlice(symbols, ORDER, edgeTypes)
-	}.scatter()
-}
+	def s = slicer(interprocedural)
+	delegate.flatMap{
+		def symbols = g.V(it.get()).out(USES_EDGE).values(NODE_CODE).toList()
+		s.forwardSlice(g.V(it.get()).statements().toList(), symbols, ORDER, edgeTypes).iterator()
+	}
+})
 
 /**
    Slice forward from assignment, but for data flow, consider only the
    symbols defined on the left-hand side of the assignment.
 */
 
-sliceForwardFromAssign = { def args -> 
-	     def symbols = args[0];
+addStep("sliceForwardFromAssign", { def args ->
 	     def ORDER = 5; if(args.size() > 1) ORDER = args[1];
 	     def edgeTypes = ['REACHES', 'CONTROLS']; if(args.size() > 2) edgeTypes = args[2];
-	_()
-	.transform
-	{
-      		callee = it.code;
-      		symbols = it.lval().code.toList()
-		it.statements().forwardSlice(symbols, ORDER, edgeTypes)
-	}.scatter()
-}
+	     def interprocedural = false; if(args.size() > 3) interprocedural = args[3];
+
+	def s = slicer(interprocedural)
+	delegate.flatMap{
+		def symbols = g.V(it.get()).lval().values(NODE_CODE).toList()
+		s.forwardSlice(g.V(it.get()).statements().toList(), symbols, ORDER, edgeTypes).iterator()
+	}
+})
 
 
 ///
@@ -10,24 +10,24 @@ uses = {
 	_().out(USES_EDGE)
 }
 
-usesFiltered = {
-	
-	_().transform{
-		L = it.out(USES_EDGE).toList();
-		L.sort{ a, b -> a.code.size() <=> b.code.size() }
+addStep("usesFiltered", {
+
+	delegate.flatMap{
+		def L = g.V(it.get()).out(USES_EDGE).toList()
+		L.sort{ a, b -> a.value(NODE_CODE).size() <=> b.value(NODE_CODE).size() }
 		L = L.reverse()
-	
-		acc = []
+
+		def acc = []
 		L.each{ node ->
 		        // if(node.code.startsWith('*')) return;
-			if(acc.findAll{ it.code.contains(node.code) }.size() != 0) return;
-			acc << node; 
+			if(acc.findAll{ it.value(NODE_CODE).contains(node.value(NODE_CODE)) }.size() != 0) return;
+			acc << node;
 		}
 
-		acc
-	}.scatter()
-	
-}
+		acc.iterator()
+	}
+
+})
 
 defines = {
 	_().out(DEFINES_EDGE)
@@ -4,9 +4,9 @@
 */
 
 addStep("lval", {
-	delegate.out(AST_EDGE).has(NODE_CHILDNUM, '0')
+	delegate.ithChildren('0')
 })
 
 addStep("rval", {
-	delegate.out(AST_EDGE).has(NODE_CHILDNUM, '1')
+	delegate.ithChildren('1')
 })
@@ -38,14 +38,17 @@ noMoreChildren = {
 }
 
 /**
-   Traverse to i'th children.
+   Traverse to i'th children. The child number is looked up on
+   the AST edge, which is covered by a vertex-centric index.
+   Importers store it on every AST edge; databases imported
+   without it must be re-imported (see docs/source/import.rst).
    
    @param i The child index
 */
 
 addStep("ithChildren", { args ->
 	i = args[0];
-	delegate.children().has(NODE_CHILDNUM, i)
+	delegate.outE(AST_EDGE).has(NODE_CHILDNUM, i).inV()
 })
 
 isStatement = { it ->
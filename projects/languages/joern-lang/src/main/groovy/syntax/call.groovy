@@ -9,8 +9,9 @@ addStep("callToArguments", {
 })
 
 addStep("ithArguments", { def args ->
-	 delegate.callToArguments()
-	 .has(NODE_CHILDNUM, args[0])
+	 delegate.children()
+	 .has(NODE_TYPE, TYPE_ARGLIST)
+	 .ithChildren(args[0])
 })
 
 addStep("argToCall", {
@@ -21,10 +21,11 @@ class ASTNode{
 	
 	def initLabel(nodeId, symbols)
 	{
-		def node = g.v(nodeId)
+		def node = g.V(nodeId).next()
+		def code = node.property('code').orElse(null)
 		
 		// relabel tracked argument to '_ARG_'
-		if(node.code in symbols){
+		if(code in symbols){
 			label = "QUERYGEN_ARG"
 			return []
 		}
@@ -36,13 +37,13 @@ class ASTNode{
 		//	return []
 		// }
 		
-		def chldren = node.children().id.toList()
-		if(chldren.size() != 0 || node.code == null){
-			label = node.type
+		def chldren = g.V(nodeId).children().id().toList()
+		if(chldren.size() != 0 || code == null){
+			label = node.value('type')
 		}else{
-			label = node.code
+			label = code
 			// Relabel numbers to '_NUM_'
-			if(node.type == 'PrimaryExpression' && node.code.matches('[0-9]+'))
+			if(node.value('type') == 'PrimaryExpression' && code.matches('[0-9]+'))
 				label = 'QUERYGEN_NUM'
 		}
 		chldren
@@ -51,7 +52,7 @@ class ASTNode{
 	public String getCode()
 	{
 		
-		def nodeCode = g.v(id).code
+		def nodeCode = g.V(id).next().value('code')
 		taintedSymbols.each{
 			def quotedSymbol = Pattern.quote(it)
 			nodeCode = nodeCode.replaceAll('^' + quotedSymbol, '%s')
@@ -60,7 +60,7 @@ checksPerArg_ = { def taintGraph, invoc, curGraphlet, args ->
 
 	def retval = args.collect{ def arg ->
 
-		def vars = idListToNodes(edges[arg]).code.toList()
+		def vars = idListToNodes(edges[arg]).values(NODE_CODE).toList()
 		def acc = argToCnd[arg].collect{ def c = new Condition(it, vars, g);
 										 curGraphlet.cndIdToObject[it] = c; }
 
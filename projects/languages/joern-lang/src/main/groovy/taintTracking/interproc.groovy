@@ -1,43 +1,42 @@
 import java.util.regex.Pattern;
 
+import joern.callGraph.CallGraphLinker
+
 /******************************************************
  * Steps for interprocedural analysis
  * Experimental and subject to change.
  ******************************************************/
 
 /**
- * Identity for non-parameters.
- * For parameters, expand into caller arguments.
+ * Calls are linked to the functions they call at import: CALLS edges
+ * connect calls to function definitions (FunctionDef nodes), IS_ARG
+ * edges connect arguments to parameters. For projects imported
+ * without these edges, they can be created by `linkCallsToFunctions()`.
  **/
 
-expandParameters = {
+linkCallsToFunctions = {
+	new CallGraphLinker(graph).link()
+}
 
-	_().transform{
-	  if(it.type == 'Parameter'){
-		def l = it.parameterToCallerArgs().toList();
-		if(l != []) l else it._().toList()
-	  }
-	  else
-	   it._().toList()
-	}.scatter()
+/**
+ * Identity for non-parameters.
+ * For parameters, expand into caller arguments.
+ **/
 
-}
+addStep("expandParameters", {
+	delegate.coalesce(
+		__.has(NODE_TYPE, TYPE_PARAMETER).in(ARG_EDGE),
+		__.identity()
+	)
+})
 
 /**
  For a given parameter, get all nodes of arguments of callers.
 */
 
-parameterToCallerArgs = {
-   _().transform{
-	   paramNum = it.childNum;
-	   funcName = it.functions().name.toList()[0];
-
-	   funcName = funcName.split(' ')[-1].trim()
-	   funcName = funcName.replace('*', '')
-
-	   getCallsTo(funcName).ithArguments(paramNum)
-   }.scatter()
-}
+addStep("parameterToCallerArgs", {
+	delegate.in(ARG_EDGE)
+})
 
 
 /**
@@ -46,32 +45,16 @@ parameterToCallerArgs = {
  * parameters.
  **/
 
-expandArguments = {
-	_().transform{
-
-	  def args = it.match{ it.type == "Argument"}.toList()
+addStep("expandArguments", {
+	delegate.coalesce(
+		__.start().astNodes().has(NODE_TYPE, TYPE_ARGUMENT).out(ARG_EDGE),
+		__.identity()
+	)
+})
 
-	  if(args != []){
-			def l = args._().argToParameters().toList();
-			if(l != []) l else it._().toList()
-	  }else
-	   it._().toList()
-	}.scatter()
-}
-
-argToParameters = {
-	_().transform{
-		argNum = it.childNum;
-		def callee = it.argToCall().callToCallee().code.toList()[0]
-		callee = callee.replace('* ', '')
-		// callee = callee.split("(::)|(\\.)")[-1].trim()
-		callee = callee.split(' ')[-1].trim()
-
-		getFunctionASTsByName(callee)
-		.children().filter{ it.type == "ParameterList"}
-		.children().filter{ it.childNum == argNum}.toList()
-	}.scatter()
-}
+addStep("argToParameters", {
+	delegate.out(ARG_EDGE)
+})
 
 
 /**
@@ -135,7 +118,7 @@ codeMatches = { def args -> def regex = args[0]; def s = args[1]
 }
 
 NO_RESTRICTION = { a,s -> []}
-ANY_SOURCE = { [1]._() }
+ANY_SOURCE = { [1] }
 
 source = { closure ->
   return { if(closure(it)) [10] else [] }
@@ -6,28 +6,29 @@
  * for each argument.
  * */
 
-taintedArgs = { def args -> def argDescrs = args[0];
+addStep("taintedArgs", { def args -> def argDescrs = args[0];
 
 	// Before we can do anything, we need to generate
-	// an initialization graph for the call-site
+	// initialization graphs for the call-sites. These
+	// are created for all call-sites at once.
 
-	_().transform{
-		callId = it.id
-		tGraph = createInitGraph(callId)
-	
-		// Check if tainted arg fulfills necessary condition
-		// if it doesn't, then we can return an empty set
-		
-		if(!canBeTainted(tGraph, argDescrs))
-			return []
-	
-		// necessary condition is fulfilled.
-		// now decompress the initialization graph
-	
-		invocs = decompressInitGraph(tGraph)
-		invocs.findAll{ isTainted(it, argDescrs) }
-	}.scatter()
-}
+	delegate.fold().flatMap{
+		createInitGraphs(it.get()).collect{ tGraph ->
+
+			// Check if tainted arg fulfills necessary condition
+			// if it doesn't, then we can return an empty set
+
+			if(!canBeTainted(tGraph, argDescrs))
+				return []
+
+			// necessary condition is fulfilled.
+			// now decompress the initialization graph
+
+			def invocs = decompressInitGraph(tGraph)
+			invocs.findAll{ isTainted(it, argDescrs) }
+		}.flatten().iterator()
+	}
+})
 
 /**
  * Necessary condition in paper.
@@ -39,8 +40,8 @@ canBeTainted = { tGraph, argDescrs ->
 	// doesn't matter right now, it's only
 	// a necessary condition anyway.
 	
-	def leaveNodes = tGraph.graphlets.leaves.flatten()
-	.collect{ g.v(it) }
+	def leaveIds = tGraph.graphlets.leaves.flatten()
+	def leaveNodes = idListToNodes(leaveIds).toList()
 
 	for(it in argDescrs){
 		if (leaveNodes.findAll(it) == [])
@@ -56,7 +57,7 @@ canBeTainted = { tGraph, argDescrs ->
 isTainted = { invoc, argDescrs ->
 	
 	for(int i = 0; i < argDescrs.size(); i++){
-		f = argDescrs[i]
+		def f = argDescrs[i]
 		
 		// This allows us to handle 'ANY_SOURCE'
 		// We take it out, meaning that we ask for
@@ -69,43 +70,53 @@ isTainted = { invoc, argDescrs ->
 		
 		// }catch(RuntimeException r){}
 				
-		if(invoc.defStmtsPerArg[i].collect{ g.v(it) }.findAll(f).toList() == [])
+		if(idListToNodes(invoc.defStmtsPerArg[i]).toList().findAll(f) == [])
 			return false
 	}
 	return true
 }
 
-unchecked = { def args -> argDescrs = args[0]
-	_().transform{ 
-				
-		it.checksPerArg = genConditionsPerArg(it.allGraphlets, it.graphletIds)
-		
-		def nArgsToSanitize =  it.checksPerArg.size() - 1;
-		
+/**
+ * Keep invocations (as returned by `taintedArgs`) for which at least
+ * one argument is not checked by a condition matching the sanitizer
+ * description for that argument. `argDescrs` contains a closure
+ * taking a condition and a symbol for each argument, or null for
+ * arguments that need not be sanitized.
+ * */
+
+addStep("unchecked", { def args -> def argDescrs = args[0]
+	delegate.flatMap{
+		def invoc = it.get()
+
+		invoc.checksPerArg = genConditionsPerArg(invoc.allGraphlets, invoc.graphletIds)
+
+		def nArgsToSanitize =  invoc.checksPerArg.size() - 1;
+
 		// subtract one because the last one contains conditions unassigned to symbols
-		for(int i = 0; i < it.checksPerArg.size() -1; i++){
-			f = argDescrs[i]
-			syms = it.checksPerArg[i].syms.flatten()
-			
+		for(int i = 0; i < invoc.checksPerArg.size() -1; i++){
+			def f = argDescrs[i]
+			def syms = invoc.checksPerArg[i].syms.flatten()
+
 			if(f == null){
 				nArgsToSanitize--;
 				continue
 			}
-			
+
+			def conditions = idListToNodes(invoc.checksPerArg[i].flatten().cndId).toList()
+
 			for(int j = 0; j < syms.size(); j++){
 				// if one of the sanitizer-descriptions matches, this is sanitized
-				X = it.checksPerArg[i].flatten().cndId.collect{ g.v(it) }
-					.findAll{ x -> f(x, syms[j]) }
+				def X = conditions.findAll{ x -> f(x, syms[j]) }
 				if( X != []){
 					nArgsToSanitize--;
 					break;
 				}
 			}
-			
+
 		}
-		
-		if(nArgsToSanitize == 0) return []
+
+		if(nArgsToSanitize == 0) return [].iterator()
 		// none of the sanitizer-descriptions matched
-		return [it]
-	}.scatter()
-}
+		return [invoc].iterator()
+	}
+})
@@ -0,0 +1,39 @@
+/**
+   Index-backed search on the `code` property of nodes. These
+   lookups are answered by the mixed indices of the `search` backend
+   and never fall back to a scan over all vertices. Results are
+   streamed from the index; a limit (if given) is pushed down into
+   the index query.
+
+   @param type Node type to restrict the search to (null for any type)
+   @param limit Maximum number of results (-1 for no limit)
+*/
+
+codeIndexSearch = {
+	new octopus.server.database.titan.CodeIndexSearch(graph)
+}
+
+/**
+   Nodes whose code starts with `prefix`.
+*/
+
+searchCodePrefix = { prefix, type = null, limit = -1 ->
+	codeIndexSearch().prefix(prefix, type, limit)
+}
+
+/**
+   Nodes whose entire code matches `regex` (Lucene syntax).
+*/
+
+searchCodeRegex = { regex, type = null, limit = -1 ->
+	codeIndexSearch().regex(regex, type, limit)
+}
+
+/**
+   Nodes whose code contains all of the given whitespace-separated
+   tokens, compared case-insensitively.
+*/
+
+searchCodeTokens = { tokens, type = null, limit = -1 ->
+	codeIndexSearch().tokens(tokens, type, limit)
+}
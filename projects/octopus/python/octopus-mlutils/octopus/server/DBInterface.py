@@ -27,6 +27,30 @@ class DBInterface:
 
         return self.transformer.transform(result)
 
+    """
+    Iterate over the result of a query in pages of `pageSize`
+    elements, using a server-side cursor. Only one page is held
+    in memory on either side at any time.
+    """
+    def runGremlinQueryPaged(self, query, pageSize = 1000):
+        cursorId = self._single(self.j.runGremlinQuery('open_cursor ' + query))
+        try:
+            while True:
+                page = self.runGremlinQuery('fetch_cursor %s %d' % (cursorId, pageSize))
+                if page == ['']:
+                    page = []
+                for element in page:
+                    yield element
+                if len(page) < pageSize:
+                    break
+        finally:
+            self.j.runGremlinQuery('close_cursor %s' % (cursorId))
+
+    def _single(self, result):
+        if not self.jsonEnabled:
+            return result[0]
+        return self.transformer.transform(result)[0]
+
     def chunks(self, ids, chunkSize):
         return self.j.chunks(ids, chunkSize)
 
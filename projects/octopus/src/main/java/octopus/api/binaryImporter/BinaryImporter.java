@@ -0,0 +1,13 @@
+package octopus.api.binaryImporter;
+
+import octopus.server.importer.binary.ImportBinaryRunnable;
+import octopus.server.importer.binary.ImportJob;
+
+public class BinaryImporter {
+
+	public void importBinary(ImportJob job)
+	{
+		(new ImportBinaryRunnable(job)).run();
+	}
+
+}
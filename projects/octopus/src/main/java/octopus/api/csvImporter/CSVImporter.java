@@ -1,7 +1,10 @@
 package octopus.api.csvImporter;
 
+import java.util.List;
+
 import octopus.server.importer.csv.ImportCSVRunnable;
 import octopus.server.importer.csv.ImportJob;
+import octopus.server.importer.csv.MultiPairImportSession;
 
 public class CSVImporter {
 
@@ -10,4 +13,19 @@ public class CSVImporter {
 		(new ImportCSVRunnable(job)).run();
 	}
 
+	/**
+	 * Import many CSV pairs into a project in one session, see
+	 * MultiPairImportSession.
+	 * */
+
+	public void importCSV(String projectName, List<ImportJob> jobs)
+	{
+		try (MultiPairImportSession session = new MultiPairImportSession(projectName))
+		{
+			for (ImportJob job : jobs)
+				session.addJob(job);
+			session.importAll();
+		}
+	}
+
 }
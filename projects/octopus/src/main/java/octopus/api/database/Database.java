@@ -11,6 +11,12 @@ public interface Database {
 
 	public Graph getGraph();
 
+	/**
+	 * Finish the calling thread's transaction and release
+	 * the instance. The underlying graph may remain open
+	 * if it is shared with other users.
+	 * */
+
 	public void closeInstance();
 
 }
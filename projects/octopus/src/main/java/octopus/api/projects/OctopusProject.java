@@ -33,6 +33,12 @@ public class OctopusProject
 		return Paths.get(pathToProjectDir, "db").toAbsolutePath().toString();
 	}
 
+	/**
+	 * Obtain a handle to the project's database. All handles of a
+	 * project share a single graph instance, which is closed once
+	 * the last handle has been closed via `closeInstance`.
+	 * */
+
 	public Database getNewDatabaseInstance()
 	{
 		return new TitanLocalDatabaseManager().getDatabaseInstanceForProject(this);
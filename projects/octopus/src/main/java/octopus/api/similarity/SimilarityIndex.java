@@ -0,0 +1,353 @@
+package octopus.api.similarity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An exact nearest neighbor index over sparse vectors with numeric
+ * ids (e.g., feature vectors of functions). Similarity is the cosine
+ * of the angle between vectors.
+ *
+ * Vectors are normalized and stored twice in compressed sparse row
+ * form: by vector, to look up the vector of an indexed id, and by
+ * feature (an inverted index), so that a query only visits vectors
+ * sharing at least one feature with the query vector.
+ *
+ * Indices are immutable. They are created with a Builder and can be
+ * saved to and loaded from a file.
+ * */
+
+public class SimilarityIndex
+{
+	private static final int MAGIC = 0x4f435349; // "OCSI"
+	private static final int VERSION = 1;
+
+	private final long[] ids;
+	private final Map<Long, Integer> idToIndex;
+
+	// vectors by index
+	private final int[] vectorStart;
+	private final int[] vectorFeature;
+	private final float[] vectorWeight;
+
+	// postings by feature, features sorted
+	private final int[] features;
+	private final int[] postingStart;
+	private final int[] postingVector;
+	private final float[] postingWeight;
+
+	/**
+	 * A vector and its similarity to the query.
+	 * */
+
+	public static class Match
+	{
+		private final long id;
+		private final float score;
+
+		Match(long id, float score)
+		{
+			this.id = id;
+			this.score = score;
+		}
+
+		public long getId()
+		{
+			return id;
+		}
+
+		public float getScore()
+		{
+			return score;
+		}
+
+		@Override
+		public String toString()
+		{
+			return id + ":" + score;
+		}
+	}
+
+	public static class Builder
+	{
+		private final List<Long> ids = new ArrayList<Long>();
+		private final List<int[]> vectorFeatures = new ArrayList<int[]>();
+		private final List<float[]> vectorWeights = new ArrayList<float[]>();
+
+		/**
+		 * Add a sparse vector. Features may repeat, their weights are
+		 * summed. The vector is normalized to unit length.
+		 * */
+
+		public synchronized Builder add(long id, int[] features,
+				float[] weights)
+		{
+			Map<Integer, Float> featureToWeight = new HashMap<Integer, Float>();
+			for (int i = 0; i < features.length; i++)
+				featureToWeight.merge(features[i], weights[i], Float::sum);
+
+			int[] sortedFeatures = new int[featureToWeight.size()];
+			int n = 0;
+			for (int feature : featureToWeight.keySet())
+				sortedFeatures[n++] = feature;
+			Arrays.sort(sortedFeatures);
+
+			float[] sortedWeights = new float[sortedFeatures.length];
+			double norm = 0;
+			for (int i = 0; i < sortedFeatures.length; i++)
+			{
+				sortedWeights[i] = featureToWeight.get(sortedFeatures[i]);
+				norm += sortedWeights[i] * sortedWeights[i];
+			}
+			norm = Math.sqrt(norm);
+			for (int i = 0; i < sortedWeights.length && norm > 0; i++)
+				sortedWeights[i] /= norm;
+
+			ids.add(id);
+			vectorFeatures.add(sortedFeatures);
+			vectorWeights.add(sortedWeights);
+			return this;
+		}
+
+		/**
+		 * Add a vector of feature counts, e.g., a bag of hashed
+		 * labels.
+		 * */
+
+		public Builder addCounts(long id, int[] features)
+		{
+			float[] weights = new float[features.length];
+			Arrays.fill(weights, 1);
+			return add(id, features, weights);
+		}
+
+		public synchronized SimilarityIndex build()
+		{
+			int nEntries = 0;
+			for (int[] features : vectorFeatures)
+				nEntries += features.length;
+
+			long[] idArray = new long[ids.size()];
+			int[] vectorStart = new int[ids.size() + 1];
+			int[] vectorFeature = new int[nEntries];
+			float[] vectorWeight = new float[nEntries];
+
+			int pos = 0;
+			for (int i = 0; i < ids.size(); i++)
+			{
+				idArray[i] = ids.get(i);
+				vectorStart[i] = pos;
+				System.arraycopy(vectorFeatures.get(i), 0, vectorFeature, pos,
+						vectorFeatures.get(i).length);
+				System.arraycopy(vectorWeights.get(i), 0, vectorWeight, pos,
+						vectorWeights.get(i).length);
+				pos += vectorFeatures.get(i).length;
+			}
+			vectorStart[ids.size()] = pos;
+
+			return new SimilarityIndex(idArray, vectorStart, vectorFeature,
+					vectorWeight);
+		}
+	}
+
+	private SimilarityIndex(long[] ids, int[] vectorStart, int[] vectorFeature,
+			float[] vectorWeight)
+	{
+		this.ids = ids;
+		this.vectorStart = vectorStart;
+		this.vectorFeature = vectorFeature;
+		this.vectorWeight = vectorWeight;
+
+		idToIndex = new HashMap<Long, Integer>(ids.length * 2);
+		for (int i = 0; i < ids.length; i++)
+			idToIndex.put(ids[i], i);
+
+		// Invert: count distinct features and postings per feature.
+
+		int[] sortedFeatures = vectorFeature.clone();
+		Arrays.sort(sortedFeatures);
+		int nFeatures = 0;
+		for (int i = 0; i < sortedFeatures.length; i++)
+		{
+			if (i == 0 || sortedFeatures[i] != sortedFeatures[i - 1])
+				sortedFeatures[nFeatures++] = sortedFeatures[i];
+		}
+		features = Arrays.copyOf(sortedFeatures, nFeatures);
+
+		postingStart = new int[nFeatures + 1];
+		for (int feature : vectorFeature)
+			postingStart[Arrays.binarySearch(features, feature) + 1]++;
+		for (int i = 0; i < nFeatures; i++)
+			postingStart[i + 1] += postingStart[i];
+
+		postingVector = new int[vectorFeature.length];
+		postingWeight = new float[vectorFeature.length];
+		int[] next = Arrays.copyOf(postingStart, nFeatures);
+		for (int v = 0; v < ids.length; v++)
+		{
+			for (int pos = vectorStart[v]; pos < vectorStart[v + 1]; pos++)
+			{
+				int f = Arrays.binarySearch(features, vectorFeature[pos]);
+				postingVector[next[f]] = v;
+				postingWeight[next[f]++] = vectorWeight[pos];
+			}
+		}
+	}
+
+	public int size()
+	{
+		return ids.length;
+	}
+
+	public boolean contains(long id)
+	{
+		return idToIndex.containsKey(id);
+	}
+
+	/**
+	 * The `k` vectors most similar to the vector with the given id,
+	 * most similar first. The vector itself is not reported.
+	 * */
+
+	public List<Match> nearestNeighbors(long id, int k)
+	{
+		Integer index = idToIndex.get(id);
+		if (index == null)
+			return Collections.emptyList();
+
+		int start = vectorStart[index];
+		int end = vectorStart[index + 1];
+		return nearestNeighbors(Arrays.copyOfRange(vectorFeature, start, end),
+				Arrays.copyOfRange(vectorWeight, start, end), k, index);
+	}
+
+	/**
+	 * The `k` vectors most similar to a normalized query vector with
+	 * sorted features, most similar first.
+	 * */
+
+	public List<Match> nearestNeighbors(int[] queryFeatures,
+			float[] queryWeights, int k)
+	{
+		return nearestNeighbors(queryFeatures, queryWeights, k, -1);
+	}
+
+	private List<Match> nearestNeighbors(int[] queryFeatures,
+			float[] queryWeights, int k, int exclude)
+	{
+		float[] scores = new float[ids.length];
+		boolean[] seen = new boolean[ids.length];
+		int[] candidates = new int[ids.length];
+		int nCandidates = 0;
+
+		for (int i = 0; i < queryFeatures.length; i++)
+		{
+			int f = Arrays.binarySearch(features, queryFeatures[i]);
+			if (f < 0)
+				continue;
+			for (int pos = postingStart[f]; pos < postingStart[f + 1]; pos++)
+			{
+				int v = postingVector[pos];
+				scores[v] += queryWeights[i] * postingWeight[pos];
+				if (!seen[v])
+				{
+					seen[v] = true;
+					candidates[nCandidates++] = v;
+				}
+			}
+		}
+
+		// Keep the k best candidates in a min-heap.
+
+		PriorityQueue<Integer> heap = new PriorityQueue<Integer>(
+				Math.max(1, k), (a, b) -> Float.compare(scores[a], scores[b]));
+		for (int c = 0; c < nCandidates && k > 0; c++)
+		{
+			int v = candidates[c];
+			if (v == exclude)
+				continue;
+			if (heap.size() < k)
+				heap.add(v);
+			else if (scores[v] > scores[heap.peek()])
+			{
+				heap.poll();
+				heap.add(v);
+			}
+		}
+
+		List<Match> matches = new ArrayList<Match>(heap.size());
+		while (!heap.isEmpty())
+		{
+			int v = heap.poll();
+			matches.add(new Match(ids[v], scores[v]));
+		}
+		Collections.reverse(matches);
+		return matches;
+	}
+
+	public void save(Path file) throws IOException
+	{
+		Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(tmpFile))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(ids.length);
+			out.writeInt(vectorFeature.length);
+			for (long id : ids)
+				out.writeLong(id);
+			for (int start : vectorStart)
+				out.writeInt(start);
+			for (int feature : vectorFeature)
+				out.writeInt(feature);
+			for (float weight : vectorWeight)
+				out.writeFloat(weight);
+		}
+		Files.move(tmpFile, file,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public static SimilarityIndex load(Path file) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(file))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a similarity index: " + file);
+
+			int nVectors = in.readInt();
+			int nEntries = in.readInt();
+			long[] ids = new long[nVectors];
+			int[] vectorStart = new int[nVectors + 1];
+			int[] vectorFeature = new int[nEntries];
+			float[] vectorWeight = new float[nEntries];
+
+			for (int i = 0; i < nVectors; i++)
+				ids[i] = in.readLong();
+			for (int i = 0; i <= nVectors; i++)
+				vectorStart[i] = in.readInt();
+			for (int i = 0; i < nEntries; i++)
+				vectorFeature[i] = in.readInt();
+			for (int i = 0; i < nEntries; i++)
+				vectorWeight[i] = in.readFloat();
+
+			return new SimilarityIndex(ids, vectorStart, vectorFeature,
+					vectorWeight);
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package octopus.plugins.binaryimporter;
+
+
+import java.nio.file.Paths;
+
+import octopus.api.binaryImporter.BinaryImporter;
+import octopus.api.plugin.types.OctopusProjectPlugin;
+import octopus.server.importer.binary.BinaryGraphReader;
+import octopus.server.importer.binary.ImportJob;
+
+public class BinaryImporterPlugin extends OctopusProjectPlugin {
+
+	@Override
+	public void execute() throws Exception {
+
+		String projectName = getProjectName();
+		String pathToProjectDir = getPathToProjectDir();
+		String filename = Paths.get(pathToProjectDir, BinaryGraphReader.FILENAME).toString();
+
+		ImportJob importJob = new ImportJob(filename, projectName);
+		(new BinaryImporter()).importBinary(importJob);
+	}
+
+}
@@ -0,0 +1,148 @@
+package octopus.server.database.titan;
+
+import java.util.Iterator;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.StartStep;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.TitanGraphQuery;
+import com.thinkaurelius.titan.core.attribute.Text;
+import com.thinkaurelius.titan.core.schema.TitanManagement;
+
+/**
+ * Search on the `code` property that is answered by the mixed
+ * indices of the `search` backend: `byValue` (STRING mapping) for
+ * prefix and regex search, `byCodeText` (TEXT mapping) for token
+ * search. Both indices also contain the node type, so searches
+ * restricted to a type are a single index query.
+ *
+ * Predicates are passed to Titan rather than raw Lucene query
+ * strings: the query parser used by `indexQuery` lower-cases
+ * prefix and regex terms, which breaks case-sensitive matching on
+ * STRING fields.
+ *
+ * Results are returned as traversals that pull vertices from the
+ * index lazily. A non-negative limit is pushed down into the index.
+ *
+ * Searches depend on these indices, which TitanLocalDatabaseManager
+ * creates for new projects (`byCodeText` and the type in `byValue`
+ * were added with this class). Titan does not refuse queries that no
+ * index can answer but scans all vertices instead, so searches check
+ * that their index exists and fail otherwise; projects created
+ * before have to be re-created. Without the type in `byValue`,
+ * searches restricted to a type filter the nodes matching the code.
+ * */
+
+public class CodeIndexSearch
+{
+	public static final int NO_LIMIT = -1;
+
+	private static final String NODE_CODE = "code";
+	private static final String NODE_TYPE = "type";
+
+	private static final String VALUE_INDEX = "byValue";
+	private static final String TEXT_INDEX = "byCodeText";
+
+	private final TitanGraph graph;
+
+	public CodeIndexSearch(Graph graph)
+	{
+		this.graph = (TitanGraph) graph;
+	}
+
+	/**
+	 * Nodes whose code starts with `prefix`.
+	 *
+	 * @param type node type to restrict the search to, or null
+	 * */
+
+	public GraphTraversal<Vertex, Vertex> prefix(String prefix, String type, int limit)
+	{
+		requireIndex(VALUE_INDEX);
+		TitanGraphQuery<?> query = newQuery(type);
+		query.has(NODE_CODE, Text.PREFIX, prefix);
+		return execute(query, limit);
+	}
+
+	/**
+	 * Nodes whose entire code matches `regex`. Note that the regular
+	 * expression is evaluated by Lucene, i.e., it is anchored and
+	 * does not support character classes such as `\d`.
+	 *
+	 * @param type node type to restrict the search to, or null
+	 * */
+
+	public GraphTraversal<Vertex, Vertex> regex(String regex, String type, int limit)
+	{
+		requireIndex(VALUE_INDEX);
+		TitanGraphQuery<?> query = newQuery(type);
+		query.has(NODE_CODE, Text.REGEX, regex);
+		return execute(query, limit);
+	}
+
+	/**
+	 * Nodes whose code contains all whitespace-separated tokens in
+	 * `tokens`. Matching is case-insensitive.
+	 *
+	 * @param type node type to restrict the search to, or null
+	 * */
+
+	public GraphTraversal<Vertex, Vertex> tokens(String tokens, String type, int limit)
+	{
+		requireIndex(TEXT_INDEX);
+		TitanGraphQuery<?> query = newQuery(type);
+		for (String token : tokens.trim().split("\\s+"))
+		{
+			if (!token.isEmpty())
+				query.has(NODE_CODE, Text.CONTAINS, token);
+		}
+		return execute(query, limit);
+	}
+
+	private void requireIndex(String name)
+	{
+		TitanManagement management = graph.openManagement();
+		try
+		{
+			if (!management.containsGraphIndex(name))
+				throw new IllegalStateException("Index " + name
+						+ " does not exist. Re-create the project to search it.");
+		} finally
+		{
+			management.rollback();
+		}
+	}
+
+	private TitanGraphQuery<?> newQuery(String type)
+	{
+		TitanGraphQuery<?> query = graph.query();
+		if (type != null)
+			query.has(NODE_TYPE, type);
+		return query;
+	}
+
+	private GraphTraversal<Vertex, Vertex> execute(TitanGraphQuery<?> query, int limit)
+	{
+		if (limit != NO_LIMIT)
+		{
+			if (limit < 0)
+				throw new IllegalArgumentException("Invalid limit: " + limit);
+			query.limit(limit);
+		}
+
+		Iterator<? extends Vertex> vertices = query.vertices().iterator();
+		return traversalOver(vertices);
+	}
+
+	private GraphTraversal<Vertex, Vertex> traversalOver(Iterator<? extends Vertex> vertices)
+	{
+		DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<Vertex, Vertex>(graph);
+		traversal.asAdmin().addStep(new StartStep<Vertex>(traversal, vertices));
+		return traversal;
+	}
+
+}
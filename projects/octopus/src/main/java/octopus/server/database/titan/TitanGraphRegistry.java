@@ -0,0 +1,121 @@
+package octopus.server.database.titan;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thinkaurelius.titan.core.TitanFactory;
+import com.thinkaurelius.titan.core.TitanGraph;
+
+/**
+ * Hands out one shared TitanGraph per database configuration file.
+ *
+ * Opening a Titan graph is expensive: storage backend and index
+ * provider are started, caches are allocated and, for BerkeleyJE,
+ * the environment lock is taken. Shells, importers and plugins
+ * operating on the same project therefore share a single instance,
+ * which is reference counted and closed once the last user releases
+ * it.
+ *
+ * Isolation between users is provided by Titan's thread-bound
+ * transactions: each shell, import job and plugin runs on its own
+ * thread and hence obtains its own transaction via `graph.tx()`.
+ * */
+
+public class TitanGraphRegistry
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(TitanGraphRegistry.class);
+
+	private static Map<String, SharedGraph> configFileToGraph = new HashMap<String, SharedGraph>();
+
+	private static class SharedGraph
+	{
+		TitanGraph graph;
+		int refCount;
+
+		SharedGraph(TitanGraph graph)
+		{
+			this.graph = graph;
+		}
+	}
+
+	/**
+	 * Obtain the shared graph for the given configuration file,
+	 * opening it if no one is currently using it. Each call must be
+	 * paired with a call to `release`.
+	 * */
+
+	public synchronized static TitanGraph acquire(String dbConfigFile)
+	{
+		SharedGraph shared = configFileToGraph.get(dbConfigFile);
+
+		if (shared == null || shared.graph.isClosed())
+		{
+			logger.debug("Opening graph for {}", dbConfigFile);
+			shared = new SharedGraph(TitanFactory.open(dbConfigFile));
+			configFileToGraph.put(dbConfigFile, shared);
+		}
+
+		shared.refCount++;
+		return shared.graph;
+	}
+
+	/**
+	 * Give up one reference to the shared graph. The graph is
+	 * closed when its reference count drops to zero.
+	 * */
+
+	public synchronized static void release(String dbConfigFile)
+	{
+		SharedGraph shared = configFileToGraph.get(dbConfigFile);
+		if (shared == null)
+			throw new IllegalStateException(String.format(
+					"Release of graph that is not open: %s", dbConfigFile));
+
+		shared.refCount--;
+		if (shared.refCount > 0)
+			return;
+
+		logger.debug("Closing graph for {}", dbConfigFile);
+		configFileToGraph.remove(dbConfigFile);
+		closeGraph(shared.graph);
+	}
+
+	/**
+	 * Close the shared graph regardless of outstanding references.
+	 * This is required before the database is deleted or reset.
+	 * Handles still referring to the graph will fail on next use.
+	 * */
+
+	public synchronized static void evict(String dbConfigFile)
+	{
+		SharedGraph shared = configFileToGraph.remove(dbConfigFile);
+		if (shared == null)
+			return;
+
+		if (shared.refCount > 0)
+			logger.warn("Evicting graph {} with {} active users",
+					dbConfigFile, shared.refCount);
+
+		closeGraph(shared.graph);
+	}
+
+	public synchronized static int getReferenceCount(String dbConfigFile)
+	{
+		SharedGraph shared = configFileToGraph.get(dbConfigFile);
+		if (shared == null)
+			return 0;
+		return shared.refCount;
+	}
+
+	private static void closeGraph(TitanGraph graph)
+	{
+		if (graph.isClosed())
+			return;
+		graph.close();
+	}
+
+}
@@ -5,9 +5,17 @@ import org.apache.tinkerpop.gremlin.structure.Graph;
 
 import octopus.api.database.Database;
 
+/**
+ * A handle to the shared Titan graph of a project. Closing the
+ * handle finishes the calling thread's transaction and releases
+ * the handle's reference on the graph (see TitanGraphRegistry).
+ * */
+
 public class TitanLocalDatabase implements Database {
 
 	private Graph graph;
+	private String dbConfigFile;
+	private boolean closed = false;
 
 	@Override
 	public Graph getGraph() {
@@ -19,6 +27,11 @@ public class TitanLocalDatabase implements Database {
 		this.graph = graph;
 	}
 
+	public void setDBConfigFile(String dbConfigFile)
+	{
+		this.dbConfigFile = dbConfigFile;
+	}
+
 	public String getPathToDatabase()
 	{
 		Configuration conf = graph.configuration();
@@ -32,7 +45,38 @@ public class TitanLocalDatabase implements Database {
 	}
 
 	@Override
-	public void closeInstance()
+	public synchronized void closeInstance()
+	{
+		if (closed)
+			return;
+		closed = true;
+
+		try {
+			if (graph.tx().isOpen())
+				graph.tx().close();
+		} catch (Exception e) {
+			throw new RuntimeException("Error closing database transaction");
+		} finally {
+			releaseGraph();
+		}
+	}
+
+	private void releaseGraph()
+	{
+		if (dbConfigFile == null)
+		{
+			closeUnsharedGraph();
+			return;
+		}
+
+		try {
+			TitanGraphRegistry.release(dbConfigFile);
+		} catch (Exception e) {
+			throw new RuntimeException("Error closing database instance");
+		}
+	}
+
+	private void closeUnsharedGraph()
 	{
 		try {
 			graph.close();
@@ -7,9 +7,11 @@ import java.nio.file.Paths;
 
 import com.thinkaurelius.titan.core.schema.Mapping;
 import org.apache.commons.io.FileUtils;
-import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
+import com.thinkaurelius.titan.core.Multiplicity;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.TitanFactory;
 import com.thinkaurelius.titan.core.TitanGraph;
@@ -54,51 +56,139 @@ public class TitanLocalDatabaseManager implements DatabaseManager {
 		PropertyKey extIdKey = schema.makePropertyKey("_key").dataType(String.class).make();
 		PropertyKey typeKey = schema.makePropertyKey("type").dataType(String.class).make();
 
-		// At import, we only create separate composite indices for key and type.
+		// At import, we create separate composite indices for key and type.
 		// Additional indices should be built by plugins.
 
 		schema.buildIndex("byKey", Vertex.class).addKey(extIdKey).unique().buildCompositeIndex();
 		schema.buildIndex("byType", Vertex.class).addKey(typeKey).buildCompositeIndex();
 
-		// Lucene indices can be built as follows:
-		// This would be how to build a STRING index
+		// Most lookups (calls, functions, files by name) ask for nodes of
+		// a given type with a given code. Without a combined index, only
+		// `byType` can be used and all nodes of that type are filtered.
+
 		PropertyKey codeKey = schema.makePropertyKey("code").dataType(String.class).make();
+		schema.buildIndex("byTypeAndCode", Vertex.class).addKey(typeKey).addKey(codeKey)
+				.buildCompositeIndex();
+
+		// Lucene indices can be built as follows:
+		// This would be how to build a STRING index. The type is included
+		// so that regex lookups restricted to a node type are answered
+		// by a single index query.
 		schema.buildIndex("byValue", Vertex.class)
-				.addKey(codeKey, Mapping.STRING.asParameter()).buildMixedIndex("search");
+				.addKey(codeKey, Mapping.STRING.asParameter())
+				.addKey(typeKey, Mapping.STRING.asParameter())
+				.buildMixedIndex("search");
 
-		// And this is how to build a TEXT index
-		// schema.buildIndex("byTypeAndValue", Vertex.class).addKey(typeKey).
-		// addKey(valueKey).buildMixedIndex("search");
+		// And this is how to build a TEXT index. It tokenizes code
+		// for token search (see CodeIndexSearch).
+		schema.buildIndex("byCodeText", Vertex.class)
+				.addKey(codeKey, Mapping.TEXT.asParameter())
+				.addKey(typeKey, Mapping.STRING.asParameter())
+				.buildMixedIndex("search");
+
+		declareEdgeLabels(schema);
+		declareVertexCentricIndices(schema);
 
 		schema.commit();
 		graph.close();
 	}
 
+	/**
+	 * Declare the edge labels of the code property graph along with
+	 * their multiplicity. Labels not declared here (e.g., those
+	 * created by plugins) are still created on first use.
+	 * */
+
+	private void declareEdgeLabels(TitanManagement schema)
+	{
+		// Tree-shaped relations: each node has at most one parent.
+
+		makeEdgeLabel(schema, "IS_AST_PARENT", Multiplicity.ONE2MANY);
+		makeEdgeLabel(schema, "IS_FILE_OF", Multiplicity.ONE2MANY);
+		makeEdgeLabel(schema, "IS_PARENT_DIR_OF", Multiplicity.ONE2MANY);
+		makeEdgeLabel(schema, "IS_FUNCTION_OF_AST", Multiplicity.ONE2ONE);
+		makeEdgeLabel(schema, "IS_FUNCTION_OF_CFG", Multiplicity.ONE2ONE);
+
+		// Graph-shaped relations. Parallel edges are legal here, e.g.,
+		// REACHES edges between the same statements for different symbols.
+
+		makeEdgeLabel(schema, "FLOWS_TO", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "REACHES", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "CONTROLS", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "DEF", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "USE", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "DOM", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "POST_DOM", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "DECLARES", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "IS_CLASS_OF", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "CALLS", Multiplicity.MULTI);
+		makeEdgeLabel(schema, "IS_ARG", Multiplicity.MULTI);
+	}
+
+	private void makeEdgeLabel(TitanManagement schema, String name, Multiplicity multiplicity)
+	{
+		schema.makeEdgeLabel(name).multiplicity(multiplicity).make();
+	}
+
+	/**
+	 * Vertex-centric indices allow traversals to select adjacent
+	 * edges by property without scanning all edges of a vertex.
+	 * This matters for high-degree nodes such as statements with
+	 * many incoming REACHES edges or large compound statements.
+	 * */
+
+	private void declareVertexCentricIndices(TitanManagement schema)
+	{
+		// REACHES edges are selected by the symbol they carry
+		// (DATA_FLOW_SYMBOL in joern-lang).
+
+		PropertyKey varKey = schema.makePropertyKey("var").dataType(String.class).make();
+		schema.buildEdgeIndex(schema.getEdgeLabel("REACHES"), "reachesByVar",
+				Direction.BOTH, Order.incr, varKey);
+
+		// AST edges carry the child number of their destination so that
+		// the i'th child can be found without visiting all children.
+		// GraphLoader copies it from the child if a writer omits it.
+
+		PropertyKey childNumKey = schema.makePropertyKey("childNum").dataType(String.class).make();
+		schema.buildEdgeIndex(schema.getEdgeLabel("IS_AST_PARENT"), "astChildByChildNum",
+				Direction.OUT, Order.incr, childNumKey);
+	}
+
+	/**
+	 * Returns a handle to the project's shared graph. The graph is
+	 * only opened if no other handle for the project is active.
+	 * Callers must invoke `closeInstance` on the handle when done.
+	 * */
+
 	@Override
 	public Database getDatabaseInstanceForProject(OctopusProject project)
 	{
 		TitanLocalDatabase database = new TitanLocalDatabase();
 		String dbConfigFile = project.getDBConfigFile();
-		TitanGraph graph = TitanFactory.open(dbConfigFile);
+		TitanGraph graph = TitanGraphRegistry.acquire(dbConfigFile);
 		database.setGraph(graph);
+		database.setDBConfigFile(dbConfigFile);
 		return database;
 	}
 
 	@Override
 	public void deleteDatabaseForProject(OctopusProject project)
 	{
+		String dbConfigFile = project.getDBConfigFile();
 		Database database = getDatabaseInstanceForProject(project);
 		TitanLocalDatabase titanDatabase = (TitanLocalDatabase) database;
 		String dbPathName = titanDatabase.getPathToDatabase();
 		String indexPathName = titanDatabase.getPathToIndex();
 
+		database.closeInstance();
+		TitanGraphRegistry.evict(dbConfigFile);
+
 		try {
 			FileUtils.deleteDirectory(new File(dbPathName));
 			FileUtils.deleteDirectory(new File(indexPathName));
 		} catch (IOException e) {
 			e.printStackTrace();
-		}finally{
-			database.closeInstance();
 		}
 
 	}
@@ -106,11 +196,13 @@ public class TitanLocalDatabaseManager implements DatabaseManager {
 	@Override
 	public void resetDatabase(OctopusProject project)
 	{
-		Database database = getDatabaseInstanceForProject(project);
-		Graph graph = database.getGraph();
+		String dbConfigFile = project.getDBConfigFile();
+		TitanGraphRegistry.evict(dbConfigFile);
+
+		TitanGraph graph = TitanFactory.open(dbConfigFile);
 		try {
 			graph.close();
-			TitanCleanup.clear((TitanGraph) graph);
+			TitanCleanup.clear(graph);
 			initializeDatabaseForProject(project);
 		} catch (Exception e) {
 			// TODO Auto-generated catch block
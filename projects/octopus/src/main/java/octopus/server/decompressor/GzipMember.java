@@ -0,0 +1,280 @@
+package octopus.server.decompressor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A gzip member (RFC 1952) starting at a given offset of a file that
+ * is mapped into memory. The member is inflated incrementally, so that
+ * one thread may inflate its beginning and another one the rest.
+ * */
+
+class GzipMember
+{
+	static final int CHUNK_SIZE = 1 << 20;
+
+	private static final int INPUT_SLICE_SIZE = 1 << 18;
+
+	private static final int FHCRC = 0x02;
+	private static final int FEXTRA = 0x04;
+	private static final int FNAME = 0x08;
+	private static final int FCOMMENT = 0x10;
+	private static final int FRESERVED = 0xe0;
+
+	interface ChunkSink
+	{
+		void accept(ByteBuffer chunk) throws InterruptedException;
+	}
+
+	private final ByteBuffer file;
+	private final Inflater inflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+	private final byte[] slice = new byte[INPUT_SLICE_SIZE];
+
+	private int inputPos;
+	private long outputSize = 0;
+	private int end = -1;
+
+	private byte[] chunk;
+	private int chunkLength;
+
+	/**
+	 * @throws ZipException if there is no valid member header at `start`
+	 * */
+
+	GzipMember(ByteBuffer file, int start) throws ZipException
+	{
+		this.file = file;
+		this.inputPos = skipHeader(start);
+	}
+
+	/**
+	 * Finds the offsets at which a gzip member may start, in increasing
+	 * order. Every actual member start is found, but compressed data may
+	 * contain false positives. The file is only scanned as far as needed
+	 * to answer a request.
+	 * */
+
+	static class CandidateScanner
+	{
+		private final ByteBuffer file;
+		private final int limit;
+
+		private int[] candidates = new int[16];
+		private int n = 0;
+		// Offsets below have been scanned
+		private int scanned = 0;
+
+		CandidateScanner(ByteBuffer file)
+		{
+			this.file = file;
+			this.limit = file.limit() - 10;
+		}
+
+		/**
+		 * @return the i'th candidate, or -1 if there are at most i
+		 * */
+
+		int get(int i)
+		{
+			while (n <= i && scanned < limit)
+				scanNext();
+			return i < n ? candidates[i] : -1;
+		}
+
+		/**
+		 * @return the index of the candidate at `offset`, or -1 if
+		 *         `offset` is not a candidate
+		 * */
+
+		int indexOf(int offset)
+		{
+			while (scanned <= offset && scanned < limit)
+				scanNext();
+			int index = Arrays.binarySearch(candidates, 0, n, offset);
+			return index < 0 ? -1 : index;
+		}
+
+		/**
+		 * Number of candidates found so far
+		 * */
+
+		int size()
+		{
+			return n;
+		}
+
+		private void scanNext()
+		{
+			int i = scanned++;
+			if (file.get(i) != (byte) 0x1f || file.get(i + 1) != (byte) 0x8b
+					|| file.get(i + 2) != 8 || (file.get(i + 3) & FRESERVED) != 0)
+				return;
+			if (n == candidates.length)
+				candidates = Arrays.copyOf(candidates, n * 2);
+			candidates[n++] = i;
+		}
+	}
+
+	/**
+	 * Inflate at most about `maxOutput` more bytes and pass them to the
+	 * sink in chunks of at most CHUNK_SIZE bytes.
+	 *
+	 * @return true if the member has been inflated completely, in which
+	 *         case its trailer has been verified
+	 * */
+
+	boolean inflate(long maxOutput, ChunkSink sink)
+			throws IOException, InterruptedException
+	{
+		long produced = 0;
+		try
+		{
+			while (!inflater.finished() && produced < maxOutput)
+			{
+				if (inflater.needsInput())
+					feedInput();
+				if (chunk == null)
+				{
+					chunk = new byte[CHUNK_SIZE];
+					chunkLength = 0;
+				}
+
+				int n = inflater.inflate(chunk, chunkLength,
+						chunk.length - chunkLength);
+				if (n == 0 && inflater.needsDictionary())
+					throw new ZipException("Invalid deflate data");
+
+				crc.update(chunk, chunkLength, n);
+				chunkLength += n;
+				produced += n;
+				outputSize += n;
+
+				if (chunkLength == chunk.length)
+					flushChunk(sink);
+			}
+		} catch (DataFormatException e)
+		{
+			throw new ZipException(e.getMessage());
+		}
+
+		flushChunk(sink);
+
+		if (!inflater.finished())
+			return false;
+		readTrailer();
+		return true;
+	}
+
+	/**
+	 * Offset of the first byte after this member. Only valid once the
+	 * member has been inflated completely.
+	 * */
+
+	int getEnd()
+	{
+		return end;
+	}
+
+	void release()
+	{
+		inflater.end();
+	}
+
+	private void flushChunk(ChunkSink sink) throws InterruptedException
+	{
+		if (chunk == null || chunkLength == 0)
+			return;
+		sink.accept(ByteBuffer.wrap(chunk, 0, chunkLength));
+		chunk = null;
+
+		if (Thread.currentThread().isInterrupted())
+			throw new InterruptedException();
+	}
+
+	private void feedInput() throws EOFException
+	{
+		int n = Math.min(slice.length, file.limit() - inputPos);
+		if (n <= 0)
+			throw new EOFException("Unexpected end of gzip member");
+
+		ByteBuffer input = file.duplicate();
+		input.position(inputPos);
+		input.get(slice, 0, n);
+		inflater.setInput(slice, 0, n);
+		inputPos += n;
+	}
+
+	private void readTrailer() throws IOException
+	{
+		int trailer = inputPos - inflater.getRemaining();
+		if (trailer + 8 > file.limit())
+			throw new EOFException("Unexpected end of gzip member");
+
+		long expectedCrc = readInt(trailer) & 0xffffffffL;
+		long expectedSize = readInt(trailer + 4) & 0xffffffffL;
+		if (expectedCrc != crc.getValue())
+			throw new ZipException("Corrupt gzip member (bad CRC)");
+		if (expectedSize != (outputSize & 0xffffffffL))
+			throw new ZipException("Corrupt gzip member (bad size)");
+
+		end = trailer + 8;
+	}
+
+	private int skipHeader(int start) throws ZipException
+	{
+		try
+		{
+			if (unsignedByte(start) != 0x1f || unsignedByte(start + 1) != 0x8b
+					|| unsignedByte(start + 2) != 8)
+				throw new ZipException("Not a gzip member");
+
+			int flags = unsignedByte(start + 3);
+			if ((flags & FRESERVED) != 0)
+				throw new ZipException("Not a gzip member");
+
+			// Skip MTIME, XFL and OS
+			int pos = start + 10;
+			if ((flags & FEXTRA) != 0)
+				pos += 2 + (unsignedByte(pos) | unsignedByte(pos + 1) << 8);
+			if ((flags & FNAME) != 0)
+				pos = skipZeroTerminated(pos);
+			if ((flags & FCOMMENT) != 0)
+				pos = skipZeroTerminated(pos);
+			if ((flags & FHCRC) != 0)
+				pos += 2;
+
+			if (pos > file.limit())
+				throw new ZipException("Truncated gzip header");
+			return pos;
+		} catch (IndexOutOfBoundsException e)
+		{
+			throw new ZipException("Truncated gzip header");
+		}
+	}
+
+	private int skipZeroTerminated(int pos)
+	{
+		while (file.get(pos) != 0)
+			pos++;
+		return pos + 1;
+	}
+
+	private int unsignedByte(int pos)
+	{
+		return file.get(pos) & 0xff;
+	}
+
+	private int readInt(int pos)
+	{
+		return unsignedByte(pos) | unsignedByte(pos + 1) << 8
+				| unsignedByte(pos + 2) << 16 | unsignedByte(pos + 3) << 24;
+	}
+
+}
@@ -0,0 +1,213 @@
+package octopus.server.decompressor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writes files on background threads. The caller reads the content of
+ * each file into large direct buffers taken from a fixed pool, which
+ * are written by the thread the file is assigned to and then returned
+ * to the pool. The pool bounds memory use and makes the caller wait if
+ * the writers fall behind. Files are assigned to threads by path, so
+ * that a path written more than once is always written by the same
+ * thread, in order.
+ * */
+
+class ParallelFileWriter
+{
+	static final int BUFFER_SIZE = 1 << 20;
+	static final int NUMBER_OF_BUFFERS = 16;
+
+	private static final Command END_OF_FILES = new Command(null, null, true);
+
+	private static class Command
+	{
+		final Path path;
+		final ByteBuffer buffer;
+		final boolean lastOfFile;
+
+		Command(Path path, ByteBuffer buffer, boolean lastOfFile)
+		{
+			this.path = path;
+			this.buffer = buffer;
+			this.lastOfFile = lastOfFile;
+		}
+	}
+
+	private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<ByteBuffer>(
+			NUMBER_OF_BUFFERS);
+	private final List<BlockingQueue<Command>> queues = new ArrayList<BlockingQueue<Command>>();
+	private final List<Thread> threads = new ArrayList<Thread>();
+
+	private volatile IOException writerException;
+
+	ParallelFileWriter(int nThreads)
+	{
+		for (int i = 0; i < NUMBER_OF_BUFFERS; i++)
+			freeBuffers.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+		for (int i = 0; i < nThreads; i++)
+		{
+			BlockingQueue<Command> queue = new LinkedBlockingQueue<Command>();
+			Thread thread = new Thread(() -> writeFiles(queue), "file-writer-"
+					+ i);
+			thread.setDaemon(true);
+			queues.add(queue);
+			threads.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Read `in` to its end and write its content to `path`, replacing
+	 * an existing file. Does not close `in`.
+	 * */
+
+	void writeFile(Path path, InputStream in) throws IOException
+	{
+		BlockingQueue<Command> queue = queues.get(Math.floorMod(
+				path.hashCode(), queues.size()));
+
+		ReadableByteChannel channel = Channels.newChannel(in);
+		try
+		{
+			ByteBuffer buffer = freeBuffers.take();
+			while (channel.read(buffer) >= 0)
+			{
+				if (buffer.hasRemaining())
+					continue;
+				buffer.flip();
+				submit(queue, new Command(path, buffer, false));
+				buffer = freeBuffers.take();
+			}
+			buffer.flip();
+			submit(queue, new Command(path, buffer, true));
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Wait until all files have been written.
+	 * */
+
+	void finish() throws IOException
+	{
+		try
+		{
+			for (BlockingQueue<Command> queue : queues)
+				queue.put(END_OF_FILES);
+			for (Thread thread : threads)
+				thread.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+
+		if (writerException != null)
+			throw writerException;
+	}
+
+	/**
+	 * Stop writing, leaving files that have not been written
+	 * completely.
+	 * */
+
+	void abort()
+	{
+		for (Thread thread : threads)
+			thread.interrupt();
+	}
+
+	private void submit(BlockingQueue<Command> queue, Command command)
+			throws IOException, InterruptedException
+	{
+		if (writerException != null)
+		{
+			freeBuffers.put(command.buffer);
+			throw writerException;
+		}
+		queue.put(command);
+	}
+
+	private void writeFiles(BlockingQueue<Command> queue)
+	{
+		FileChannel channel = null;
+		try
+		{
+			Command command;
+			while ((command = queue.take()) != END_OF_FILES)
+			{
+				try
+				{
+					if (channel == null && writerException == null)
+						channel = open(command.path);
+					if (channel != null)
+					{
+						while (command.buffer.hasRemaining())
+							channel.write(command.buffer);
+					}
+					if (command.lastOfFile && channel != null)
+					{
+						channel.close();
+						channel = null;
+					}
+				} catch (IOException e)
+				{
+					if (writerException == null)
+						writerException = e;
+					closeQuietly(channel);
+					channel = null;
+				} finally
+				{
+					command.buffer.clear();
+					freeBuffers.put(command.buffer);
+				}
+			}
+		} catch (InterruptedException e)
+		{
+			// Aborted
+		} finally
+		{
+			closeQuietly(channel);
+		}
+	}
+
+	private FileChannel open(Path path) throws IOException
+	{
+		Path parent = path.getParent();
+		if (parent != null)
+			Files.createDirectories(parent);
+		return FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	private static void closeQuietly(FileChannel channel)
+	{
+		if (channel == null)
+			return;
+		try
+		{
+			channel.close();
+		} catch (IOException e)
+		{
+			// Already failed
+		}
+	}
+
+}
@@ -0,0 +1,372 @@
+package octopus.server.decompressor;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The decompressed content of a gzip file, which is inflated ahead of
+ * the reader by a separate thread.
+ *
+ * Files consisting of several gzip members, such as those written by
+ * bgzip or by concatenating gzip files, are inflated in parallel: the
+ * offsets that may start one of the next members are inflated
+ * speculatively by pool threads. Members are then stitched together
+ * in order, starting at offset 0, and only the results for offsets at
+ * which a member actually starts are used. The file is scanned for
+ * such offsets only as far as needed to keep the pool busy, and at
+ * most PREFETCH_BUDGET bytes are inflated ahead in total. The
+ * remainder of a member exceeding its share of the budget is inflated
+ * sequentially, as are files with a single member (including plain
+ * pigz output, which is a single member).
+ *
+ * As with GZIPInputStream, trailing bytes that do not start a member
+ * are ignored.
+ * */
+
+public class PipelinedGzipInputStream extends InputStream
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(PipelinedGzipInputStream.class);
+
+	static final int QUEUE_CAPACITY = 16;
+	static final long PREFETCH_BUDGET = 32L * GzipMember.CHUNK_SIZE;
+
+	private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+	private static class Prefetched
+	{
+		GzipMember member;
+		final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+		boolean complete;
+		IOException exception;
+	}
+
+	private final Path path;
+	private final int nThreads;
+	private final BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<ByteBuffer>(
+			QUEUE_CAPACITY);
+	private final Thread inflateThread;
+
+	private volatile Throwable inflateFailure;
+	private ByteBuffer current;
+	private boolean endOfStream = false;
+
+	public PipelinedGzipInputStream(Path path)
+	{
+		this(path, Runtime.getRuntime().availableProcessors());
+	}
+
+	public PipelinedGzipInputStream(Path path, int nThreads)
+	{
+		this.path = path;
+		this.nThreads = Math.max(1, nThreads);
+
+		inflateThread = new Thread(this::inflateFile, "gzip-inflate");
+		inflateThread.setDaemon(true);
+		inflateThread.start();
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (!nextChunk())
+			return -1;
+		return current.get() & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+			return 0;
+		if (!nextChunk())
+			return -1;
+
+		int n = Math.min(len, current.remaining());
+		current.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public int available()
+	{
+		return current == null ? 0 : current.remaining();
+	}
+
+	@Override
+	public void close()
+	{
+		endOfStream = true;
+		inflateThread.interrupt();
+	}
+
+	private boolean nextChunk() throws IOException
+	{
+		while (current == null || !current.hasRemaining())
+		{
+			if (endOfStream)
+				return false;
+			try
+			{
+				current = queue.take();
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			if (current == END_OF_STREAM)
+			{
+				endOfStream = true;
+				rethrowInflateFailure();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Pass on a failure of the inflating threads. Failures other than
+	 * I/O errors are reported as such.
+	 * */
+
+	private void rethrowInflateFailure() throws IOException
+	{
+		Throwable failure = inflateFailure;
+		if (failure == null)
+			return;
+		if (failure instanceof IOException)
+			throw (IOException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		throw new IOException(failure);
+	}
+
+	private void inflateFile()
+	{
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if (nThreads > 1 && size > 0 && size <= Integer.MAX_VALUE)
+			{
+				ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY,
+						0, size);
+				inflateMembersInParallel(file);
+			} else
+			{
+				inflateSequentially();
+			}
+		} catch (InterruptedException e)
+		{
+			// The stream has been closed
+			Thread.currentThread().interrupt();
+		} catch (Throwable t)
+		{
+			inflateFailure = t;
+		} finally
+		{
+			endStream();
+		}
+	}
+
+	/**
+	 * Tell the reader that no more chunks follow, however inflating
+	 * ended. Inflating is only interrupted once the stream has been
+	 * closed, in which case no one waits for the end of the stream.
+	 * */
+
+	private void endStream()
+	{
+		try
+		{
+			queue.put(END_OF_STREAM);
+		} catch (InterruptedException e)
+		{
+			return;
+		}
+	}
+
+	private void inflateSequentially()
+			throws IOException, InterruptedException
+	{
+		try (InputStream in = new GZIPInputStream(
+				new FileInputStream(path.toFile()), 1 << 16))
+		{
+			while (true)
+			{
+				byte[] chunk = new byte[GzipMember.CHUNK_SIZE];
+				int length = 0;
+				int n;
+				while (length < chunk.length
+						&& (n = in.read(chunk, length, chunk.length - length)) >= 0)
+					length += n;
+
+				if (length > 0)
+					queue.put(ByteBuffer.wrap(chunk, 0, length));
+				if (length < chunk.length)
+					return;
+				if (Thread.interrupted())
+					throw new InterruptedException();
+			}
+		}
+	}
+
+	private void inflateMembersInParallel(ByteBuffer file)
+			throws IOException, InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+		Map<Integer, Future<Prefetched>> inFlight = new HashMap<Integer, Future<Prefetched>>();
+		GzipMember.CandidateScanner candidates = new GzipMember.CandidateScanner(
+				file);
+
+		// Each candidate in flight may hold its share of the budget.
+		int window = (int) Math.min(2 * nThreads, PREFETCH_BUDGET
+				/ GzipMember.CHUNK_SIZE);
+		long prefetchLimit = PREFETCH_BUDGET / window;
+
+		int nextToSubmit = 0;
+		int nMembers = 0;
+
+		try
+		{
+			int pos = 0;
+			while (pos < file.limit())
+			{
+				int index = candidates.indexOf(pos);
+				if (index < 0 && pos == 0)
+					throw new ZipException("Not in GZIP format");
+				if (index < 0)
+					break;
+
+				cancelBefore(inFlight, index);
+				nextToSubmit = Math.max(nextToSubmit, index);
+				while (nextToSubmit < index + window)
+				{
+					int start = candidates.get(nextToSubmit);
+					if (start < 0)
+						break;
+					inFlight.put(nextToSubmit++, pool.submit(() -> prefetch(
+							file, start, prefetchLimit)));
+				}
+
+				Prefetched prefetched = get(inFlight.remove(index));
+				if (prefetched.exception != null)
+					throw prefetched.exception;
+
+				for (ByteBuffer chunk : prefetched.chunks)
+					queue.put(chunk);
+
+				GzipMember member = prefetched.member;
+				try
+				{
+					if (!prefetched.complete)
+						member.inflate(Long.MAX_VALUE, queue::put);
+				} finally
+				{
+					member.release();
+				}
+
+				pos = member.getEnd();
+				nMembers++;
+			}
+		} finally
+		{
+			for (Future<Prefetched> future : inFlight.values())
+				discard(future);
+			pool.shutdownNow();
+		}
+
+		logger.debug("Inflated {} gzip members of {} candidates", nMembers,
+				candidates.size());
+	}
+
+	private Prefetched prefetch(ByteBuffer file, int start, long limit)
+			throws InterruptedException
+	{
+		Prefetched prefetched = new Prefetched();
+		try
+		{
+			prefetched.member = new GzipMember(file.duplicate(), start);
+			prefetched.complete = prefetched.member.inflate(limit,
+					prefetched.chunks::add);
+		} catch (IOException e)
+		{
+			// Most likely not a member start.
+			prefetched.exception = e;
+			if (prefetched.member != null)
+				prefetched.member.release();
+		} catch (Throwable t)
+		{
+			if (prefetched.member != null)
+				prefetched.member.release();
+			throw t;
+		}
+		return prefetched;
+	}
+
+	private void cancelBefore(Map<Integer, Future<Prefetched>> inFlight,
+			int index)
+	{
+		Iterator<Map.Entry<Integer, Future<Prefetched>>> it = inFlight
+				.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Integer, Future<Prefetched>> entry = it.next();
+			if (entry.getKey() < index)
+			{
+				discard(entry.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	private void discard(Future<Prefetched> future)
+	{
+		if (future.cancel(true) || !future.isDone())
+			return;
+		try
+		{
+			Prefetched prefetched = future.get();
+			if (prefetched.member != null && prefetched.exception == null)
+				prefetched.member.release();
+		} catch (InterruptedException | ExecutionException e)
+		{
+			// Nothing to release
+		}
+	}
+
+	private Prefetched get(Future<Prefetched> future)
+			throws IOException, InterruptedException
+	{
+		try
+		{
+			return future.get();
+		} catch (ExecutionException e)
+		{
+			throw new IOException(e.getCause());
+		}
+	}
+
+}
@@ -1,51 +1,60 @@
 package octopus.server.decompressor;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+/**
+ * Extracts a .tar.gz archive in a pipeline of three stages: gzip is
+ * inflated by PipelinedGzipInputStream (in parallel for multi-member
+ * files), the tar stream is parsed on the calling thread, and files are
+ * written by a ParallelFileWriter.
+ * */
 
 public class TarballDecompressor {
 
+	static final int NUMBER_OF_WRITERS = 2;
+
 	public void decompress(String tarballFilename, String outputDirectory) throws FileNotFoundException, IOException
 	{
 		if(!outputDirectory.endsWith(File.separator))
 			outputDirectory = outputDirectory + File.separator;
 
-		TarArchiveInputStream tarIn = createTarInputStreamForFile(tarballFilename);
-
-		TarArchiveEntry entry;
-		while ((entry = (TarArchiveEntry) tarIn.getNextEntry()) != null)
+		ParallelFileWriter writer = new ParallelFileWriter(NUMBER_OF_WRITERS);
+		try (TarArchiveInputStream tarIn = createTarInputStreamForFile(tarballFilename))
 		{
-			String outputFilename = outputDirectory + entry.getName();
+			TarArchiveEntry entry;
+			while ((entry = tarIn.getNextTarEntry()) != null)
+			{
+				String outputFilename = outputDirectory + entry.getName();
 
-			if(outputFilename.contains("pax_global_header"))
-				continue;
+				if(outputFilename.contains("pax_global_header"))
+					continue;
 
-			if (entry.isDirectory()) {
-				createOutputSubDirectory(outputFilename);
-				continue;
+				if (entry.isDirectory()) {
+					createOutputSubDirectory(outputFilename);
+					continue;
+				}
+				writer.writeFile(Paths.get(outputFilename), tarIn);
 			}
-			decompressFileToOutputDirectory(tarIn, outputFilename);
+			writer.finish();
+		} finally
+		{
+			writer.abort();
 		}
-		tarIn.close();
 	}
 
-	private TarArchiveInputStream createTarInputStreamForFile(String tarballFilename)
+	public TarArchiveInputStream createTarInputStreamForFile(String tarballFilename)
 			throws FileNotFoundException, IOException
 	{
-		FileInputStream fin = new FileInputStream(tarballFilename);
-		BufferedInputStream in = new BufferedInputStream(fin);
-		GzipCompressorInputStream gzIn = new GzipCompressorInputStream(in);
-		TarArchiveInputStream tarIn = new TarArchiveInputStream(gzIn);
-		return tarIn;
+		File file = new File(tarballFilename);
+		if (!file.exists())
+			throw new FileNotFoundException(tarballFilename);
+		return new TarArchiveInputStream(new PipelinedGzipInputStream(file.toPath()));
 	}
 
 	private void createOutputSubDirectory(String outputFilename)
@@ -54,20 +63,4 @@ public class TarballDecompressor {
 	    f.mkdirs();
 	}
 
-	private void decompressFileToOutputDirectory(TarArchiveInputStream tarIn, String outputFilename) throws IOException
-	{
-		final int BUFFER_SIZE = 2048;
-		byte data[] = new byte[BUFFER_SIZE];
-		int bytesRead;
-
-		FileOutputStream fos = new FileOutputStream(outputFilename);
-		BufferedOutputStream dest = new BufferedOutputStream(fos, BUFFER_SIZE);
-		while ((bytesRead = tarIn.read(data, 0, BUFFER_SIZE)) != -1)
-		{
-			dest.write(data, 0, bytesRead);
-		}
-		dest.close();
-
-	}
-
 }
@@ -6,17 +6,36 @@ import octopus.OctopusEnvironment;
 import octopus.api.database.Database;
 import octopus.api.projects.OctopusProject;
 import octopus.api.projects.ProjectManager;
+import octopus.server.gremlinShell.evaluation.CancellationStrategy;
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
+import octopus.server.gremlinShell.evaluation.ProjectEvaluationLimiter;
 import octopus.server.gremlinShell.fileWalker.OrderedWalker;
 import octopus.server.gremlinShell.fileWalker.SourceFileWalker;
+import octopus.server.gremlinShell.profiling.QueryProfiler;
+import octopus.server.gremlinShell.profiling.SlowQueryLog;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class OctopusGremlinShell
 {
+	public static final String TIMEOUT_PROPERTY = "octopus.queryTimeout";
+	public static final String CPU_QUOTA_PROPERTY = "octopus.queryCpuQuota";
+
+	private static final ScheduledExecutorService timeoutScheduler = Executors
+			.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "shell-timeouts");
+				thread.setDaemon(true);
+				return thread;
+			});
 
 	private GroovyShell shell;
 	private int port;
@@ -26,6 +45,12 @@ public class OctopusGremlinShell
 	private Graph graph;
 	private String projectName;
 	private GraphTraversalSource g;
+	private QueryProfiler profiler;
+
+	private long queryTimeoutMillis = Long.getLong(TIMEOUT_PROPERTY, -1);
+	private long cpuQuotaMillis = Long.getLong(CPU_QUOTA_PROPERTY, -1);
+	private volatile EvaluationToken currentEvaluation;
+	private ScheduledFuture<?> currentTimeout;
 
 	static
 	{
@@ -60,12 +85,16 @@ public class OctopusGremlinShell
 		OctopusProject project = new ProjectManager().getProjectByName(projectName);
 		database = project.getNewDatabaseInstance();
 		this.projectName = projectName;
+		profiler = new QueryProfiler(new SlowQueryLog(Paths.get(project
+				.getPathToProjectDir())));
 
 		graph = database.getGraph();
+		CancellationStrategy.install(graph);
 		g = graph.traversal();
 		this.shell.setVariable("graph", graph);
 		this.shell.setVariable("g", g);
 		this.shell.setVariable("sessionSteps", new HashMap<String, Closure>());
+		this.shell.setVariable("projectDir", project.getPathToProjectDir());
 	}
 
 	private void loadStandardQueryLibrary()
@@ -91,18 +120,117 @@ public class OctopusGremlinShell
 		walker.walk(new String[]{languagesDir});
 	}
 
+	/**
+	 * Evaluate code and return its result as is. Unlike `execute`,
+	 * lazy results are not drained for profiling and exceptions are
+	 * passed on to the caller.
+	 * */
+
+	public Object evaluate(String code)
+	{
+		return shell.evaluate(code);
+	}
+
 	public Object execute(String code)
 	{
 
 		try
 		{
-			return shell.evaluate(code);
+			return profiler.evaluate(code, () -> shell.evaluate(code));
 		} catch (Exception ex)
 		{
 			return String.format("[%s] %s\n", ex.getClass().getSimpleName(), ex.getMessage());
 		}
 	}
 
+	/**
+	 * Begin an evaluation on the calling thread. Blocks until the
+	 * project's concurrency limit admits the evaluation. Until
+	 * `finishEvaluation` is called, traversals run by the thread stop
+	 * at the next step boundary once the evaluation is cancelled via
+	 * `cancelEvaluation` or exceeds its timeout or CPU quota.
+	 * */
+
+	public EvaluationToken startEvaluation()
+	{
+		EvaluationToken token = new EvaluationToken(cpuQuotaMillis);
+		currentEvaluation = token;
+		try
+		{
+			ProjectEvaluationLimiter.acquire(projectName, token);
+		} catch (RuntimeException e)
+		{
+			currentEvaluation = null;
+			throw e;
+		}
+
+		token.bind();
+		if (queryTimeoutMillis >= 0)
+		{
+			String reason = String.format("timeout of %d ms exceeded",
+					queryTimeoutMillis);
+			currentTimeout = timeoutScheduler.schedule(
+					() -> token.cancel(reason), queryTimeoutMillis,
+					TimeUnit.MILLISECONDS);
+		}
+		return token;
+	}
+
+	/**
+	 * End an evaluation started by `startEvaluation`. If it has been
+	 * cancelled, the thread's transaction is rolled back, as it may
+	 * hold partial modifications.
+	 * */
+
+	public void finishEvaluation(EvaluationToken token)
+	{
+		if (currentTimeout != null)
+		{
+			currentTimeout.cancel(false);
+			currentTimeout = null;
+		}
+		token.unbind();
+		ProjectEvaluationLimiter.release(projectName);
+		currentEvaluation = null;
+
+		if (token.isCancelled() && graph.tx().isOpen())
+			graph.tx().rollback();
+	}
+
+	/**
+	 * Cancel the running evaluation, if any. May be called from any
+	 * thread.
+	 * */
+
+	public boolean cancelEvaluation()
+	{
+		EvaluationToken token = currentEvaluation;
+		if (token == null)
+			return false;
+		token.cancel("cancelled by client");
+		return true;
+	}
+
+	public long getQueryTimeoutMillis()
+	{
+		return queryTimeoutMillis;
+	}
+
+	public void setQueryTimeoutMillis(long queryTimeoutMillis)
+	{
+		this.queryTimeoutMillis = queryTimeoutMillis;
+	}
+
+	public long getCpuQuotaMillis()
+	{
+		return cpuQuotaMillis;
+	}
+
+	public void setCpuQuotaMillis(long cpuQuotaMillis)
+	{
+		this.cpuQuotaMillis = cpuQuotaMillis;
+	}
+
 	public int getPort()
 	{
 		return port;
@@ -158,4 +286,9 @@ public class OctopusGremlinShell
 		return graph;
 	}
 
+	public QueryProfiler getProfiler()
+	{
+		return profiler;
+	}
+
 }
@@ -8,14 +8,44 @@ import java.io.OutputStreamWriter;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import octopus.server.gremlinShell.cursor.CursorTable;
+import octopus.server.gremlinShell.evaluation.EvaluationToken;
 import octopus.server.gremlinShell.io.OctopusClientReader;
 import octopus.server.gremlinShell.io.OctopusClientWriter;
+import octopus.server.gremlinShell.profiling.QueryProfile;
+import octopus.server.gremlinShell.profiling.QueryProfiler;
+import octopus.server.gremlinShell.profiling.SlowQueryLog;
 import octopus.server.shellmanager.OctopusShellManager;
 
+/**
+ * Serves the clients of a shell, one at a time.
+ *
+ * Messages are read on this thread but processed in order on a
+ * dedicated evaluator thread, so that a client can send `cancel`
+ * while an evaluation is running. All evaluations of a shell run on
+ * the same evaluator thread and hence share its Titan transaction.
+ *
+ * `cancel` has no reply of its own: it cancels the running and all
+ * queued evaluations, each of which replies with an error.
+ *
+ * Large results can be retrieved in pages via server-side cursors:
+ * `open_cursor <code>` evaluates code and replies with a cursor id,
+ * `fetch_cursor <id> <count>` replies with up to count further
+ * elements (fewer only once the cursor is exhausted) and
+ * `close_cursor <id>` releases the cursor. Cursors are closed when
+ * the client disconnects.
+ * */
+
 public class ShellRunnable implements Runnable
 {
 	private static final Logger logger = LoggerFactory
@@ -26,12 +56,19 @@ public class ShellRunnable implements Runnable
 	private Socket clientSocket;
 	private OctopusClientWriter clientWriter;
 	private OctopusClientReader clientReader;
+	private CursorTable cursors = new CursorTable();
+
+	private volatile boolean listening = true;
 
-	private boolean listening = true;
+	private final ExecutorService evaluator;
+	private long submittedEvaluations = 0;
+	private volatile long cancelledUpTo = 0;
 
 	public ShellRunnable(OctopusGremlinShell shell) throws IOException
 	{
 		this.shell = shell;
+		evaluator = Executors.newSingleThreadExecutor(runnable -> new Thread(
+				runnable, "shell-evaluator-" + shell.getPort()));
 		createLocalListeningSocket();
 	}
 
@@ -77,6 +114,7 @@ public class ShellRunnable implements Runnable
 			}
 
 		}
+		evaluator.shutdown();
 		OctopusShellManager.destroyShell(shell.getPort());
 		serverSocket.close();
 	}
@@ -122,38 +160,206 @@ public class ShellRunnable implements Runnable
 
 		String message;
 		while ((message = clientReader.readMessage()) != null)
+		{
+			if (message.equals("cancel"))
+			{
+				cancelEvaluations();
+				continue;
+			}
+
+			final String request = message;
+			final long evaluationNumber = ++submittedEvaluations;
+			evaluator.submit(() -> processMessage(request, evaluationNumber));
+
+			if (message.equals("quit"))
+				break;
+		}
+
+		// A client that has gone away cannot receive pending results.
+		if (message == null)
+			cancelEvaluations();
+
+		waitForEvaluator();
+		cursors.closeAll();
+		clientSocket.close();
+	}
+
+	private void cancelEvaluations()
+	{
+		cancelledUpTo = submittedEvaluations;
+		shell.cancelEvaluation();
+	}
+
+	private void waitForEvaluator()
+	{
+		Future<?> done = evaluator.submit(() -> {
+		});
+		try
+		{
+			done.get();
+		} catch (InterruptedException | ExecutionException e)
+		{
+			logger.warn("Interrupted while waiting for evaluator: {}",
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Runs on the evaluator thread.
+	 * */
+
+	private void processMessage(String message, long evaluationNumber)
+	{
+		try
 		{
 			if (message.equals("quit"))
 			{
 				prepareForShutdown();
-				break;
 			} else if(message.equals("toggle_json")){
 				clientWriter.toggleJSONOutput();
 				clientWriter.writeResult("toggled");
-				continue;
+			} else if(message.equals("toggle_profiling")){
+				toggleProfiling();
+			} else if(message.equals("last_profile")){
+				writeLastProfile();
+			} else if(message.startsWith("slow_query_threshold")){
+				SlowQueryLog slowQueryLog = shell.getProfiler().getSlowQueryLog();
+				if (setLimit(message, slowQueryLog::setThresholdMillis))
+					clientWriter.writeResult(String.format("%d ms (%s)",
+							slowQueryLog.getThresholdMillis(),
+							slowQueryLog.getLogFile()));
+			} else if(message.startsWith("query_timeout")){
+				if (setLimit(message, shell::setQueryTimeoutMillis))
+					clientWriter.writeResult(shell.getQueryTimeoutMillis() + " ms");
+			} else if(message.startsWith("cpu_quota")){
+				if (setLimit(message, shell::setCpuQuotaMillis))
+					clientWriter.writeResult(shell.getCpuQuotaMillis() + " ms");
+			} else if(message.startsWith("open_cursor ")){
+				String code = message.substring("open_cursor ".length());
+				evaluteOnShell(evaluationNumber,
+						() -> cursors.open(shell.evaluate(code)));
+			} else if(message.startsWith("fetch_cursor ")){
+				String[] args = message.trim().split("\\s+");
+				evaluteOnShell(evaluationNumber, () -> cursors.fetch(
+						parseCursorArgument(args, 1),
+						parseCursorArgument(args, 2)));
+			} else if(message.startsWith("close_cursor ")){
+				String[] args = message.trim().split("\\s+");
+				cursors.close(parseCursorArgument(args, 1));
+				clientWriter.writeResult("closed");
+			} else {
+				evaluteOnShell(evaluationNumber, () -> shell.execute(message));
 			}
+		} catch (IllegalArgumentException e)
+		{
+			writeError(e);
+		} catch (IOException e)
+		{
+			logger.warn("IOException when writing to client: {}",
+					e.getMessage());
+		}
+	}
 
-			evaluteOnShell(message);
+	private int parseCursorArgument(String[] args, int index)
+	{
+		if (args.length <= index)
+			throw new IllegalArgumentException("Missing argument: "
+					+ String.join(" ", args));
+		try
+		{
+			return Integer.parseInt(args[index]);
+		} catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Invalid argument: "
+					+ args[index]);
 		}
-		clientSocket.close();
 	}
 
-	private void evaluteOnShell(String message) throws IOException {
+	private void writeError(Exception ex)
+	{
+		try
+		{
+			clientWriter.writeResult(String.format("[%s] %s", ex.getClass()
+					.getSimpleName(), ex.getMessage()));
+		} catch (IOException e)
+		{
+			logger.warn("IOException when writing to client: {}",
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Run an evaluation under a fresh evaluation token and write its
+	 * result, or the error it raised, to the client. The token stays
+	 * bound while lazy results are written, so that timeouts and
+	 * cancellation also apply to their iteration.
+	 * */
+
+	private void evaluteOnShell(long evaluationNumber,
+			Callable<Object> evaluation) throws IOException {
 		Object evalResult;
+		EvaluationToken token = null;
 		try
 		{
-			evalResult = shell.execute(message);
+			token = shell.startEvaluation();
+			if (evaluationNumber <= cancelledUpTo)
+				token.cancel("cancelled by client");
+			token.check();
+
+			evalResult = evaluation.call();
 			clientWriter.writeResult(evalResult);
 		} catch (Exception ex)
 		{
-			String errorMessage = ex.getMessage();
-			if(errorMessage != null)
-					clientWriter.writeResult(errorMessage);
-				else
-					clientWriter.writeResult(ex.toString());
+			writeError(ex);
+		} finally
+		{
+			if (token != null)
+				shell.finishEvaluation(token);
+		}
+	}
+
+	/**
+	 * Handles commands of the form `<command> [millis]`, used for the
+	 * slow query threshold, the query timeout and the CPU quota. If
+	 * an argument is given, it is passed to `setter`. A negative
+	 * value disables the respective limit. Returns false if an error
+	 * has been written to the client.
+	 * */
+
+	private boolean setLimit(String message, LongConsumer setter)
+			throws IOException
+	{
+		String[] args = message.trim().split("\\s+");
+		if (args.length < 2)
+			return true;
+
+		try
+		{
+			setter.accept(Long.parseLong(args[1]));
+			return true;
+		} catch (NumberFormatException e)
+		{
+			clientWriter.writeResult("invalid value: " + args[1]);
+			return false;
 		}
 	}
 
+	private void toggleProfiling() throws IOException
+	{
+		QueryProfiler profiler = shell.getProfiler();
+		profiler.setProfilingEnabled(!profiler.isProfilingEnabled());
+		clientWriter.writeResult("toggled");
+	}
+
+	private void writeLastProfile() throws IOException
+	{
+		QueryProfile profile = shell.getProfiler().getLastProfile();
+		if (profile == null)
+			clientWriter.writeResult("no profile available");
+		else
+			clientWriter.writeResult(profile.toString());
+	}
+
 	private void prepareForShutdown() throws IOException {
 		listening = false;
 		clientWriter.writeResult("bye");
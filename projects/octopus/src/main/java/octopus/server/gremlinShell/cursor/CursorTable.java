@@ -0,0 +1,101 @@
+package octopus.server.gremlinShell.cursor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side cursors of a client session. A cursor keeps the result
+ * of an evaluation open lazily, so that the client can fetch it in
+ * pages instead of receiving it in a single message.
+ *
+ * Traversals are only advanced as far as requested by `fetch`. A
+ * cursor remains open after it is exhausted, until it is closed by
+ * the client or the session ends.
+ * */
+
+public class CursorTable
+{
+	public static final int MAX_CURSORS = 64;
+
+	private Map<Integer, Iterator<?>> idToCursor = new HashMap<Integer, Iterator<?>>();
+	private int nextId = 1;
+
+	/**
+	 * Register the result of an evaluation as a cursor. Iterators
+	 * (including traversals), iterables and arrays are iterated
+	 * lazily. Any other value yields a cursor over that single value.
+	 *
+	 * @return the id of the new cursor
+	 * */
+
+	public int open(Object result)
+	{
+		if (idToCursor.size() >= MAX_CURSORS)
+			throw new RuntimeException(String.format(
+					"Too many open cursors (%d)", MAX_CURSORS));
+
+		int id = nextId++;
+		idToCursor.put(id, toIterator(result));
+		return id;
+	}
+
+	/**
+	 * Retrieve up to `count` further elements of a cursor. Fewer
+	 * elements are returned only if the cursor is exhausted.
+	 * */
+
+	public List<Object> fetch(int id, int count)
+	{
+		if (count < 0)
+			throw new IllegalArgumentException("Invalid count: " + count);
+
+		Iterator<?> cursor = getCursor(id);
+		List<Object> page = new LinkedList<Object>();
+		while (page.size() < count && cursor.hasNext())
+			page.add(cursor.next());
+		return page;
+	}
+
+	public void close(int id)
+	{
+		getCursor(id);
+		idToCursor.remove(id);
+	}
+
+	public void closeAll()
+	{
+		idToCursor.clear();
+	}
+
+	public int size()
+	{
+		return idToCursor.size();
+	}
+
+	private Iterator<?> getCursor(int id)
+	{
+		Iterator<?> cursor = idToCursor.get(id);
+		if (cursor == null)
+			throw new IllegalArgumentException("No such cursor: " + id);
+		return cursor;
+	}
+
+	private Iterator<?> toIterator(Object result)
+	{
+		if (result instanceof Iterator)
+			return (Iterator<?>) result;
+		if (result instanceof Iterable)
+			return ((Iterable<?>) result).iterator();
+		if (result instanceof Object[])
+			return Arrays.asList((Object[]) result).iterator();
+		if (result == null)
+			return Collections.emptyIterator();
+		return Collections.singletonList(result).iterator();
+	}
+
+}
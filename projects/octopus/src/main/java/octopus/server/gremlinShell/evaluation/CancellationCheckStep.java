@@ -0,0 +1,31 @@
+package octopus.server.gremlinShell.evaluation;
+
+import java.util.NoSuchElementException;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+
+/**
+ * Passes traversers through unchanged after checking whether the
+ * evaluation on the current thread has been cancelled.
+ * */
+
+public final class CancellationCheckStep<S> extends AbstractStep<S, S>
+{
+	private static final long serialVersionUID = 1L;
+
+	public CancellationCheckStep(Traversal.Admin<?, ?> traversal)
+	{
+		super(traversal);
+	}
+
+	@Override
+	protected Traverser<S> processNextStart() throws NoSuchElementException
+	{
+		Traverser.Admin<S> traverser = this.starts.next();
+		EvaluationToken.checkCurrent();
+		return traverser;
+	}
+
+}
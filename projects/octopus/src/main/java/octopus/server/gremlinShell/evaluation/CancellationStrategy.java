@@ -0,0 +1,101 @@
+package octopus.server.gremlinShell.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy.FinalizationStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.ProfileStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.ProfileStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+/**
+ * Inserts a `CancellationCheckStep` after every step of a traversal
+ * (and, as strategies are applied recursively, of its child
+ * traversals), so that a cancelled evaluation stops at the next step
+ * boundary rather than when the traversal is exhausted.
+ *
+ * The strategy runs before the ProfileStrategy, which expects every
+ * step of a profiled traversal to be followed by a profile step.
+ * Check steps therefore show up in profiles.
+ * */
+
+public final class CancellationStrategy extends
+		AbstractTraversalStrategy<FinalizationStrategy> implements
+		FinalizationStrategy
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final CancellationStrategy INSTANCE = new CancellationStrategy();
+
+	private static final Set<Class<? extends FinalizationStrategy>> POSTS = Collections
+			.<Class<? extends FinalizationStrategy>> singleton(ProfileStrategy.class);
+
+	private CancellationStrategy()
+	{
+	}
+
+	public static CancellationStrategy instance()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Register the strategy for traversals spawned by graphs of the
+	 * given graph's class. Subsequent calls are no-ops.
+	 * */
+
+	public synchronized static void install(Graph graph)
+	{
+		Class<? extends Graph> graphClass = graph.getClass();
+		TraversalStrategies strategies = TraversalStrategies.GlobalCache
+				.getStrategies(graphClass);
+
+		for (TraversalStrategy<?> strategy : strategies.toList())
+		{
+			if (strategy instanceof CancellationStrategy)
+				return;
+		}
+
+		TraversalStrategies.GlobalCache.registerStrategies(graphClass,
+				strategies.clone().addStrategies(INSTANCE));
+	}
+
+	@Override
+	public void apply(Traversal.Admin<?, ?> traversal)
+	{
+		// Copied, as steps are inserted while iterating
+		List<Step<?, ?>> steps = new ArrayList<Step<?, ?>>();
+		for (Step<?, ?> step : traversal.getSteps())
+			steps.add(step);
+
+		for (Step<?, ?> step : steps)
+		{
+			if (step instanceof ProfileStep)
+				continue;
+
+			insertCheckAfter(step, traversal);
+		}
+	}
+
+	private static <S> void insertCheckAfter(Step<?, S> step,
+			Traversal.Admin<?, ?> traversal)
+	{
+		TraversalHelper.insertAfterStep(
+				new CancellationCheckStep<S>(traversal), step, traversal);
+	}
+
+	@Override
+	public Set<Class<? extends FinalizationStrategy>> applyPost()
+	{
+		return POSTS;
+	}
+
+}
@@ -0,0 +1,132 @@
+package octopus.server.gremlinShell.evaluation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Cancellation state of a single evaluation on a shell.
+ *
+ * The token is bound to the thread running the evaluation, so that
+ * traversals, which are unaware of shells, can find it via `check`.
+ * Cancellation is cooperative: a cancelled evaluation stops at the
+ * next traversal step boundary. Groovy code that does not traverse
+ * the graph cannot be stopped.
+ *
+ * If a CPU quota is set, the CPU time consumed by the evaluating
+ * thread is compared against it every `CPU_CHECK_INTERVAL` checks.
+ * */
+
+public class EvaluationToken
+{
+	private static final ThreadLocal<EvaluationToken> currentToken = new ThreadLocal<EvaluationToken>();
+	private static final ThreadMXBean threadMXBean = ManagementFactory
+			.getThreadMXBean();
+
+	private static final int CPU_CHECK_INTERVAL = 1024;
+
+	private volatile String cancelReason;
+
+	private final long cpuQuotaNanos;
+	private long cpuTimeAtStart;
+	private int checksSinceCpuCheck;
+
+	/**
+	 * @param cpuQuotaMillis CPU time the evaluation may consume, or a
+	 *        negative value for no quota.
+	 * */
+
+	public EvaluationToken(long cpuQuotaMillis)
+	{
+		if (cpuQuotaMillis >= 0 && threadMXBean.isCurrentThreadCpuTimeSupported())
+			cpuQuotaNanos = cpuQuotaMillis * 1000000;
+		else
+			cpuQuotaNanos = -1;
+	}
+
+	/**
+	 * Bind the token to the current thread. Traversals executed on this
+	 * thread are cancelled along with the token until `unbind` is
+	 * called.
+	 * */
+
+	public void bind()
+	{
+		if (cpuQuotaNanos >= 0)
+			cpuTimeAtStart = threadMXBean.getCurrentThreadCpuTime();
+		currentToken.set(this);
+	}
+
+	public void unbind()
+	{
+		if (currentToken.get() == this)
+			currentToken.remove();
+	}
+
+	/**
+	 * Request cancellation. May be called from any thread. Only the
+	 * first reason given is kept.
+	 * */
+
+	public void cancel(String reason)
+	{
+		if (cancelReason == null)
+			cancelReason = reason;
+	}
+
+	public boolean isCancelled()
+	{
+		return cancelReason != null;
+	}
+
+	public void check()
+	{
+		if (cancelReason != null)
+			throw new QueryCancelledException(cancelReason);
+
+		if (cpuQuotaNanos < 0 || ++checksSinceCpuCheck < CPU_CHECK_INTERVAL)
+			return;
+
+		checksSinceCpuCheck = 0;
+		long cpuTime = threadMXBean.getCurrentThreadCpuTime() - cpuTimeAtStart;
+		if (cpuTime > cpuQuotaNanos)
+		{
+			cancel(String.format("CPU quota of %d ms exceeded",
+					cpuQuotaNanos / 1000000));
+			throw new QueryCancelledException(cancelReason);
+		}
+	}
+
+	/**
+	 * Like `check`, but without enforcing the CPU quota. Unlike
+	 * `check`, this may be called from threads working on behalf of
+	 * the evaluation other than the one the token is bound to.
+	 * */
+
+	public void checkCancelled()
+	{
+		if (cancelReason != null)
+			throw new QueryCancelledException(cancelReason);
+	}
+
+	/**
+	 * The token bound to the current thread, or null if the thread
+	 * does not run an evaluation.
+	 * */
+
+	public static EvaluationToken current()
+	{
+		return currentToken.get();
+	}
+
+	/**
+	 * Check the token bound to the current thread, if any.
+	 * */
+
+	public static void checkCurrent()
+	{
+		EvaluationToken token = currentToken.get();
+		if (token != null)
+			token.check();
+	}
+
+}
@@ -0,0 +1,78 @@
+package octopus.server.gremlinShell.evaluation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of evaluations running concurrently on the
+ * shells of a project, so that a few expensive queries cannot
+ * occupy all cores of a shared server.
+ *
+ * The limit is read from the system property
+ * `octopus.maxConcurrentEvaluations`. A value of zero or less, the
+ * default, means no limit.
+ * */
+
+public class ProjectEvaluationLimiter
+{
+	public static final String LIMIT_PROPERTY = "octopus.maxConcurrentEvaluations";
+
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private static final int maxConcurrentEvaluations = Integer.getInteger(
+			LIMIT_PROPERTY, 0);
+
+	private static Map<String, Semaphore> projectToPermits = new HashMap<String, Semaphore>();
+
+	public static boolean isEnabled()
+	{
+		return maxConcurrentEvaluations > 0;
+	}
+
+	/**
+	 * Wait for a free evaluation slot of the project. Waiting is
+	 * aborted if the token is cancelled in the meantime.
+	 * */
+
+	public static void acquire(String projectName, EvaluationToken token)
+	{
+		if (!isEnabled())
+			return;
+
+		Semaphore permits = getPermits(projectName);
+		try
+		{
+			while (!permits.tryAcquire(POLL_INTERVAL_MILLIS,
+					TimeUnit.MILLISECONDS))
+			{
+				token.check();
+			}
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new QueryCancelledException("interrupted");
+		}
+	}
+
+	public static void release(String projectName)
+	{
+		if (!isEnabled())
+			return;
+
+		getPermits(projectName).release();
+	}
+
+	private synchronized static Semaphore getPermits(String projectName)
+	{
+		Semaphore permits = projectToPermits.get(projectName);
+		if (permits == null)
+		{
+			permits = new Semaphore(maxConcurrentEvaluations, true);
+			projectToPermits.put(projectName, permits);
+		}
+		return permits;
+	}
+
+}
@@ -0,0 +1,18 @@
+package octopus.server.gremlinShell.evaluation;
+
+/**
+ * Thrown at a traversal step boundary when the evaluation the
+ * traversal belongs to has been cancelled, either on request of the
+ * client or because a limit has been exceeded.
+ * */
+
+public class QueryCancelledException extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+
+	public QueryCancelledException(String reason)
+	{
+		super("Query cancelled: " + reason);
+	}
+
+}
@@ -0,0 +1,147 @@
+package octopus.server.gremlinShell.profiling;
+
+import java.util.Date;
+
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalMetrics;
+
+/**
+ * Measurements taken for a single evaluation on a shell.
+ *
+ * Vertex and edge counts are derived from the traversal metrics and
+ * are only available if the evaluation yielded a traversal. They
+ * count elements emitted by steps reading from the graph, i.e., an
+ * element reached twice is counted twice.
+ * */
+
+public class QueryProfile
+{
+	private final String code;
+	private final Date startTime;
+
+	private long wallTimeMillis;
+	private long resultSize = -1;
+	private long verticesTouched = -1;
+	private long edgesTouched = -1;
+	private TraversalMetrics traversalMetrics;
+	private String error;
+
+	public QueryProfile(String code)
+	{
+		this.code = code;
+		this.startTime = new Date();
+	}
+
+	public String getCode()
+	{
+		return code;
+	}
+
+	public Date getStartTime()
+	{
+		return startTime;
+	}
+
+	public long getWallTimeMillis()
+	{
+		return wallTimeMillis;
+	}
+
+	public void setWallTimeMillis(long wallTimeMillis)
+	{
+		this.wallTimeMillis = wallTimeMillis;
+	}
+
+	public long getResultSize()
+	{
+		return resultSize;
+	}
+
+	public void setResultSize(long resultSize)
+	{
+		this.resultSize = resultSize;
+	}
+
+	public long getVerticesTouched()
+	{
+		return verticesTouched;
+	}
+
+	public void setVerticesTouched(long verticesTouched)
+	{
+		this.verticesTouched = verticesTouched;
+	}
+
+	public long getEdgesTouched()
+	{
+		return edgesTouched;
+	}
+
+	public void setEdgesTouched(long edgesTouched)
+	{
+		this.edgesTouched = edgesTouched;
+	}
+
+	public TraversalMetrics getTraversalMetrics()
+	{
+		return traversalMetrics;
+	}
+
+	public void setTraversalMetrics(TraversalMetrics traversalMetrics)
+	{
+		this.traversalMetrics = traversalMetrics;
+	}
+
+	public String getError()
+	{
+		return error;
+	}
+
+	public void setError(String error)
+	{
+		this.error = error;
+	}
+
+	public boolean hasFailed()
+	{
+		return error != null;
+	}
+
+	/**
+	 * One-line summary as written to the slow query log.
+	 * */
+
+	public String toSummary()
+	{
+		StringBuilder sBuilder = new StringBuilder();
+		sBuilder.append(String.format("%tFT%<tT\t%d ms\tresults=%s\tvertices=%s\tedges=%s",
+				startTime, wallTimeMillis, format(resultSize),
+				format(verticesTouched), format(edgesTouched)));
+		if (hasFailed())
+			sBuilder.append("\terror=" + error);
+		sBuilder.append("\t" + code.replaceAll("\\s+", " ").trim());
+		return sBuilder.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sBuilder = new StringBuilder();
+		sBuilder.append("query: " + code.trim() + "\n");
+		sBuilder.append(String.format("started: %tFT%<tT\n", startTime));
+		sBuilder.append("wall time (ms): " + wallTimeMillis + "\n");
+		sBuilder.append("result size: " + format(resultSize) + "\n");
+		sBuilder.append("vertices touched: " + format(verticesTouched) + "\n");
+		sBuilder.append("edges touched: " + format(edgesTouched) + "\n");
+		if (hasFailed())
+			sBuilder.append("error: " + error + "\n");
+		if (traversalMetrics != null)
+			sBuilder.append(traversalMetrics.toString() + "\n");
+		return sBuilder.toString().trim();
+	}
+
+	private String format(long value)
+	{
+		return value < 0 ? "n/a" : Long.toString(value);
+	}
+
+}
@@ -0,0 +1,209 @@
+package octopus.server.gremlinShell.profiling;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.collections.IteratorUtils;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.EdgeOtherVertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.EdgeVertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.Metrics;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalMetrics;
+
+/**
+ * Measures evaluations on a shell. Profiling is opt-in: while it is
+ * disabled and the slow query log is off, evaluations are passed
+ * through untouched.
+ *
+ * When measuring, lazy results (traversals and iterators) are drained
+ * into a list before the wall time is taken, so that the time spent
+ * in the graph is attributed to the query rather than to the client
+ * writer. If profiling is enabled and the result is a traversal,
+ * TinkerPop's `profile()` step is appended to obtain per-step
+ * metrics.
+ * */
+
+public class QueryProfiler
+{
+	private final SlowQueryLog slowQueryLog;
+	private boolean profilingEnabled = false;
+	private QueryProfile lastProfile;
+
+	public QueryProfiler(SlowQueryLog slowQueryLog)
+	{
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	public SlowQueryLog getSlowQueryLog()
+	{
+		return slowQueryLog;
+	}
+
+	public boolean isProfilingEnabled()
+	{
+		return profilingEnabled;
+	}
+
+	public void setProfilingEnabled(boolean profilingEnabled)
+	{
+		this.profilingEnabled = profilingEnabled;
+	}
+
+	public QueryProfile getLastProfile()
+	{
+		return lastProfile;
+	}
+
+	public boolean isActive()
+	{
+		return profilingEnabled || slowQueryLog.isEnabled();
+	}
+
+	public Object evaluate(String code, Callable<Object> evaluation)
+			throws Exception
+	{
+		if (!isActive())
+			return evaluation.call();
+
+		QueryProfile profile = new QueryProfile(code);
+		long start = System.nanoTime();
+		try
+		{
+			Object result = evaluation.call();
+			return drainResult(result, profile);
+		} catch (Exception ex)
+		{
+			profile.setError(String.format("[%s] %s", ex.getClass()
+					.getSimpleName(), ex.getMessage()));
+			throw ex;
+		} finally
+		{
+			profile.setWallTimeMillis((System.nanoTime() - start) / 1000000);
+			lastProfile = profile;
+			slowQueryLog.log(profile);
+		}
+	}
+
+	private Object drainResult(Object result, QueryProfile profile)
+	{
+		if (result instanceof Traversal)
+			return drainTraversal((Traversal<?, ?>) result, profile);
+
+		if (result instanceof Iterator)
+		{
+			List<?> list = IteratorUtils.toList((Iterator<?>) result);
+			profile.setResultSize(list.size());
+			return list;
+		}
+
+		if (result instanceof Collection)
+			profile.setResultSize(((Collection<?>) result).size());
+		else if (result != null)
+			profile.setResultSize(1);
+		else
+			profile.setResultSize(0);
+
+		return result;
+	}
+
+	private Object drainTraversal(Traversal<?, ?> traversal,
+			QueryProfile profile)
+	{
+		Traversal.Admin<?, ?> admin = traversal.asAdmin();
+		boolean profiled = profilingEnabled && !admin.isLocked()
+				&& traversal instanceof GraphTraversal;
+		if (profiled)
+			((GraphTraversal<?, ?>) traversal).profile();
+
+		List<?> list = IteratorUtils.toList(traversal);
+		profile.setResultSize(list.size());
+
+		if (profiled)
+		{
+			TraversalMetrics metrics = admin.getSideEffects()
+					.<TraversalMetrics> get(TraversalMetrics.METRICS_KEY)
+					.orElse(null);
+			if (metrics != null)
+			{
+				profile.setTraversalMetrics(metrics);
+				countElementsTouched(admin, metrics, profile);
+			}
+		}
+		return list;
+	}
+
+	private void countElementsTouched(Traversal.Admin<?, ?> traversal,
+			TraversalMetrics metrics, QueryProfile profile)
+	{
+		Map<String, Metrics> metricsById = new HashMap<String, Metrics>();
+		for (Metrics m : metrics.getMetrics())
+			collectMetrics(m, metricsById);
+
+		profile.setVerticesTouched(0);
+		profile.setEdgesTouched(0);
+		countElementsTouched(traversal, metricsById, profile);
+	}
+
+	private void collectMetrics(Metrics metrics,
+			Map<String, Metrics> metricsById)
+	{
+		metricsById.put(metrics.getId(), metrics);
+		for (Metrics nested : metrics.getNested())
+			collectMetrics(nested, metricsById);
+	}
+
+	private void countElementsTouched(Traversal.Admin<?, ?> traversal,
+			Map<String, Metrics> metricsById, QueryProfile profile)
+	{
+		for (Step<?, ?> step : traversal.getSteps())
+		{
+			long count = getElementCount(metricsById.get(step.getId()));
+
+			if (step instanceof GraphStep)
+				addElementsTouched(profile,
+						((GraphStep<?>) step).returnsVertex(), count);
+			else if (step instanceof VertexStep)
+				addElementsTouched(profile,
+						((VertexStep<?>) step).returnsVertex(), count);
+			else if (step instanceof EdgeVertexStep
+					|| step instanceof EdgeOtherVertexStep)
+				addElementsTouched(profile, true, count);
+
+			if (step instanceof TraversalParent)
+			{
+				TraversalParent parent = (TraversalParent) step;
+				for (Traversal.Admin<?, ?> child : parent.getGlobalChildren())
+					countElementsTouched(child, metricsById, profile);
+				for (Traversal.Admin<?, ?> child : parent.getLocalChildren())
+					countElementsTouched(child, metricsById, profile);
+			}
+		}
+	}
+
+	private long getElementCount(Metrics metrics)
+	{
+		if (metrics == null)
+			return 0;
+		Long count = metrics.getCount(TraversalMetrics.ELEMENT_COUNT_ID);
+		return count == null ? 0 : count;
+	}
+
+	private void addElementsTouched(QueryProfile profile, boolean vertices,
+			long count)
+	{
+		if (vertices)
+			profile.setVerticesTouched(profile.getVerticesTouched() + count);
+		else
+			profile.setEdgesTouched(profile.getEdgesTouched() + count);
+	}
+
+}
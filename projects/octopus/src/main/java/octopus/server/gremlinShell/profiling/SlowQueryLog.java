@@ -0,0 +1,80 @@
+package octopus.server.gremlinShell.profiling;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends queries whose wall time reaches a threshold to a log file
+ * in the project directory, one query per line.
+ *
+ * The default threshold is read from the system property
+ * `octopus.slowQueryThreshold` (milliseconds). A negative threshold
+ * disables the log, which is the default.
+ * */
+
+public class SlowQueryLog
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(SlowQueryLog.class);
+
+	public static final String FILENAME = "slowQueries.log";
+	public static final String THRESHOLD_PROPERTY = "octopus.slowQueryThreshold";
+
+	private final Path logFile;
+	private long thresholdMillis;
+
+	public SlowQueryLog(Path projectDir)
+	{
+		this.logFile = projectDir.resolve(FILENAME);
+		this.thresholdMillis = Long.getLong(THRESHOLD_PROPERTY, -1);
+	}
+
+	public Path getLogFile()
+	{
+		return logFile;
+	}
+
+	public long getThresholdMillis()
+	{
+		return thresholdMillis;
+	}
+
+	public void setThresholdMillis(long thresholdMillis)
+	{
+		this.thresholdMillis = thresholdMillis;
+	}
+
+	public boolean isEnabled()
+	{
+		return thresholdMillis >= 0;
+	}
+
+	public void log(QueryProfile profile)
+	{
+		if (!isEnabled() || profile.getWallTimeMillis() < thresholdMillis)
+			return;
+
+		// Shells of the same project share the log file.
+		synchronized (SlowQueryLog.class)
+		{
+			try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(
+					logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND)))
+			{
+				writer.println(profile.toSummary());
+			} catch (IOException e)
+			{
+				logger.warn("Cannot write to slow query log {}: {}", logFile,
+						e.getMessage());
+			}
+		}
+	}
+
+}
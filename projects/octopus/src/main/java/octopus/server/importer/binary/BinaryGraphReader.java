@@ -0,0 +1,202 @@
+package octopus.server.importer.binary;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads graphs in the binary format written by the parser (see
+ * outputModules.binary.BinaryGraphFormat in jpanlib, whose constants
+ * are repeated here).
+ *
+ * Records are read one at a time with `next`, which returns NODE or
+ * EDGE, or END at the end of the file. The fields of the current
+ * record are available through the getters. String definitions are
+ * handled by the reader.
+ * */
+
+public class BinaryGraphReader implements Closeable
+{
+	static final int MAGIC = 0x43504742; // "CPGB"
+	static final int VERSION = 1;
+	static final int FLAG_COMPRESSED = 0x1;
+
+	static final int TAG_STRING = 1;
+	static final int TAG_NODE = 2;
+	static final int TAG_EDGE = 3;
+
+	public static final int END = 0;
+	public static final int NODE = TAG_NODE;
+	public static final int EDGE = TAG_EDGE;
+
+	public static final String FILENAME = "graph.bin";
+
+	private final InputStream in;
+	private final List<String> strings = new ArrayList<String>();
+
+	private long nodeId;
+	private String nodeType;
+	private long srcId;
+	private long dstId;
+	private String label;
+	private Map<String, String> properties;
+
+	private byte[] buffer = new byte[256];
+
+	public BinaryGraphReader(String filename) throws IOException
+	{
+		DataInputStream header = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(Paths.get(filename))));
+		try
+		{
+			if (header.readInt() != MAGIC)
+				throw new IOException("Not a binary graph file: " + filename);
+			int version = header.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported version " + version + ": "
+						+ filename);
+			int flags = header.readUnsignedByte();
+			in = new BlockInputStream(header, (flags & FLAG_COMPRESSED) != 0);
+		} catch (IOException e)
+		{
+			header.close();
+			throw e;
+		}
+	}
+
+	public int next() throws IOException
+	{
+		while (true)
+		{
+			int tag = in.read();
+			switch (tag)
+			{
+			case -1:
+				return END;
+			case TAG_STRING:
+				strings.add(readString());
+				break;
+			case TAG_NODE:
+				nodeId = readVarLong();
+				int typeNumber = (int) readVarLong();
+				nodeType = typeNumber == 0 ? null : string(typeNumber - 1);
+				properties = readProperties();
+				return NODE;
+			case TAG_EDGE:
+				srcId = readVarLong();
+				dstId = readVarLong();
+				label = string((int) readVarLong());
+				properties = readProperties();
+				return EDGE;
+			default:
+				throw new IOException("Unknown record: " + tag);
+			}
+		}
+	}
+
+	public long getNodeId()
+	{
+		return nodeId;
+	}
+
+	/**
+	 * The type of the current node, or null
+	 * */
+
+	public String getNodeType()
+	{
+		return nodeType;
+	}
+
+	public long getSrcId()
+	{
+		return srcId;
+	}
+
+	public long getDstId()
+	{
+		return dstId;
+	}
+
+	public String getLabel()
+	{
+		return label;
+	}
+
+	/**
+	 * Properties of the current node or edge, not including the
+	 * node's type.
+	 * */
+
+	public Map<String, String> getProperties()
+	{
+		return properties;
+	}
+
+	private Map<String, String> readProperties() throws IOException
+	{
+		int n = (int) readVarLong();
+		Map<String, String> properties = new HashMap<String, String>(n * 2);
+		for (int i = 0; i < n; i++)
+		{
+			String key = string((int) readVarLong());
+			properties.put(key, readString());
+		}
+		return properties;
+	}
+
+	private String string(int number) throws IOException
+	{
+		if (number < 0 || number >= strings.size())
+			throw new IOException("Undefined string: " + number);
+		return strings.get(number);
+	}
+
+	private long readVarLong() throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			int b = in.read();
+			if (b == -1)
+				throw new EOFException();
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed number");
+	}
+
+	private String readString() throws IOException
+	{
+		int length = (int) readVarLong();
+		if (buffer.length < length)
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+		int n = 0;
+		while (n < length)
+		{
+			int read = in.read(buffer, n, length - n);
+			if (read == -1)
+				throw new EOFException();
+			n += read;
+		}
+		return new String(buffer, 0, length, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+}
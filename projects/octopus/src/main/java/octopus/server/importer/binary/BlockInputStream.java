@@ -0,0 +1,114 @@
+package octopus.server.importer.binary;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the contents of the blocks of a binary graph file (see
+ * BinaryGraphReader) as a single stream.
+ * */
+
+public class BlockInputStream extends InputStream
+{
+	private final DataInputStream in;
+	private final Inflater inflater;
+
+	private byte[] block = new byte[0];
+	private byte[] stored = new byte[0];
+	private int blockLength = 0;
+	private int pos = 0;
+	private boolean atEnd = false;
+
+	public BlockInputStream(InputStream in, boolean compressed)
+	{
+		this.in = new DataInputStream(in);
+		this.inflater = compressed ? new Inflater() : null;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (pos == blockLength && !readBlock())
+			return -1;
+		return block[pos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+			return 0;
+		if (pos == blockLength && !readBlock())
+			return -1;
+		int n = Math.min(len, blockLength - pos);
+		System.arraycopy(block, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	private boolean readBlock() throws IOException
+	{
+		if (atEnd)
+			return false;
+
+		int length = in.readInt();
+		int storedLength = in.readInt();
+		if (length == 0)
+		{
+			atEnd = true;
+			return false;
+		}
+
+		if (block.length < length)
+			block = new byte[length];
+
+		if (inflater == null)
+			in.readFully(block, 0, length);
+		else
+		{
+			if (stored.length < storedLength)
+				stored = new byte[storedLength];
+			in.readFully(stored, 0, storedLength);
+			inflate(storedLength, length);
+		}
+
+		blockLength = length;
+		pos = 0;
+		return true;
+	}
+
+	private void inflate(int storedLength, int length) throws IOException
+	{
+		inflater.reset();
+		inflater.setInput(stored, 0, storedLength);
+		try
+		{
+			int n = 0;
+			while (n < length && !inflater.finished())
+			{
+				int inflated = inflater.inflate(block, n, length - n);
+				if (inflated == 0 && inflater.needsInput())
+					break;
+				n += inflated;
+			}
+			if (n != length)
+				throw new EOFException("Truncated block");
+		} catch (DataFormatException e)
+		{
+			throw new IOException("Corrupt block", e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+		if (inflater != null)
+			inflater.end();
+	}
+
+}
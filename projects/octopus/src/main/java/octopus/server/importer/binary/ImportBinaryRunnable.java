@@ -0,0 +1,56 @@
+package octopus.server.importer.binary;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import octopus.api.database.Database;
+import octopus.api.projects.OctopusProject;
+import octopus.api.projects.ProjectManager;
+import octopus.server.importer.binary.titan.BinaryImporter;
+
+public class ImportBinaryRunnable implements Runnable
+{
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(ImportBinaryRunnable.class);
+
+	private final ImportJob importJob;
+
+	public ImportBinaryRunnable(ImportJob importJob)
+	{
+		this.importJob = importJob;
+	}
+
+	@Override
+	public void run()
+	{
+		String projectName = importJob.getProjectName();
+
+		ProjectManager projectManager = new ProjectManager();
+		OctopusProject project = projectManager.getProjectByName(projectName);
+		if(project == null)
+			throw new RuntimeException("Error: project does not exist");
+
+		Database database = project.getNewDatabaseInstance();
+		try
+		{
+			BinaryImporter importer = new BinaryImporter();
+			importer.setGraph(database.getGraph());
+			importer.importFile(importJob.getFilename());
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Cannot import "
+					+ importJob.getFilename(), e);
+		}
+		finally
+		{
+			database.closeInstance();
+		}
+
+		logger.debug("Import finished");
+	}
+
+}
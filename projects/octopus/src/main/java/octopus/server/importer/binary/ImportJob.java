@@ -0,0 +1,24 @@
+package octopus.server.importer.binary;
+
+public class ImportJob
+{
+	private final String filename;
+	private final String projectName;
+
+	public ImportJob(String filename, String projectName)
+	{
+		this.filename = filename;
+		this.projectName = projectName;
+	}
+
+	public String getFilename()
+	{
+		return filename;
+	}
+
+	public String getProjectName()
+	{
+		return projectName;
+	}
+
+}
@@ -0,0 +1,47 @@
+package octopus.server.importer.binary.titan;
+
+import java.io.IOException;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import octopus.server.importer.binary.BinaryGraphReader;
+import octopus.server.importer.titan.GraphLoader;
+
+/**
+ * Imports a binary graph file (see BinaryGraphReader). Creates the
+ * same vertices and edges as the CSV importer, but resolves edges by
+ * the ids of the vertices created for their nodes rather than by
+ * `_key` lookups.
+ * */
+
+public class BinaryImporter extends GraphLoader
+{
+	static final String TYPE = "type";
+
+	public void importFile(String filename) throws IOException
+	{
+		try (BinaryGraphReader reader = new BinaryGraphReader(filename))
+		{
+			int record;
+			while ((record = reader.next()) != BinaryGraphReader.END)
+			{
+				if (record == BinaryGraphReader.NODE)
+					importNode(reader);
+				else
+					loadEdge(reader.getSrcId(), reader.getDstId(),
+							reader.getLabel(), reader.getProperties());
+				possiblyFinishTransaction();
+			}
+		}
+
+		closeDatabase();
+	}
+
+	private void importNode(BinaryGraphReader reader)
+	{
+		Vertex vertex = loadNode(reader.getNodeId(), reader.getProperties());
+		if (vertex != null && reader.getNodeType() != null)
+			vertex.property(TYPE, reader.getNodeType());
+	}
+
+}
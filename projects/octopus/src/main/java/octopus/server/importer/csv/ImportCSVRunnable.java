@@ -1,6 +1,7 @@
 package octopus.server.importer.csv;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +10,7 @@ import octopus.api.database.Database;
 import octopus.api.projects.OctopusProject;
 import octopus.api.projects.ProjectManager;
 import octopus.server.importer.csv.titan.CSVImporter;
+import octopus.server.importer.csv.titan.OutOfCoreCSVImporter;
 
 public class ImportCSVRunnable implements Runnable
 {
@@ -27,8 +29,6 @@ public class ImportCSVRunnable implements Runnable
 	public void run()
 	{
 
-		CSVImporter csvBatchImporter = new CSVImporter();
-
 		String nodeFilename = importJob.getNodeFilename();
 		String edgeFilename = importJob.getEdgeFilename();
 		String projectName = importJob.getProjectName();
@@ -38,19 +38,39 @@ public class ImportCSVRunnable implements Runnable
 		if(project == null)
 			throw new RuntimeException("Error: project dos not exist");
 
+		Database database = project.getNewDatabaseInstance();
 		try
 		{
-			Database database = project.getNewDatabaseInstance();
+			CSVImporter csvBatchImporter = createImporter(project, edgeFilename);
 			csvBatchImporter.setGraph(database.getGraph());
 			csvBatchImporter.importCSVFiles(nodeFilename, edgeFilename);
-			database.closeInstance();
 		}
 		catch (IOException e)
 		{
 			e.printStackTrace();
 		}
+		finally
+		{
+			database.closeInstance();
+		}
 
 		logger.warn("Import finished");
 	}
 
+	/**
+	 * Large files are imported out of core, with temporary files in
+	 * the project directory. They are created and deleted by the
+	 * import itself.
+	 * */
+
+	private CSVImporter createImporter(OctopusProject project,
+			String edgeFilename)
+	{
+		if (!OutOfCoreCSVImporter.isWorthwhile(edgeFilename))
+			return new CSVImporter();
+
+		return new OutOfCoreCSVImporter(
+				Paths.get(project.getPathToProjectDir()));
+	}
+
 }
@@ -0,0 +1,145 @@
+package octopus.server.importer.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import octopus.api.database.Database;
+import octopus.api.projects.OctopusProject;
+import octopus.api.projects.ProjectManager;
+import octopus.server.importer.csv.titan.CSVImporter;
+
+/**
+ * Imports many CSV pairs of a project (e.g., the per-file output of
+ * the parser in multi-file mode) with a single database instance,
+ * instead of opening and closing the database for each pair as
+ * ImportCSVRunnable does.
+ *
+ * Pairs are imported concurrently, each worker thread using its own
+ * transaction. All node files are imported before any edge file, so
+ * that edges may refer to nodes of other pairs.
+ * */
+
+public class MultiPairImportSession implements Closeable
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(MultiPairImportSession.class);
+
+	private final Database database;
+	private final Graph graph;
+	private final int nThreads;
+
+	private final List<ImportJob> jobs = new ArrayList<ImportJob>();
+
+	public MultiPairImportSession(String projectName)
+	{
+		this(projectName, Runtime.getRuntime().availableProcessors());
+	}
+
+	public MultiPairImportSession(String projectName, int nThreads)
+	{
+		OctopusProject project = new ProjectManager()
+				.getProjectByName(projectName);
+		if (project == null)
+			throw new RuntimeException("Error: project does not exist");
+
+		this.database = project.getNewDatabaseInstance();
+		this.graph = database.getGraph();
+		this.nThreads = nThreads;
+	}
+
+	public void addJob(ImportJob job)
+	{
+		jobs.add(job);
+	}
+
+	public int getNumberOfJobs()
+	{
+		return jobs.size();
+	}
+
+	/**
+	 * Import all added pairs. The session can be reused afterwards.
+	 * */
+
+	public void importAll()
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1,
+				Math.min(nThreads, jobs.size())));
+		try
+		{
+			runAll(pool, true);
+			runAll(pool, false);
+		} finally
+		{
+			pool.shutdownNow();
+		}
+
+		logger.debug("Imported {} CSV pairs", jobs.size());
+		jobs.clear();
+	}
+
+	private void runAll(ExecutorService pool, boolean nodes)
+	{
+		List<Future<?>> futures = new LinkedList<Future<?>>();
+		for (ImportJob job : jobs)
+			futures.add(pool.submit(() -> importFile(job, nodes)));
+
+		try
+		{
+			for (Future<?> future : futures)
+				future.get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e)
+		{
+			for (Future<?> future : futures)
+				future.cancel(true);
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private void importFile(ImportJob job, boolean nodes)
+	{
+		CSVImporter importer = new CSVImporter();
+		importer.setGraph(graph);
+		try
+		{
+			if (nodes)
+				importer.importNodeFile(job.getNodeFilename());
+			else
+				importer.importEdgeFile(job.getEdgeFilename());
+		} catch (IOException e)
+		{
+			throw new RuntimeException("Cannot import "
+					+ (nodes ? job.getNodeFilename() : job.getEdgeFilename()),
+					e);
+		} finally
+		{
+			// Pool threads are reused: leave no transaction behind.
+			if (graph.tx().isOpen())
+				graph.tx().rollback();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		database.closeInstance();
+	}
+
+}
@@ -0,0 +1,74 @@
+package octopus.server.importer.csv.sort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file of pairs of longs (see LongPairWriter) sequentially.
+ * The file is memory-mapped one window at a time, so that files
+ * larger than the address space of a single mapping can be read.
+ * */
+
+public class LongPairReader implements Closeable
+{
+	static final long WINDOW_SIZE = 64L << 20;
+	static final int PAIR_SIZE = 16;
+
+	private final FileChannel channel;
+	private final long size;
+	private long windowStart = 0;
+	private MappedByteBuffer window;
+
+	private long first;
+	private long second;
+
+	public LongPairReader(Path file) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		size = channel.size() - channel.size() % PAIR_SIZE;
+	}
+
+	/**
+	 * Advance to the next pair.
+	 *
+	 * @return false at the end of the file
+	 * */
+
+	public boolean next() throws IOException
+	{
+		if (window == null || !window.hasRemaining())
+		{
+			if (window != null)
+				windowStart += window.capacity();
+			if (windowStart >= size)
+				return false;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+					Math.min(WINDOW_SIZE, size - windowStart));
+		}
+		first = window.getLong();
+		second = window.getLong();
+		return true;
+	}
+
+	public long first()
+	{
+		return first;
+	}
+
+	public long second()
+	{
+		return second;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		window = null;
+		channel.close();
+	}
+
+}
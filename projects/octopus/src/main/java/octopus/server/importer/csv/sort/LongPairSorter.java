@@ -0,0 +1,200 @@
+package octopus.server.importer.csv.sort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * External sort of files of pairs of longs, by first and then second
+ * element. Pairs are sorted in memory in chunks of a bounded size,
+ * chunks are written to temporary run files, and runs are merged.
+ * */
+
+public class LongPairSorter
+{
+	public static final int DEFAULT_PAIRS_IN_MEMORY = 1 << 20;
+	static final int MAX_FAN_IN = 64;
+
+	private final Path tmpDir;
+	private final int pairsInMemory;
+	private int nRuns = 0;
+
+	public LongPairSorter(Path tmpDir)
+	{
+		this(tmpDir, DEFAULT_PAIRS_IN_MEMORY);
+	}
+
+	public LongPairSorter(Path tmpDir, int pairsInMemory)
+	{
+		this.tmpDir = tmpDir;
+		this.pairsInMemory = pairsInMemory;
+	}
+
+	/**
+	 * Sort `input` into `output`. The input file is left unchanged.
+	 * */
+
+	public void sort(Path input, Path output) throws IOException
+	{
+		List<Path> runs = createRuns(input);
+
+		while (runs.size() > MAX_FAN_IN)
+		{
+			List<Path> merged = new ArrayList<Path>();
+			for (int i = 0; i < runs.size(); i += MAX_FAN_IN)
+			{
+				List<Path> group = runs.subList(i,
+						Math.min(i + MAX_FAN_IN, runs.size()));
+				Path run = newRunFile();
+				merge(group, run);
+				merged.add(run);
+			}
+			runs = merged;
+		}
+
+		if (runs.size() == 1)
+			Files.move(runs.get(0), output, StandardCopyOption.REPLACE_EXISTING);
+		else
+			merge(runs, output);
+	}
+
+	private List<Path> createRuns(Path input) throws IOException
+	{
+		List<Path> runs = new ArrayList<Path>();
+		long[] pairs = new long[2 * pairsInMemory];
+
+		try (LongPairReader reader = new LongPairReader(input))
+		{
+			boolean more = true;
+			while (more)
+			{
+				int n = 0;
+				while (n < pairsInMemory && (more = reader.next()))
+				{
+					pairs[2 * n] = reader.first();
+					pairs[2 * n + 1] = reader.second();
+					n++;
+				}
+				if (n == 0 && !runs.isEmpty())
+					break;
+
+				sort(pairs, 0, n - 1);
+				Path run = newRunFile();
+				try (LongPairWriter writer = new LongPairWriter(run))
+				{
+					for (int i = 0; i < n; i++)
+						writer.write(pairs[2 * i], pairs[2 * i + 1]);
+				}
+				runs.add(run);
+			}
+		}
+		return runs;
+	}
+
+	private void merge(List<Path> runs, Path output) throws IOException
+	{
+		PriorityQueue<LongPairReader> heap = new PriorityQueue<LongPairReader>(
+				runs.size(), (a, b) -> compare(a.first(), a.second(),
+						b.first(), b.second()));
+		List<LongPairReader> readers = new ArrayList<LongPairReader>();
+
+		try (LongPairWriter writer = new LongPairWriter(output))
+		{
+			for (Path run : runs)
+			{
+				LongPairReader reader = new LongPairReader(run);
+				readers.add(reader);
+				if (reader.next())
+					heap.add(reader);
+			}
+
+			while (!heap.isEmpty())
+			{
+				LongPairReader reader = heap.poll();
+				writer.write(reader.first(), reader.second());
+				if (reader.next())
+					heap.add(reader);
+			}
+		} finally
+		{
+			for (LongPairReader reader : readers)
+				reader.close();
+			for (Path run : runs)
+				Files.deleteIfExists(run);
+		}
+	}
+
+	private Path newRunFile()
+	{
+		return tmpDir.resolve("run" + (nRuns++));
+	}
+
+	static int compare(long first1, long second1, long first2, long second2)
+	{
+		int cmp = Long.compare(first1, first2);
+		return cmp != 0 ? cmp : Long.compare(second1, second2);
+	}
+
+	/**
+	 * Quicksort of the pairs `lo` to `hi` (inclusive) of an array of
+	 * interleaved pairs.
+	 * */
+
+	static void sort(long[] pairs, int lo, int hi)
+	{
+		while (hi - lo > 16)
+		{
+			int mid = (lo + hi) >>> 1;
+			long pivotFirst = pairs[2 * mid];
+			long pivotSecond = pairs[2 * mid + 1];
+
+			int i = lo;
+			int j = hi;
+			while (i <= j)
+			{
+				while (compare(pairs[2 * i], pairs[2 * i + 1], pivotFirst,
+						pivotSecond) < 0)
+					i++;
+				while (compare(pairs[2 * j], pairs[2 * j + 1], pivotFirst,
+						pivotSecond) > 0)
+					j--;
+				if (i <= j)
+					swap(pairs, i++, j--);
+			}
+
+			// Recurse into the smaller part to bound the stack depth.
+			if (j - lo < hi - i)
+			{
+				sort(pairs, lo, j);
+				lo = i;
+			} else
+			{
+				sort(pairs, i, hi);
+				hi = j;
+			}
+		}
+
+		for (int i = lo + 1; i <= hi; i++)
+		{
+			for (int j = i; j > lo
+					&& compare(pairs[2 * j - 2], pairs[2 * j - 1],
+							pairs[2 * j], pairs[2 * j + 1]) > 0; j--)
+				swap(pairs, j - 1, j);
+		}
+	}
+
+	private static void swap(long[] pairs, int i, int j)
+	{
+		long first = pairs[2 * i];
+		long second = pairs[2 * i + 1];
+		pairs[2 * i] = pairs[2 * j];
+		pairs[2 * i + 1] = pairs[2 * j + 1];
+		pairs[2 * j] = first;
+		pairs[2 * j + 1] = second;
+	}
+
+}
@@ -0,0 +1,43 @@
+package octopus.server.importer.csv.sort;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a file of pairs of longs, 16 bytes per pair.
+ * */
+
+public class LongPairWriter implements Closeable
+{
+	private final DataOutputStream out;
+	private long count = 0;
+
+	public LongPairWriter(Path file) throws IOException
+	{
+		out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(file), 1 << 16));
+	}
+
+	public void write(long first, long second) throws IOException
+	{
+		out.writeLong(first);
+		out.writeLong(second);
+		count++;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+
+}
@@ -29,4 +29,10 @@ public class CSVFile {
 		return csvReader.readNext();
 	}
 
+	public void close() throws IOException
+	{
+		if (csvReader != null)
+			csvReader.close();
+	}
+
 }
@@ -1,25 +1,22 @@
 package octopus.server.importer.csv.titan;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
-import org.apache.tinkerpop.gremlin.structure.Edge;
-import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.thinkaurelius.titan.core.SchemaViolationException;
+import octopus.server.importer.titan.GraphLoader;
 
-public class CSVImporter
+public class CSVImporter extends GraphLoader
 {
 	private static final Logger logger = LoggerFactory
 			.getLogger(CSVImporter.class);
 
-	static final int NELEMS_PER_TRANSACTION = 100000;
-	static final String KEY = "_key";
-
 	String dbName;
-	Graph graph;
 
 	String[] VertexKeys;
 	String[] EdgeKeys;
@@ -28,8 +25,7 @@ public class CSVImporter
 
 	NodeFile nodeFile;
 	EdgeFile edgeFile;
-
-	int nElemsInTransaction = 0;
+	String edgeFilename;
 
 	public void setDbName(String dbName)
 	{
@@ -42,12 +38,51 @@ public class CSVImporter
 		openNodeFile(nodeFilename);
 		openEdgeFile(edgeFilename);
 
-		importNodes();
-		importEdges();
+		try
+		{
+			importNodes();
+			importEdges();
+		} finally
+		{
+			nodeFile.close();
+			edgeFile.close();
+		}
 
 		closeDatabase();
 	}
 
+	/**
+	 * Import only the nodes of a CSV pair. Together with
+	 * `importEdgeFile`, this allows importing the nodes of many pairs
+	 * before any of their edges (see MultiPairImportSession).
+	 * */
+
+	public void importNodeFile(String nodeFilename) throws IOException
+	{
+		openNodeFile(nodeFilename);
+		try
+		{
+			importNodes();
+		} finally
+		{
+			nodeFile.close();
+		}
+		closeDatabase();
+	}
+
+	public void importEdgeFile(String edgeFilename) throws IOException
+	{
+		openEdgeFile(edgeFilename);
+		try
+		{
+			importEdges();
+		} finally
+		{
+			edgeFile.close();
+		}
+		closeDatabase();
+	}
+
 	private void openNodeFile(String nodeFilename) throws IOException
 	{
 		nodeFile = new NodeFile();
@@ -56,6 +91,7 @@ public class CSVImporter
 
 	private void openEdgeFile(String edgeFilename) throws IOException
 	{
+		this.edgeFilename = edgeFilename;
 		edgeFile = new EdgeFile();
 		edgeFile.openFile(edgeFilename);
 	}
@@ -88,15 +124,6 @@ public class CSVImporter
 			addNodeToGraphNoReplace(id, row, keys);
 	}
 
-	private void possiblyFinishTransaction()
-	{
-		nElemsInTransaction++;
-		if(nElemsInTransaction >= NELEMS_PER_TRANSACTION){
-			graph.tx().commit();
-			nElemsInTransaction = 0;
-		}
-	}
-
 	private void addNodeToGraph(String id, String[] row, String[] keys)
 	{
 		try
@@ -129,6 +156,10 @@ public class CSVImporter
 			{
 				linkToPreviousNode(baseId, num);
 			}
+			else
+			{
+				nodeAdded(baseId, vertex);
+			}
 
 		} catch (IllegalArgumentException e)
 		{
@@ -161,17 +192,21 @@ public class CSVImporter
 	private void addNodeToGraphNoReplace(String id, String[] row, String[] keys)
 	{
 		String completeId = createCompleteId(id, 0);
-		Vertex vertex;
-
-		try{
-			vertex = graph.addVertex(KEY, completeId);
-		}catch(SchemaViolationException ex)
-		{
+		Vertex vertex = addVertex(completeId);
+		if (vertex == null)
 			return;
-		}
 
 		setPropertiesOnVertex(vertex, row, keys);
+		nodeAdded(completeId, vertex);
+	}
 
+	/**
+	 * Called for each vertex created for a node. Edges refer to nodes
+	 * by the given key.
+	 * */
+
+	protected void nodeAdded(String key, Vertex vertex)
+	{
 	}
 
 	private void setPropertiesOnVertex(Vertex vertex, String[] row, String[] keys)
@@ -201,49 +236,37 @@ public class CSVImporter
 
 		String srcId = row[0];
 		String dstId = row[1];
-		String label = row[2];
 
 		Vertex outVertex = lookupVertex(srcId);
 		Vertex inVertex = lookupVertex(dstId);
 
-		if (outVertex == null)
-		{
-			logger.debug("Cannot resolve source node {} for {} -> {}", srcId,
-					srcId, dstId);
-			return;
-		}
-
-		if (inVertex == null)
-		{
-			logger.debug("Cannot resolve destination node {} for {} -> {}",
-					dstId, srcId, dstId);
-			return;
-		}
-
-
-		Edge edge = outVertex.addEdge(label, inVertex);
-
-		for (int i = 3; i < row.length; i++)
-		{
-			if (!row[i].equals(""))
-				edge.property(edgeFile.getKeys()[i], row[i]);
-		}
-
+		addEdgeToGraph(row, outVertex, inVertex);
 	}
 
-	protected Vertex lookupVertex(String id)
+	/**
+	 * Add the edge described by an edge row between the vertices
+	 * its endpoints resolved to.
+	 * */
+
+	protected void addEdgeToGraph(String[] row, Vertex outVertex,
+			Vertex inVertex)
 	{
-		return graph.traversal().V().has(KEY, id).next();
+		addEdge(outVertex, inVertex, row[2], getEdgeProperties(row), row[0],
+				row[1]);
 	}
 
-	public void closeDatabase()
+	private Map<String, String> getEdgeProperties(String[] row)
 	{
-		try {
-			graph.close();
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+		Map<String, String> properties = Collections.emptyMap();
+		for (int i = 3; i < row.length; i++)
+		{
+			if (row[i].equals(""))
+				continue;
+			if (properties.isEmpty())
+				properties = new HashMap<String, String>();
+			properties.put(edgeFile.getKeys()[i], row[i]);
 		}
+		return properties;
 	}
 
 	public boolean isNewDatabase()
@@ -251,9 +274,4 @@ public class CSVImporter
 		return isNewDatabase;
 	}
 
-	public void setGraph(Graph graph)
-	{
-		this.graph = graph;
-	}
-
 }
@@ -0,0 +1,284 @@
+package octopus.server.importer.csv.titan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import octopus.server.importer.csv.sort.LongPairReader;
+import octopus.server.importer.csv.sort.LongPairSorter;
+import octopus.server.importer.csv.sort.LongPairWriter;
+
+/**
+ * A CSV importer for large CSV files that resolves the endpoints of
+ * edges with sequential merge joins instead of one `_key` index lookup
+ * per endpoint.
+ *
+ * While nodes are imported, (key, vertex id) pairs are written to a
+ * file. Before edges are imported, the edge file is read once to write
+ * (key, row number) pairs for sources and destinations. All three are
+ * sorted externally by key and joined, yielding (row number, vertex id)
+ * pairs, which are sorted by row number. Finally, the edge file is
+ * read again alongside the resolved endpoints and edges are created,
+ * looking up vertices by id. Memory use is bounded by the chunk size
+ * of the sort (see LongPairSorter), independent of the project size.
+ *
+ * Only numeric keys are resolved this way. Endpoints with other keys,
+ * and those referring to nodes not created by this importer, are
+ * resolved via the index as by CSVImporter.
+ * */
+
+public class OutOfCoreCSVImporter extends CSVImporter
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(OutOfCoreCSVImporter.class);
+
+	/**
+	 * Edge files at least this large are imported out of core by
+	 * ImportCSVRunnable.
+	 * */
+
+	public static final long EDGE_FILE_SIZE_THRESHOLD = 64L << 20;
+
+	private final Path parentDir;
+	private Path workDir;
+	private LongPairSorter sorter;
+	private LongPairWriter nodeWriter;
+
+	/**
+	 * @param parentDir the directory in which each import creates a
+	 *        directory for its temporary files, which is deleted when
+	 *        the import is done
+	 * */
+
+	public OutOfCoreCSVImporter(Path parentDir)
+	{
+		this.parentDir = parentDir;
+	}
+
+	public static boolean isWorthwhile(String edgeFilename)
+	{
+		try
+		{
+			return Files.size(Paths.get(edgeFilename)) >= EDGE_FILE_SIZE_THRESHOLD;
+		} catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	@Override
+	public void importCSVFiles(String nodeFilename, String edgeFilename)
+			throws IOException
+	{
+		workDir = Files.createTempDirectory(parentDir, "import");
+		sorter = new LongPairSorter(workDir);
+		try
+		{
+			super.importCSVFiles(nodeFilename, edgeFilename);
+		} finally
+		{
+			deleteWorkDir();
+		}
+	}
+
+	@Override
+	protected void importNodes() throws IOException
+	{
+		nodeWriter = new LongPairWriter(workDir.resolve("nodes"));
+		try
+		{
+			super.importNodes();
+		} finally
+		{
+			nodeWriter.close();
+		}
+	}
+
+	@Override
+	protected void nodeAdded(String key, Vertex vertex)
+	{
+		Long numericKey = parseKey(key);
+		if (numericKey == null || !(vertex.id() instanceof Long))
+			return;
+		try
+		{
+			nodeWriter.write(numericKey, (Long) vertex.id());
+		} catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	protected void importEdges() throws IOException
+	{
+		// Nodes must be committed before they are looked up by id in
+		// the transactions used for edges.
+		graph.tx().commit();
+
+		writeEndpointKeys();
+
+		sorter.sort(workDir.resolve("nodes"), workDir.resolve("nodes.sorted"));
+		resolve("src");
+		resolve("dst");
+
+		createEdges();
+	}
+
+	/**
+	 * Write the (key, row number) pairs of edge sources and
+	 * destinations.
+	 * */
+
+	private void writeEndpointKeys() throws IOException
+	{
+		try (LongPairWriter srcWriter = new LongPairWriter(
+				workDir.resolve("src"));
+				LongPairWriter dstWriter = new LongPairWriter(
+						workDir.resolve("dst")))
+		{
+			String[] row;
+			long rowNum = 0;
+			while ((row = edgeFile.getNextRow()) != null)
+			{
+				if (row.length >= 3)
+				{
+					Long srcKey = parseKey(row[0]);
+					Long dstKey = parseKey(row[1]);
+					if (srcKey != null)
+						srcWriter.write(srcKey, rowNum);
+					if (dstKey != null)
+						dstWriter.write(dstKey, rowNum);
+				}
+				rowNum++;
+			}
+		}
+	}
+
+	/**
+	 * Join the sorted (key, vertex id) pairs with the (key, row number)
+	 * pairs of one endpoint into (row number, vertex id) pairs sorted
+	 * by row number.
+	 * */
+
+	private void resolve(String endpoint) throws IOException
+	{
+		Path sortedRefs = workDir.resolve(endpoint + ".sorted");
+		Path resolved = workDir.resolve(endpoint + ".resolved");
+		sorter.sort(workDir.resolve(endpoint), sortedRefs);
+
+		try (LongPairReader nodes = new LongPairReader(
+				workDir.resolve("nodes.sorted"));
+				LongPairReader refs = new LongPairReader(sortedRefs);
+				LongPairWriter writer = new LongPairWriter(resolved))
+		{
+			boolean moreNodes = nodes.next();
+			while (refs.next())
+			{
+				while (moreNodes && nodes.first() < refs.first())
+					moreNodes = nodes.next();
+				if (moreNodes && nodes.first() == refs.first())
+					writer.write(refs.second(), nodes.second());
+			}
+		}
+
+		sorter.sort(resolved, workDir.resolve(endpoint + ".byRow"));
+	}
+
+	private void createEdges() throws IOException
+	{
+		EdgeFile rows = new EdgeFile();
+		rows.openFile(edgeFilename);
+
+		try (LongPairReader srcIds = new LongPairReader(
+				workDir.resolve("src.byRow"));
+				LongPairReader dstIds = new LongPairReader(
+						workDir.resolve("dst.byRow")))
+		{
+			boolean moreSrc = srcIds.next();
+			boolean moreDst = dstIds.next();
+
+			String[] row;
+			long rowNum = 0;
+			long nIndexLookups = 0;
+			while ((row = rows.getNextRow()) != null)
+			{
+				Vertex outVertex = null;
+				Vertex inVertex = null;
+
+				if (moreSrc && srcIds.first() == rowNum)
+				{
+					outVertex = vertexById(srcIds.second());
+					moreSrc = srcIds.next();
+				}
+				if (moreDst && dstIds.first() == rowNum)
+				{
+					inVertex = vertexById(dstIds.second());
+					moreDst = dstIds.next();
+				}
+				rowNum++;
+
+				if (row.length < 3)
+					continue;
+
+				if (outVertex == null)
+				{
+					outVertex = lookupVertex(row[0]);
+					nIndexLookups++;
+				}
+				if (inVertex == null)
+				{
+					inVertex = lookupVertex(row[1]);
+					nIndexLookups++;
+				}
+
+				addEdgeToGraph(row, outVertex, inVertex);
+				possiblyFinishTransaction();
+			}
+
+			logger.debug("Imported {} edge rows, {} endpoints via index",
+					rowNum, nIndexLookups);
+		} finally
+		{
+			rows.close();
+		}
+	}
+
+	/**
+	 * The numeric value of a key, or null if the key is not the
+	 * canonical representation of a long (e.g., "007").
+	 * */
+
+	private static Long parseKey(String key)
+	{
+		try
+		{
+			long value = Long.parseLong(key);
+			return Long.toString(value).equals(key) ? value : null;
+		} catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	private void deleteWorkDir() throws IOException
+	{
+		if (!Files.exists(workDir))
+			return;
+		try (Stream<Path> files = Files.list(workDir))
+		{
+			Iterator<Path> it = files.iterator();
+			while (it.hasNext())
+				Files.deleteIfExists(it.next());
+		}
+		Files.deleteIfExists(workDir);
+	}
+
+}
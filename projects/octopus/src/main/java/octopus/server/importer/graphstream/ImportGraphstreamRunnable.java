@@ -37,17 +37,20 @@ public class ImportGraphstreamRunnable implements Runnable
         if(project == null)
             throw new RuntimeException("Error: project dos not exist");
 
+        Database database = project.getNewDatabaseInstance();
         try
         {
-            Database database = project.getNewDatabaseInstance();
             gdsBatchImporter.setGraph(database.getGraph());
             gdsBatchImporter.importGraphstreamFiles(streamFilename);
-            database.closeInstance();
         }
         catch (IOException e)
         {
             e.printStackTrace();
         }
+        finally
+        {
+            database.closeInstance();
+        }
 
         logger.warn("Import finished");
     }
@@ -85,10 +85,15 @@ public class GraphstreamImporter extends SinkAdapter {
 		this.graph = graph;
 	}
 
+	/**
+	 * Commit pending graphstream events. The graph is not closed here,
+	 * as ImportGraphstreamRunnable releases its database instance.
+	 * */
+
 	public void closeDatabase()
 	{
 		try {
-			graph.close();
+			graph.tx().commit();
 		} catch (Exception e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
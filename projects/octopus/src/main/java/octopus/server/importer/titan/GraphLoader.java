@@ -0,0 +1,231 @@
+package octopus.server.importer.titan;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thinkaurelius.titan.core.SchemaViolationException;
+
+/**
+ * Loads nodes and edges into a project's graph. Importers only differ
+ * in how they read nodes and edges (CSV files, binary graph files or
+ * the output of the parser); creating vertices and edges, resolving
+ * node ids and committing transactions is done here.
+ *
+ * Nodes are identified by numeric ids, as assigned by the writers of
+ * the parser (consecutively, starting at 0), and mapped to the ids of
+ * the vertices created for them. Importers that refer to nodes by
+ * other keys look up vertices by `_key` instead.
+ *
+ * Edges that violate the multiplicity declared for their label are
+ * skipped, so that the remaining graph is still imported, but the
+ * import fails when the database is closed (see closeDatabase).
+ * */
+
+public abstract class GraphLoader
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(GraphLoader.class);
+
+	public static final int NELEMS_PER_TRANSACTION = 100000;
+	public static final String KEY = "_key";
+
+	// See TitanLocalDatabaseManager.declareVertexCentricIndices
+	static final String AST_EDGE = "IS_AST_PARENT";
+	static final String CHILD_NUM = "childNum";
+
+	protected Graph graph;
+	private int nElemsInTransaction = 0;
+	private long nSkippedEdges = 0;
+
+	// Vertex ids indexed by node id
+	private Object[] vertexIds = new Object[0];
+
+	public void setGraph(Graph graph)
+	{
+		this.graph = graph;
+	}
+
+	/**
+	 * Create a vertex for a node, unless a vertex with the node's key
+	 * exists. As with CSV imports, existing vertices are not replaced;
+	 * the node is mapped to the existing vertex instead.
+	 *
+	 * @return the new vertex, or null if the node's key existed
+	 * */
+
+	protected Vertex loadNode(long nodeId, Map<String, String> properties)
+	{
+		String key = Long.toString(nodeId);
+		Vertex vertex = addVertex(key);
+		if (vertex == null)
+		{
+			mapNode(nodeId, lookupVertex(key));
+			return null;
+		}
+
+		for (Map.Entry<String, String> property : properties.entrySet())
+			vertex.property(property.getKey(), property.getValue());
+		mapNode(nodeId, vertex);
+		return vertex;
+	}
+
+	/**
+	 * Create an edge between the vertices of two nodes created by
+	 * loadNode.
+	 * */
+
+	protected void loadEdge(long srcId, long dstId, String label,
+			Map<String, String> properties)
+	{
+		addEdge(resolveNode(srcId), resolveNode(dstId), label, properties,
+				srcId, dstId);
+	}
+
+	/**
+	 * @return a new vertex with the given key, or null if a vertex
+	 *         with the key exists
+	 * */
+
+	protected Vertex addVertex(String key)
+	{
+		try
+		{
+			return graph.addVertex(KEY, key);
+		} catch (SchemaViolationException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Add an edge with the given properties. Edges with an unresolved
+	 * endpoint are skipped; the ids of the endpoints are only used for
+	 * logging.
+	 *
+	 * @return the new edge, or null if it has been skipped
+	 * */
+
+	protected Edge addEdge(Vertex outVertex, Vertex inVertex, String label,
+			Map<String, String> properties, Object srcId, Object dstId)
+	{
+		if (outVertex == null || inVertex == null)
+		{
+			logger.debug("Cannot resolve nodes of edge {} -> {}", srcId,
+					dstId);
+			return null;
+		}
+
+		Edge edge;
+		try
+		{
+			edge = outVertex.addEdge(label, inVertex);
+		} catch (SchemaViolationException e)
+		{
+			// edge violates the multiplicity declared for its label
+			logger.warn("Skipping edge {} -> {} ({}): {}", srcId, dstId,
+					label, e.getMessage());
+			nSkippedEdges++;
+			return null;
+		}
+
+		for (Map.Entry<String, String> property : properties.entrySet())
+			edge.property(property.getKey(), property.getValue());
+
+		if (label.equals(AST_EDGE) && !properties.containsKey(CHILD_NUM))
+			copyChildNumber(edge, inVertex);
+
+		return edge;
+	}
+
+	/**
+	 * AST edges are indexed by the child number of their destination,
+	 * which the AST steps of joern-lang rely on. Writers other than
+	 * CSVASTExporter only store it on the child.
+	 * */
+
+	private void copyChildNumber(Edge edge, Vertex child)
+	{
+		VertexProperty<Object> childNum = child.property(CHILD_NUM);
+		if (childNum.isPresent())
+			edge.property(CHILD_NUM, childNum.value());
+	}
+
+	protected void mapNode(long nodeId, Vertex vertex)
+	{
+		if (vertex == null)
+			return;
+		if (nodeId < 0 || nodeId >= Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid node id: " + nodeId);
+		if (nodeId >= vertexIds.length)
+			vertexIds = Arrays.copyOf(vertexIds, (int) Math.min(
+					Math.max(nodeId + 1, 2L * vertexIds.length),
+					Integer.MAX_VALUE));
+		vertexIds[(int) nodeId] = vertex.id();
+	}
+
+	protected Vertex resolveNode(long nodeId)
+	{
+		if (nodeId < 0 || nodeId >= vertexIds.length
+				|| vertexIds[(int) nodeId] == null)
+			return null;
+		return vertexById(vertexIds[(int) nodeId]);
+	}
+
+	protected Vertex vertexById(Object id)
+	{
+		Iterator<Vertex> vertices = graph.vertices(id);
+		return vertices.hasNext() ? vertices.next() : null;
+	}
+
+	protected Vertex lookupVertex(String key)
+	{
+		Iterator<Vertex> vertices = graph.traversal().V().has(KEY, key);
+		return vertices.hasNext() ? vertices.next() : null;
+	}
+
+	protected void possiblyFinishTransaction()
+	{
+		nElemsInTransaction++;
+		if (nElemsInTransaction >= NELEMS_PER_TRANSACTION)
+		{
+			commit();
+			nElemsInTransaction = 0;
+		}
+	}
+
+	protected void commit()
+	{
+		if (graph.features().graph().supportsTransactions())
+			graph.tx().commit();
+	}
+
+	/**
+	 * Commit outstanding elements. The graph itself is shared by
+	 * all users of the project and is closed by its owner.
+	 *
+	 * @throws RuntimeException if edges have been skipped since the
+	 *         database was last closed
+	 * */
+
+	public void closeDatabase()
+	{
+		commit();
+
+		if (nSkippedEdges > 0)
+		{
+			long n = nSkippedEdges;
+			nSkippedEdges = 0;
+			throw new RuntimeException("Incomplete import: " + n
+					+ " edges violate the multiplicity declared for their label");
+		}
+	}
+
+}
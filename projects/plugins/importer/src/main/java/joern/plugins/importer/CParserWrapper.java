@@ -2,25 +2,48 @@ package joern.plugins.importer;
 
 import java.io.IOException;
 
-import fileWalker.OrderedWalker;
+import fileWalker.ParallelWalker;
 import fileWalker.SourceFileWalker;
+import outputModules.common.WriterImpl;
 import tools.parser.CParserCSVOutput;
 
 public class CParserWrapper {
 
-	private static SourceFileWalker sourceFileWalker = new OrderedWalker();
-	private static CParserCSVOutput parser = new CParserCSVOutput();
+	private SourceFileWalker sourceFileWalker = new ParallelWalker();
+	private CParserCSVOutput parser = new CParserCSVOutput();
 	private boolean multiFileOutput = false;
+	private WriterImpl writerImpl;
 
 	public void setMultiFileOutput(boolean multiFileOutput)
 	{
 		this.multiFileOutput = multiFileOutput;
 	}
 
+	/**
+	 * Write the graph using the given writer instead of into CSV
+	 * files in the output directory.
+	 * */
+
+	public void setWriterImpl(WriterImpl writerImpl)
+	{
+		this.writerImpl = writerImpl;
+	}
+
+	/**
+	 * Walk the codebase with the given walker, e.g., a TarballWalker.
+	 * Must be called before initialize.
+	 * */
+
+	public void setSourceFileWalker(SourceFileWalker sourceFileWalker)
+	{
+		this.sourceFileWalker = sourceFileWalker;
+	}
+
 	public void initialize(String outputDir)
 	{
 		parser.setOutputDir(outputDir);
 		parser.setMultiFileOutput(multiFileOutput);
+		parser.setWriterImpl(writerImpl);
 		parser.initialize();
 		sourceFileWalker.addListener(parser);
 	}
@@ -0,0 +1,255 @@
+package joern.plugins.importer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import octopus.server.importer.titan.GraphLoader;
+import outputModules.common.WriterImpl;
+import outputModules.csv.CSVWriterImpl;
+
+/**
+ * Writes the code property graph produced by the parser into the
+ * database directly, instead of into CSV files that are imported
+ * afterwards.
+ *
+ * Nodes and edges are handed to a loader thread through a bounded
+ * queue, so that parsing and loading overlap while the parser cannot
+ * run arbitrarily far ahead of the database. Node ids are assigned
+ * here, as by CSVWriterImpl, and mapped to the ids of the created
+ * vertices, so that edges are resolved without `_key` lookups.
+ *
+ * Vertices carry the same properties as imported from CSV files,
+ * including `_key`. As with the CSV importer, a node whose key already
+ * exists is not replaced; its edges attach to the existing vertex.
+ * */
+
+public class GraphWriterImpl extends GraphLoader implements WriterImpl
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(GraphWriterImpl.class);
+
+	static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+	private static final Object END_OF_INPUT = new Object();
+	private static final Object ABORT = new Object();
+
+	private static class NodeEntry
+	{
+		final long id;
+		final Map<String, String> properties;
+
+		NodeEntry(long id, Map<String, String> properties)
+		{
+			this.id = id;
+			this.properties = properties;
+		}
+	}
+
+	private static class EdgeEntry
+	{
+		final long srcId;
+		final long dstId;
+		final String label;
+		final Map<String, String> properties;
+
+		EdgeEntry(long srcId, long dstId, String label,
+				Map<String, String> properties)
+		{
+			this.srcId = srcId;
+			this.dstId = dstId;
+			this.label = label;
+			this.properties = properties;
+		}
+	}
+
+	private final BlockingQueue<Object> queue;
+	private final Thread loader;
+
+	private long lastNodeId = 0;
+	private volatile RuntimeException failure;
+	private volatile boolean aborted = false;
+
+	public GraphWriterImpl(Graph graph)
+	{
+		this(graph, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public GraphWriterImpl(Graph graph, int queueCapacity)
+	{
+		setGraph(graph);
+		this.queue = new ArrayBlockingQueue<Object>(queueCapacity);
+		this.loader = new Thread(this::load, "graph-writer");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	@Override
+	public long writeNode(Object node, Map<String, Object> properties)
+	{
+		Map<String, String> values = new HashMap<String, String>();
+		for (String key : CSVWriterImpl.nodeProperties)
+			putValue(values, key, properties);
+
+		enqueue(new NodeEntry(lastNodeId, values));
+		return lastNodeId++;
+	}
+
+	@Override
+	public void writeEdge(long srcId, long dstId,
+			Map<String, Object> properties, String edgeType)
+	{
+		Map<String, String> values = new HashMap<String, String>();
+		if (properties != null)
+		{
+			for (String key : CSVWriterImpl.edgeProperties)
+				putValue(values, key, properties);
+		}
+
+		enqueue(new EdgeEntry(srcId, dstId, edgeType, values));
+	}
+
+	private static void putValue(Map<String, String> values, String key,
+			Map<String, Object> properties)
+	{
+		Object value = properties.get(key);
+		if (value != null && !value.toString().equals(""))
+			values.put(key, value.toString());
+	}
+
+	/**
+	 * All nodes and edges are written to the same graph.
+	 * */
+
+	@Override
+	public void changeOutputDir(String dirNameForFileNode)
+	{
+	}
+
+	/**
+	 * Wait for the loader to store all nodes and edges and commit.
+	 * */
+
+	@Override
+	public void shutdown()
+	{
+		enqueue(END_OF_INPUT);
+		try
+		{
+			loader.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Stop the loader if it is still running, e.g., because the parser
+	 * failed before calling shutdown. Entries not loaded yet are
+	 * dropped and the open transaction is rolled back; transactions
+	 * committed before remain. Waits for the loader to end, so that
+	 * the graph can be released afterwards.
+	 * */
+
+	public void abort()
+	{
+		if (!loader.isAlive())
+			return;
+
+		aborted = true;
+		queue.clear();
+		// If the queue has been refilled, the loader stops at its next
+		// entry anyway.
+		queue.offer(ABORT);
+		try
+		{
+			loader.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	public long getNumberOfNodes()
+	{
+		return lastNodeId;
+	}
+
+	private void enqueue(Object entry)
+	{
+		try
+		{
+			// Poll for failures of the loader, which stops taking
+			// entries when it fails.
+			while (!queue.offer(entry, 100, TimeUnit.MILLISECONDS))
+				checkFailure();
+			checkFailure();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void checkFailure()
+	{
+		if (failure != null)
+			throw new RuntimeException("Loading graph failed", failure);
+	}
+
+	private void load()
+	{
+		try
+		{
+			Object entry;
+			while ((entry = queue.take()) != END_OF_INPUT)
+			{
+				if (aborted)
+				{
+					rollback();
+					queue.clear();
+					return;
+				}
+
+				if (entry instanceof NodeEntry)
+				{
+					NodeEntry node = (NodeEntry) entry;
+					loadNode(node.id, node.properties);
+				} else
+				{
+					EdgeEntry edge = (EdgeEntry) entry;
+					loadEdge(edge.srcId, edge.dstId, edge.label,
+							edge.properties);
+				}
+				possiblyFinishTransaction();
+			}
+			closeDatabase();
+		} catch (InterruptedException e)
+		{
+			failure = new RuntimeException(e);
+		} catch (RuntimeException e)
+		{
+			logger.error("Loading graph failed", e);
+			failure = e;
+			rollback();
+			queue.clear();
+		}
+	}
+
+	private void rollback()
+	{
+		if (graph.features().graph().supportsTransactions()
+				&& graph.tx().isOpen())
+			graph.tx().rollback();
+	}
+
+}
@@ -2,6 +2,8 @@ package joern.plugins.importer;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import octopus.api.csvImporter.CSVImporter;
 import octopus.server.importer.csv.ImportJob;
@@ -12,9 +14,15 @@ import fileWalker.SourceFileListener;
 import joern.api.JoernProject;
 
 
+/**
+ * Collects the CSV pairs in a parser output directory. The pairs are
+ * imported together by `importFiles`, in a single import session.
+ * */
+
 public class ImporterListener extends SourceFileListener {
 
 	private JoernProject joernProject;
+	private final List<ImportJob> importJobs = new ArrayList<ImportJob>();
 
 	private static final Logger logger = LoggerFactory
 			.getLogger(ImporterListener.class);
@@ -28,11 +36,20 @@ public class ImporterListener extends SourceFileListener {
 
 		String name = joernProject.getName();
 
-		logger.debug("Importing " + nodeFilename + " " + edgeFilename + " into " + name);
+		logger.debug("Found " + nodeFilename + " " + edgeFilename + " for " + name);
+
+		importJobs.add(new ImportJob(nodeFilename, edgeFilename, name));
+	}
+
+	public void importFiles()
+	{
+		if (importJobs.isEmpty())
+			return;
 
-		ImportJob importJob = new ImportJob(nodeFilename, edgeFilename, name);
+		logger.debug("Importing " + importJobs.size() + " CSV pairs into " + joernProject.getName());
 
-		(new CSVImporter()).importCSV(importJob);
+		(new CSVImporter()).importCSV(joernProject.getName(), importJobs);
+		importJobs.clear();
 	}
 
 	public void setProject(JoernProject project)
@@ -1,6 +1,7 @@
 package joern.plugins.importer;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -8,8 +9,14 @@ import org.slf4j.LoggerFactory;
 
 import fileWalker.OrderedWalker;
 import joern.api.JoernProject;
+import joern.callGraph.CallGraphLinker;
 import joern.api.plugintypes.JoernProjectPlugin;
+import octopus.api.binaryImporter.BinaryImporter;
+import octopus.api.database.Database;
 import octopus.api.decompressor.Decompressor;
+import octopus.server.importer.binary.BinaryGraphReader;
+import octopus.server.importer.binary.ImportJob;
+import outputModules.binary.BinaryWriterImpl;
 
 public class JoernImporter extends JoernProjectPlugin {
 
@@ -19,6 +26,11 @@ public class JoernImporter extends JoernProjectPlugin {
 	private boolean uncompress = true;
 	private boolean parsecode = true;
 	private boolean importcsv = true;
+	private boolean linkcalls = true;
+	private boolean writecsv = false;
+	private boolean writebinary = false;
+	private boolean multifile = false;
+	private boolean streamtarball = false;
 
 	private JoernProject joernProject;
 
@@ -34,6 +46,21 @@ public class JoernImporter extends JoernProjectPlugin {
 			parsecode = false;
 		if(settings.has("noimportcsv"))
 			importcsv = false;
+		if(settings.has("nolinkcalls"))
+			linkcalls = false;
+		if(settings.has("writecsv"))
+			writecsv = true;
+		if(settings.has("writebinary"))
+			writebinary = true;
+		if(settings.has("multifile"))
+			multifile = true;
+		if(settings.has("streamtarball"))
+			streamtarball = uncompress && parsecode;
+
+		// Multi-file output only exists for CSV files.
+		if(multifile && writebinary)
+			throw new IllegalArgumentException(
+					"multifile cannot be combined with writebinary");
 	}
 
 
@@ -42,9 +69,22 @@ public class JoernImporter extends JoernProjectPlugin {
 	 {
 		openProject();
 
-		if(uncompress) uncompressArchive();
-		if(parsecode) parseSourceCode();
-		if(importcsv) importCSVFilesIntoDatabase();
+		if(uncompress && !streamtarball) uncompressArchive();
+
+		if(parsecode && importcsv && !writecsv && !writebinary && !multifile)
+			parseSourceCodeIntoDatabase();
+		else if(writebinary)
+		{
+			if(parsecode) parseSourceCodeToBinary();
+			if(importcsv) importBinaryFileIntoDatabase();
+		}
+		else
+		{
+			if(parsecode) parseSourceCode();
+			if(importcsv) importCSVFilesIntoDatabase();
+		}
+
+		if(linkcalls) linkCallsToFunctions();
 	 }
 
 	private void openProject()
@@ -66,21 +106,94 @@ public class JoernImporter extends JoernProjectPlugin {
 		logger.debug("decompression successful");
 	}
 
+	/**
+	 * In streaming mode, the parser reads source files from the
+	 * tarball, and only these are written into the source directory.
+	 * */
+
+	private CParserWrapper createParserWrapper()
+	{
+		CParserWrapper parserWrapper = new CParserWrapper();
+		if(streamtarball)
+			parserWrapper.setSourceFileWalker(
+					new TarballWalker(joernProject.getSourceCodeDirectory()));
+		return parserWrapper;
+	}
+
+	private String[] getCodebase()
+	{
+		if(streamtarball)
+			return new String[] { joernProject.getTarballName() };
+		return new String[] { joernProject.getSourceCodeDirectory() };
+	}
+
 	private void parseSourceCode()
 	{
 		logger.debug("Parsing code");
 
 		String parserOutputDirectory = joernProject.getParserOutputDirectory();
-		String sourceCodeDirectory = joernProject.getSourceCodeDirectory();
 
-		CParserWrapper parserWrapper = new CParserWrapper();
-		parserWrapper.setMultiFileOutput(false);
+		CParserWrapper parserWrapper = createParserWrapper();
+		parserWrapper.setMultiFileOutput(multifile);
 		parserWrapper.initialize(parserOutputDirectory);
-		parserWrapper.walkCodebase(new String[] { sourceCodeDirectory });
+		parserWrapper.walkCodebase(getCodebase());
 
 		logger.debug("Parsing complete");
 	}
 
+	/**
+	 * Parse code and write the resulting graph into the database
+	 * while parsing, without writing CSV files first.
+	 * */
+
+	private void parseSourceCodeIntoDatabase()
+	{
+		logger.debug("Parsing code into database");
+
+		Database database = joernProject.getNewDatabaseInstance();
+		GraphWriterImpl writer = null;
+		try
+		{
+			writer = new GraphWriterImpl(database.getGraph());
+			CParserWrapper parserWrapper = createParserWrapper();
+			parserWrapper.setWriterImpl(writer);
+			parserWrapper.initialize(joernProject.getParserOutputDirectory());
+			parserWrapper.walkCodebase(getCodebase());
+
+			logger.debug("Imported {} nodes", writer.getNumberOfNodes());
+		} finally
+		{
+			// The loader is still running if parsing failed
+			if (writer != null)
+				writer.abort();
+			database.closeInstance();
+		}
+	}
+
+	private void parseSourceCodeToBinary()
+	{
+		logger.debug("Parsing code to binary graph file");
+
+		CParserWrapper parserWrapper = createParserWrapper();
+		parserWrapper.setWriterImpl(new BinaryWriterImpl());
+		parserWrapper.initialize(joernProject.getParserOutputDirectory());
+		parserWrapper.walkCodebase(getCodebase());
+
+		logger.debug("Parsing complete");
+	}
+
+	private void importBinaryFileIntoDatabase()
+	{
+		logger.debug("Importing binary graph file");
+
+		String filename = Paths.get(joernProject.getParserOutputDirectory(),
+				BinaryGraphReader.FILENAME).toString();
+		ImportJob importJob = new ImportJob(filename, joernProject.getName());
+		new BinaryImporter().importBinary(importJob);
+
+		logger.debug("Import complete");
+	}
+
 	private void importCSVFilesIntoDatabase() throws IOException
 	{
 		logger.debug("Importing graph");
@@ -94,8 +207,30 @@ public class JoernImporter extends JoernProjectPlugin {
 
 		walker.addListener(listener);
 		walker.walk(new String[] { parserOutputDirectory } );
+		listener.importFiles();
 
 		logger.debug("Import complete");
 	}
 
+	/**
+	 * Calls can only be resolved once all files are imported, as
+	 * callers and callees are usually located in different files.
+	 * */
+
+	private void linkCallsToFunctions()
+	{
+		logger.debug("Linking calls to functions");
+
+		Database database = joernProject.getNewDatabaseInstance();
+		try
+		{
+			new CallGraphLinker(database.getGraph()).link();
+		} finally
+		{
+			database.closeInstance();
+		}
+
+		logger.debug("Linking complete");
+	}
+
 }
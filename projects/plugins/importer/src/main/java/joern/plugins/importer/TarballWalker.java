@@ -0,0 +1,335 @@
+package joern.plugins.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fileWalker.FileNameMatcher;
+import fileWalker.SourceFileListener;
+import fileWalker.SourceFileWalker;
+import octopus.server.decompressor.TarballDecompressor;
+
+/**
+ * Walks the source files contained in .tar.gz archives without
+ * extracting the archives first.
+ *
+ * Entries matching the filename filter are read into memory and
+ * reported to listeners along with their content (see
+ * SourceFileListener.visitFile(Path, char[])). They are also written
+ * into the output directory, as code is displayed from there. All
+ * other entries are skipped. Entries are read by a separate thread, so
+ * that decompression overlaps with parsing.
+ *
+ * Files are reported with paths in the output directory, and
+ * directories are entered and left as by OrderedWalker, starting with
+ * the output directory. This assumes that the entries of each
+ * directory are stored together, as done by tar. Each directory is
+ * entered once: files stored apart from the other entries of a
+ * directory that has already been left are reported last, from
+ * within the output directory.
+ * */
+
+public class TarballWalker extends SourceFileWalker
+{
+	private static final Logger logger = LoggerFactory
+			.getLogger(TarballWalker.class);
+
+	static final int QUEUE_CAPACITY = 64;
+
+	private static final SourceEntry END_OF_ARCHIVE = new SourceEntry(null,
+			null);
+
+	private static class SourceEntry
+	{
+		// Relative to the output directory
+		final Path path;
+		// null for directories
+		final char[] content;
+
+		SourceEntry(Path path, char[] content)
+		{
+			this.path = path;
+			this.content = content;
+		}
+	}
+
+	private final Path outputDir;
+	private final FileNameMatcher matcher = new FileNameMatcher();
+	private final List<SourceFileListener> listeners = new LinkedList<SourceFileListener>();
+
+	private final Deque<Path> directoryStack = new ArrayDeque<Path>();
+	private final Set<Path> enteredDirectories = new HashSet<Path>();
+	private final List<Path> deferredFiles = new LinkedList<Path>();
+	private volatile Throwable readerFailure;
+
+	public TarballWalker(String outputDir)
+	{
+		this.outputDir = Paths.get(outputDir);
+		setFilenameFilter(DEFAULT_FILENAME_FILTER);
+	}
+
+	@Override
+	public void setFilenameFilter(String filter)
+	{
+		matcher.setFilenameFilter(filter);
+	}
+
+	@Override
+	public void addListener(SourceFileListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	@Override
+	protected void walkExistingFileOrDirectory(String tarballFilename)
+			throws IOException
+	{
+		BlockingQueue<SourceEntry> queue = new ArrayBlockingQueue<SourceEntry>(
+				QUEUE_CAPACITY);
+		readerFailure = null;
+
+		Thread reader = new Thread(() -> readArchive(tarballFilename, queue),
+				"tarball-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		try
+		{
+			reportDirectoryEnter(outputDir);
+
+			SourceEntry entry;
+			while ((entry = queue.take()) != END_OF_ARCHIVE)
+			{
+				if (entry.content == null)
+				{
+					if (!enteredDirectories.contains(entry.path)
+							&& !wasLeft(entry.path))
+						changeDirectory(entry.path);
+				} else if (wasLeft(entry.path.getParent()))
+				{
+					deferredFiles.add(entry.path);
+				} else
+				{
+					changeDirectory(entry.path.getParent());
+					reportFile(outputDir.resolve(entry.path), entry.content);
+				}
+			}
+
+			changeDirectory(null);
+			if (readerFailure == null)
+				reportDeferredFiles();
+			reportDirectoryLeave(outputDir);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} finally
+		{
+			reader.interrupt();
+			directoryStack.clear();
+			enteredDirectories.clear();
+			deferredFiles.clear();
+		}
+
+		rethrowReaderFailure();
+	}
+
+	/**
+	 * Whether changing to `dir` would enter a directory that has
+	 * already been entered and left.
+	 * */
+
+	private boolean wasLeft(Path dir)
+	{
+		if (dir == null)
+			return false;
+
+		for (int i = 0; i < dir.getNameCount(); i++)
+		{
+			Path subdir = dir.subpath(0, i + 1);
+			if (enteredDirectories.contains(subdir)
+					&& !directoryStack.contains(subdir))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Leave directories until the current directory contains `dir`,
+	 * then enter the remaining directories down to `dir`. A null `dir`
+	 * stands for the output directory.
+	 * */
+
+	private void changeDirectory(Path dir)
+	{
+		while (!directoryStack.isEmpty()
+				&& (dir == null || !dir.startsWith(directoryStack.peek())))
+			reportDirectoryLeave(outputDir.resolve(directoryStack.pop()));
+
+		if (dir == null)
+			return;
+
+		for (int i = directoryStack.size(); i < dir.getNameCount(); i++)
+		{
+			Path subdir = dir.subpath(0, i + 1);
+			directoryStack.push(subdir);
+			enteredDirectories.add(subdir);
+			reportDirectoryEnter(outputDir.resolve(subdir));
+		}
+	}
+
+	/**
+	 * Report files whose directory had already been left when they
+	 * were read. Their content is read back from the output directory.
+	 * */
+
+	private void reportDeferredFiles() throws IOException
+	{
+		if (deferredFiles.isEmpty())
+			return;
+
+		logger.warn(
+				"{} files are stored apart from their directories in the archive",
+				deferredFiles.size());
+
+		for (Path path : deferredFiles)
+		{
+			Path file = outputDir.resolve(path);
+			reportFile(file, decode(Files.readAllBytes(file)));
+		}
+	}
+
+	/**
+	 * Pass on a failure of the reader thread. Failures other than
+	 * I/O errors (e.g., malformed entry names) are reported as such.
+	 * */
+
+	private void rethrowReaderFailure() throws IOException
+	{
+		Throwable failure = readerFailure;
+		if (failure == null)
+			return;
+		if (failure instanceof IOException)
+			throw (IOException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		throw new IOException(failure);
+	}
+
+	private void readArchive(String tarballFilename,
+			BlockingQueue<SourceEntry> queue)
+	{
+		try (TarArchiveInputStream tarIn = new TarballDecompressor()
+				.createTarInputStreamForFile(tarballFilename))
+		{
+			TarArchiveEntry entry;
+			while ((entry = tarIn.getNextTarEntry()) != null)
+			{
+				if (entry.getName().contains("pax_global_header"))
+					continue;
+
+				Path path = Paths.get(entry.getName()).normalize();
+				if (path.isAbsolute() || path.startsWith("..")
+						|| path.toString().isEmpty())
+				{
+					logger.warn("Skipping archive entry {}", entry.getName());
+					continue;
+				}
+
+				if (entry.isDirectory())
+					queue.put(new SourceEntry(path, null));
+				else if (entry.isFile() && matcher.fileMatches(path))
+					queue.put(new SourceEntry(path, readFile(tarIn, path)));
+			}
+		} catch (InterruptedException e)
+		{
+			// The walk has been aborted
+			Thread.currentThread().interrupt();
+		} catch (Throwable t)
+		{
+			readerFailure = t;
+		} finally
+		{
+			endArchive(queue);
+		}
+	}
+
+	/**
+	 * Tell the walking thread that no more entries follow, however
+	 * reading ended. The walk is only aborted by interrupting the
+	 * reader, in which case no one waits for the end of the archive.
+	 * */
+
+	private void endArchive(BlockingQueue<SourceEntry> queue)
+	{
+		try
+		{
+			queue.put(END_OF_ARCHIVE);
+		} catch (InterruptedException e)
+		{
+			return;
+		}
+	}
+
+	/**
+	 * Read the current entry, write it into the output directory and
+	 * decode it as ANTLRFileStream does.
+	 * */
+
+	private char[] readFile(TarArchiveInputStream tarIn, Path path)
+			throws IOException
+	{
+		byte[] bytes = IOUtils.toByteArray(tarIn);
+
+		Path outputFile = outputDir.resolve(path);
+		Files.createDirectories(outputFile.getParent());
+		Files.write(outputFile, bytes);
+		return decode(bytes);
+	}
+
+	private char[] decode(byte[] bytes)
+	{
+		CharBuffer chars = Charset.defaultCharset()
+				.decode(ByteBuffer.wrap(bytes));
+		char[] content = new char[chars.remaining()];
+		chars.get(content);
+		return content;
+	}
+
+	private void reportDirectoryEnter(Path path)
+	{
+		for (SourceFileListener listener : listeners)
+			listener.preVisitDirectory(path);
+	}
+
+	private void reportDirectoryLeave(Path path)
+	{
+		for (SourceFileListener listener : listeners)
+			listener.postVisitDirectory(path);
+	}
+
+	private void reportFile(Path path, char[] content)
+	{
+		for (SourceFileListener listener : listeners)
+			listener.visitFile(path, content);
+	}
+
+}